@@ -0,0 +1,146 @@
+package com.redshape.maven.plugins.gwt.benchmarks;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Measures the heap allocated and the peak heap used by the whole JVM (all threads) between
+ * {@link #start()} and {@link #stop()}, from the heap usage before and after every garbage
+ * collection in between. Allocation of objects that die young between two collections is
+ * fully accounted for; the figures are those of the whole process, so nothing else should
+ * run meanwhile.
+ */
+public class HeapMonitor implements NotificationListener {
+
+    private final Set<String> heapPools = new HashSet<String>();
+
+    private long startUsed;
+    private long startCollections;
+    private long collections;
+    private long freed;
+    private long peak;
+
+    public HeapMonitor() {
+        for ( MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans() ) {
+            if ( pool.getType() == MemoryType.HEAP ) {
+                heapPools.add( pool.getName() );
+            }
+        }
+
+        for ( GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans() ) {
+            ( (NotificationEmitter) collector ).addNotificationListener( this, null, null );
+        }
+    }
+
+    /**
+     * Collects the garbage left by the previous measurement and starts a new one.
+     */
+    public void start() {
+        System.gc();
+        waitForNotifications( getCollectionCount() );
+
+        synchronized ( this ) {
+            startCollections = getCollectionCount();
+            collections = startCollections;
+            freed = 0;
+            startUsed = getHeapUsed();
+            peak = startUsed;
+        }
+    }
+
+    public Sample stop() {
+        long used = getHeapUsed();
+        waitForNotifications( getCollectionCount() );
+
+        synchronized ( this ) {
+            return new Sample( used - startUsed + freed, Math.max( peak, used ) );
+        }
+    }
+
+    @Override
+    public synchronized void handleNotification( Notification notification, Object handback ) {
+        if ( !GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals( notification.getType() ) ) {
+            return;
+        }
+
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from(
+                (CompositeData) notification.getUserData() );
+        long before = sum( info.getGcInfo().getMemoryUsageBeforeGc() );
+        long after = sum( info.getGcInfo().getMemoryUsageAfterGc() );
+
+        collections++;
+        freed += before - after;
+        peak = Math.max( peak, before );
+        notifyAll();
+    }
+
+    /**
+     * Notifications are delivered asynchronously: waits for the ones of the collections that
+     * already took place.
+     */
+    private synchronized void waitForNotifications( long expected ) {
+        long deadline = System.currentTimeMillis() + 1000;
+        while ( collections < expected && System.currentTimeMillis() < deadline ) {
+            try {
+                wait( 50 );
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private long sum( Map<String, MemoryUsage> usages ) {
+        long total = 0;
+        for ( Map.Entry<String, MemoryUsage> usage : usages.entrySet() ) {
+            if ( heapPools.contains( usage.getKey() ) ) {
+                total += usage.getValue().getUsed();
+            }
+        }
+
+        return total;
+    }
+
+    private static long getHeapUsed() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long getCollectionCount() {
+        long count = 0;
+        for ( GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans() ) {
+            count += Math.max( 0, collector.getCollectionCount() );
+        }
+
+        return count;
+    }
+
+    public static class Sample {
+        private final long allocatedBytes;
+        private final long peakHeapBytes;
+
+        Sample( long allocatedBytes, long peakHeapBytes ) {
+            this.allocatedBytes = allocatedBytes;
+            this.peakHeapBytes = peakHeapBytes;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public long getPeakHeapBytes() {
+            return peakHeapBytes;
+        }
+    }
+}
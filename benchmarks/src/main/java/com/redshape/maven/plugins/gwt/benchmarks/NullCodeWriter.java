@@ -0,0 +1,38 @@
+package com.redshape.maven.plugins.gwt.benchmarks;
+
+import com.sun.codemodel.CodeWriter;
+import com.sun.codemodel.JPackage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Renders a <code>JCodeModel</code> without touching the disk, counting the produced bytes.
+ */
+public class NullCodeWriter extends CodeWriter {
+
+    private long bytesWritten;
+
+    @Override
+    public OutputStream openBinary( JPackage pkg, String fileName ) throws IOException {
+        return new OutputStream() {
+            @Override
+            public void write( int b ) {
+                bytesWritten++;
+            }
+
+            @Override
+            public void write( byte[] b, int off, int len ) {
+                bytesWritten += len;
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+}
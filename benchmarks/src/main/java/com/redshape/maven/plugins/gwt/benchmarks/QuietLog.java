@@ -0,0 +1,43 @@
+package com.redshape.maven.plugins.gwt.benchmarks;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+
+/**
+ * Keeps per-invocation progress messages out of the benchmark output.
+ */
+public class QuietLog extends SystemStreamLog {
+
+    @Override
+    public boolean isDebugEnabled() {
+        return false;
+    }
+
+    @Override
+    public void debug( CharSequence content ) {
+    }
+
+    @Override
+    public void debug( CharSequence content, Throwable error ) {
+    }
+
+    @Override
+    public void debug( Throwable error ) {
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return false;
+    }
+
+    @Override
+    public void info( CharSequence content ) {
+    }
+
+    @Override
+    public void info( CharSequence content, Throwable error ) {
+    }
+
+    @Override
+    public void info( Throwable error ) {
+    }
+}
@@ -0,0 +1,138 @@
+package com.redshape.maven.plugins.gwt.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Lays out synthetic GWTP source trees of a given size on local disk.
+ */
+public final class SyntheticProject {
+
+    public static final String CLIENT_PACKAGE = "com.example.client";
+    public static final String MODULE_CLASS_NAME = CLIENT_PACKAGE + ".gin.ClientModule";
+    public static final String INJECTOR_CLASS_NAME = CLIENT_PACKAGE + ".gin.ClientGinjector";
+    public static final String NAME_TOKENS_CLASS_NAME = CLIENT_PACKAGE + ".place.NameTokens";
+
+    private static final int FILES_PER_PACKAGE = 50;
+
+    private SyntheticProject() {
+    }
+
+    public static File createTempDirectory( String prefix ) throws IOException {
+        File directory = File.createTempFile( prefix, "" );
+        if ( !directory.delete() || !directory.mkdirs() ) {
+            throw new IOException("Unable to create directory " + directory.getAbsolutePath() );
+        }
+
+        return directory;
+    }
+
+    /**
+     * Creates <code>filesCount</code> plain classes spread over packages of fixed size, plus
+     * the Gin module, Ginjector and NameTokens classes holding <code>presentersCount</code>
+     * registered presenters.
+     */
+    public static void createSourceTree( File sourceRoot, int filesCount, int presentersCount ) throws IOException {
+        for ( int i = 0; i < filesCount; i++ ) {
+            String packageName = CLIENT_PACKAGE + ".feature" + ( i / FILES_PER_PACKAGE );
+            String className = "Component" + i;
+            write( sourceRoot, packageName + "." + className,
+                    "package " + packageName + ";\n\n"
+                    + "public class " + className + " {\n"
+                    + "    private final String value = \"" + className + "\";\n\n"
+                    + "    public String getValue() {\n"
+                    + "        return value;\n"
+                    + "    }\n"
+                    + "}\n" );
+        }
+
+        write( sourceRoot, MODULE_CLASS_NAME, createModuleSource( presentersCount ) );
+        write( sourceRoot, INJECTOR_CLASS_NAME, createInjectorSource( presentersCount ) );
+        write( sourceRoot, NAME_TOKENS_CLASS_NAME, createNameTokensSource( presentersCount ) );
+    }
+
+    public static String createModuleSource( int presentersCount ) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("package ").append( packageOf(MODULE_CLASS_NAME) ).append(";\n\n")
+               .append("public class ").append( simpleNameOf(MODULE_CLASS_NAME) )
+               .append(" extends com.gwtplatform.mvp.client.gin.AbstractPresenterModule {\n\n")
+               .append("    @Override\n")
+               .append("    protected void configure() {\n");
+        for ( int i = 0; i < presentersCount; i++ ) {
+            String presenter = CLIENT_PACKAGE + ".presenters.Screen" + i + "Presenter";
+            builder.append("        bindPresenter( ")
+                   .append( presenter ).append(".class,")
+                   .append( presenter ).append(".MyView.class,")
+                   .append( CLIENT_PACKAGE ).append(".views.Screen").append(i).append("View.class,")
+                   .append( presenter ).append(".MyProxy.class);\n");
+        }
+        builder.append("    }\n}\n");
+        return builder.toString();
+    }
+
+    public static String createInjectorSource( int presentersCount ) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("package ").append( packageOf(INJECTOR_CLASS_NAME) ).append(";\n\n")
+               .append("public interface ").append( simpleNameOf(INJECTOR_CLASS_NAME) )
+               .append(" extends com.google.gwt.inject.client.Ginjector {\n\n");
+        for ( int i = 0; i < presentersCount; i++ ) {
+            builder.append("    com.google.inject.Provider<").append( CLIENT_PACKAGE )
+                   .append(".presenters.Screen").append(i).append("Presenter> getScreen").append(i)
+                   .append("Presenter();\n\n");
+        }
+        builder.append("}\n");
+        return builder.toString();
+    }
+
+    public static String createNameTokensSource( int presentersCount ) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("package ").append( packageOf(NAME_TOKENS_CLASS_NAME) ).append(";\n\n")
+               .append("public class ").append( simpleNameOf(NAME_TOKENS_CLASS_NAME) ).append(" {\n\n");
+        for ( int i = 0; i < presentersCount; i++ ) {
+            builder.append("    public static final String SCREEN").append(i)
+                   .append(" = \"screen").append(i).append("\";\n");
+        }
+        builder.append("\n");
+        for ( int i = 0; i < presentersCount; i++ ) {
+            builder.append("    public static final String getScreen").append(i).append("() {\n")
+                   .append("        return SCREEN").append(i).append(";\n")
+                   .append("    }\n\n");
+        }
+        builder.append("}\n");
+        return builder.toString();
+    }
+
+    public static File write( File sourceRoot, String className, String content ) throws IOException {
+        File file = new File( sourceRoot, className.replace('.', '/') + ".java" );
+        file.getParentFile().mkdirs();
+        OutputStream stream = new FileOutputStream( file );
+        try {
+            stream.write( content.getBytes("UTF-8") );
+        } finally {
+            stream.close();
+        }
+
+        return file;
+    }
+
+    public static void delete( File file ) {
+        File[] children = file.listFiles();
+        if ( children != null ) {
+            for ( File child : children ) {
+                delete( child );
+            }
+        }
+
+        file.delete();
+    }
+
+    private static String packageOf( String className ) {
+        return className.substring( 0, className.lastIndexOf('.') );
+    }
+
+    private static String simpleNameOf( String className ) {
+        return className.substring( className.lastIndexOf('.') + 1 );
+    }
+}
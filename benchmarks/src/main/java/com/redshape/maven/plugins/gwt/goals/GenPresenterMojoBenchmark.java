@@ -0,0 +1,106 @@
+package com.redshape.maven.plugins.gwt.goals;
+
+import com.redshape.maven.plugins.gwt.benchmarks.NullCodeWriter;
+import com.redshape.maven.plugins.gwt.benchmarks.QuietLog;
+import com.redshape.maven.plugins.gwt.benchmarks.SyntheticProject;
+import com.redshape.maven.plugins.gwt.generators.BindingRegistry;
+import com.redshape.maven.plugins.gwt.generators.PresenterGenerator;
+import com.redshape.maven.plugins.gwt.output.FileTransaction;
+import com.redshape.maven.plugins.gwt.sources.SourcePatch;
+import com.redshape.maven.plugins.gwt.sources.SourceScanner;
+import com.thoughtworks.qdox.JavaDocBuilder;
+import com.thoughtworks.qdox.model.JavaClass;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of the presenter generator: path to class name conversion, the QDox parse and
+ * rewrite round trip of the Gin module, published the way the engine does and the presenter code model rendering.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class GenPresenterMojoBenchmark {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    @Param({ "10", "100", "1000" })
+    public int presentersCount;
+
+    private PresenterGenerator generator;
+    private File sourceRoot;
+    private File moduleFile;
+    private String moduleSource;
+    private String[] fileNames;
+    private List<String> presenterNames;
+
+    @Setup( Level.Trial )
+    public void setUp() throws Exception {
+        GenPresenterMojo mojo = new GenPresenterMojo();
+        mojo.setLog( new QuietLog() );
+        mojo.setPresentersPackage( SyntheticProject.CLIENT_PACKAGE + ".presenters" );
+        mojo.setPresenterViewsPackage( SyntheticProject.CLIENT_PACKAGE + ".views" );
+
+        sourceRoot = SyntheticProject.createTempDirectory("gwtp-bench");
+        moduleSource = SyntheticProject.createModuleSource( presentersCount );
+        moduleFile = SyntheticProject.write( sourceRoot, SyntheticProject.MODULE_CLASS_NAME, moduleSource );
+
+        fileNames = new String[presentersCount];
+        presenterNames = new ArrayList<String>();
+        for ( int i = 0; i < presentersCount; i++ ) {
+            fileNames[i] = sourceRoot.getAbsolutePath() + "/com/example/client/feature" + ( i / 50 )
+                    + "/Component" + i + ".java";
+            presenterNames.add( "Screen" + i );
+        }
+
+        generator = mojo.createPresenterGenerator( presenterNames );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() {
+        SyntheticProject.delete( sourceRoot );
+    }
+
+    @Benchmark
+    public void toClassName( Blackhole blackhole ) {
+        String root = sourceRoot.getAbsolutePath();
+        for ( String fileName : fileNames ) {
+            blackhole.consume( SourceScanner.toClassName( root, fileName ) );
+        }
+    }
+
+    @Benchmark
+    public void parseAndUpdateClassSource() throws Exception {
+        SyntheticProject.write( sourceRoot, SyntheticProject.MODULE_CLASS_NAME, moduleSource );
+
+        JavaDocBuilder builder = new JavaDocBuilder();
+        builder.addSource( moduleFile );
+        JavaClass moduleClazz = builder.getClassByName( SyntheticProject.MODULE_CLASS_NAME );
+        SourcePatch patch = SourcePatch.read( moduleFile, UTF8 );
+        generator.updateModuleReferences( BindingRegistry.parse( moduleClazz, "configure" ), moduleClazz, patch, "Added" );
+
+        FileTransaction transaction = new FileTransaction();
+        try {
+            transaction.stage( moduleFile, patch.toBytes() );
+            transaction.commit();
+        } finally {
+            transaction.close();
+        }
+    }
+
+    @Benchmark
+    public long buildCodeModel() throws Exception {
+        NullCodeWriter writer = new NullCodeWriter();
+        generator.buildCodeModel( presenterNames ).build( writer );
+        return writer.getBytesWritten();
+    }
+}
@@ -0,0 +1,219 @@
+package com.redshape.maven.plugins.gwt.goals;
+
+import com.redshape.maven.plugins.gwt.benchmarks.HeapMonitor;
+import com.redshape.maven.plugins.gwt.benchmarks.QuietLog;
+import com.redshape.maven.plugins.gwt.benchmarks.SyntheticProject;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * End-to-end runs of the gen-presenter goal over synthetic projects of growing size: the
+ * full <code>execute()</code> path, from the source lookup to the patching and publishing of
+ * the module, injector and name tokens sources, against a stub <code>MavenProject</code>.
+ *
+ * Each scale step gets a fresh project tree. Its first run starts without generator state
+ * (cold); the following ones reuse the source index and generation manifest left in the
+ * work directory (warm), the registration sources being restored and the generated files
+ * removed before every run. Wall time, heap allocation and peak heap are reported per run,
+ * and the exponent of the warm wall time growth between consecutive steps makes
+ * super-linear behaviour stand out.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar \
+ *      -Dsteps=1000:100,5000:500,20000:1500 -Dpresenters=10 -Druns=3 \
+ *      com.redshape.maven.plugins.gwt.goals.GenPresenterMojoMacroBenchmark
+ * </pre>
+ * Steps are <code>files:registered presenters</code> pairs, <code>presenters</code> is the
+ * number of presenters generated per run and <code>runs</code> the number of warm runs.
+ */
+public class GenPresenterMojoMacroBenchmark {
+
+    private static final String DEFAULT_STEPS = "1000:100,5000:500,20000:1500";
+    private static final String SOURCE_ROOT = "src/main/java";
+    private static final String RESOURCES_ROOT = "src/main/resources";
+    private static final String PRESENTERS_PACKAGE = SyntheticProject.CLIENT_PACKAGE + ".generated";
+    private static final String VIEWS_PACKAGE = SyntheticProject.CLIENT_PACKAGE + ".generated.views";
+
+    private static final double MEGABYTE = 1024 * 1024;
+
+    public static void main( String[] args ) throws Exception {
+        String[] steps = System.getProperty( "steps", DEFAULT_STEPS ).split(",");
+        int presenters = Integer.getInteger( "presenters", 10 );
+        int runs = Integer.getInteger( "runs", 3 );
+
+        HeapMonitor monitor = new HeapMonitor();
+
+        System.out.println( String.format( Locale.ROOT, "%8s %10s %10s %6s %12s %12s %12s",
+                "files", "bindings", "generated", "run", "wall ms", "alloc MB", "peak MB" ) );
+
+        List<Result> results = new ArrayList<Result>();
+        for ( String step : steps ) {
+            String[] sizes = step.trim().split(":");
+            int filesCount = Integer.parseInt( sizes[0] );
+            int bindingsCount = sizes.length > 1 ? Integer.parseInt( sizes[1] ) : filesCount / 10;
+
+            Result result = runStep( monitor, filesCount, bindingsCount, presenters, runs );
+            results.add( result );
+        }
+
+        printGrowth( results );
+    }
+
+    private static Result runStep( HeapMonitor monitor, int filesCount, int bindingsCount, int presenters,
+                                   int runs ) throws Exception {
+        File baseDirectory = SyntheticProject.createTempDirectory("gwtp-macro");
+        try {
+            File sourceRoot = new File( baseDirectory, SOURCE_ROOT );
+            SyntheticProject.createSourceTree( sourceRoot, filesCount, bindingsCount );
+
+            List<String> names = new ArrayList<String>();
+            for ( int i = 0; i < presenters; i++ ) {
+                names.add( "Bench" + i );
+            }
+
+            Result result = new Result( filesCount );
+            for ( int run = 0; run <= runs; run++ ) {
+                reset( baseDirectory, sourceRoot, bindingsCount );
+                GenPresenterMojo mojo = createMojo( baseDirectory, names );
+
+                monitor.start();
+                long start = System.nanoTime();
+                mojo.execute();
+                long wallNanos = System.nanoTime() - start;
+                HeapMonitor.Sample sample = monitor.stop();
+
+                if ( run > 0 ) {
+                    result.warmNanos.add( wallNanos );
+                }
+
+                System.out.println( String.format( Locale.ROOT, "%8d %10d %10d %6s %12.1f %12.1f %12.1f",
+                        filesCount, bindingsCount, presenters, run == 0 ? "cold" : "warm",
+                        wallNanos / 1e6, sample.getAllocatedBytes() / MEGABYTE,
+                        sample.getPeakHeapBytes() / MEGABYTE ) );
+            }
+
+            return result;
+        } finally {
+            SyntheticProject.delete( baseDirectory );
+        }
+    }
+
+    /**
+     * Restores the registration sources and removes the generated files, keeping the work
+     * directory.
+     */
+    private static void reset( File baseDirectory, File sourceRoot, int bindingsCount ) throws Exception {
+        SyntheticProject.write( sourceRoot, SyntheticProject.MODULE_CLASS_NAME,
+                SyntheticProject.createModuleSource( bindingsCount ) );
+        SyntheticProject.write( sourceRoot, SyntheticProject.INJECTOR_CLASS_NAME,
+                SyntheticProject.createInjectorSource( bindingsCount ) );
+        SyntheticProject.write( sourceRoot, SyntheticProject.NAME_TOKENS_CLASS_NAME,
+                SyntheticProject.createNameTokensSource( bindingsCount ) );
+
+        SyntheticProject.delete( new File( sourceRoot, PRESENTERS_PACKAGE.replace('.', '/') ) );
+        SyntheticProject.delete( new File( baseDirectory, RESOURCES_ROOT ) );
+    }
+
+    /**
+     * Configures the goal the way Maven would, by injecting its parameters.
+     */
+    private static GenPresenterMojo createMojo( File baseDirectory, List<String> names ) throws Exception {
+        Model model = new Model();
+        model.setGroupId("com.example");
+        model.setArtifactId("client");
+        model.setVersion("1.0");
+        Build build = new Build();
+        build.setDirectory( new File( baseDirectory, "target" ).getPath() );
+        model.setBuild( build );
+
+        MavenProject project = new MavenProject( model );
+        project.setFile( new File( baseDirectory, "pom.xml" ) );
+        project.addCompileSourceRoot( new File( baseDirectory, SOURCE_ROOT ).getPath() );
+
+        GenPresenterMojo mojo = new GenPresenterMojo();
+        mojo.setLog( new QuietLog() );
+        inject( mojo, "project", project );
+        inject( mojo, "presenters", names );
+        inject( mojo, "outputPath", SOURCE_ROOT );
+        inject( mojo, "resourcesPath", RESOURCES_ROOT );
+        inject( mojo, "presentersPackage", PRESENTERS_PACKAGE );
+        inject( mojo, "presenterViewsPackage", VIEWS_PACKAGE );
+        inject( mojo, "nameTokensClass", SyntheticProject.NAME_TOKENS_CLASS_NAME );
+        inject( mojo, "injectorClassName", SyntheticProject.INJECTOR_CLASS_NAME );
+        inject( mojo, "moduleClassName", SyntheticProject.MODULE_CLASS_NAME );
+        inject( mojo, "encoding", "UTF-8" );
+        inject( mojo, "workDirectory", new File( baseDirectory, "target/gwtp-generator" ) );
+        inject( mojo, "logStatistics", false );
+        inject( mojo, "searchReactorSources", false );
+        inject( mojo, "verifyClasspath", false );
+        return mojo;
+    }
+
+    private static void inject( Object mojo, String name, Object value ) throws Exception {
+        for ( Class<?> type = mojo.getClass(); type != null; type = type.getSuperclass() ) {
+            try {
+                Field field = type.getDeclaredField( name );
+                field.setAccessible( true );
+                field.set( mojo, value );
+                return;
+            } catch ( NoSuchFieldException e ) {
+                // declared by a superclass
+            }
+        }
+
+        throw new NoSuchFieldException( name );
+    }
+
+    /**
+     * Prints the exponent <code>k</code> of <code>time ~ files^k</code> between consecutive
+     * steps, from the median warm wall time: 1 is linear growth.
+     */
+    private static void printGrowth( List<Result> results ) {
+        if ( results.size() < 2 ) {
+            return;
+        }
+
+        System.out.println();
+        System.out.println( String.format( Locale.ROOT, "%20s %16s %10s", "files", "warm median ms", "exponent" ) );
+        for ( int i = 0; i < results.size(); i++ ) {
+            Result result = results.get(i);
+            String exponent = "";
+            if ( i > 0 ) {
+                Result previous = results.get( i - 1 );
+                exponent = String.format( Locale.ROOT, "%.2f",
+                        Math.log( (double) result.getMedianNanos() / previous.getMedianNanos() )
+                        / Math.log( (double) result.filesCount / previous.filesCount ) );
+            }
+
+            System.out.println( String.format( Locale.ROOT, "%20d %16.1f %10s",
+                    result.filesCount, result.getMedianNanos() / 1e6, exponent ) );
+        }
+    }
+
+    private static class Result {
+        private final int filesCount;
+        private final List<Long> warmNanos = new ArrayList<Long>();
+
+        Result( int filesCount ) {
+            this.filesCount = filesCount;
+        }
+
+        long getMedianNanos() {
+            if ( warmNanos.isEmpty() ) {
+                return 0;
+            }
+
+            List<Long> sorted = new ArrayList<Long>( warmNanos );
+            Collections.sort( sorted );
+            return sorted.get( sorted.size() / 2 );
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.redshape.maven.plugins.gwt.sources;
+
+import com.redshape.maven.plugins.gwt.benchmarks.QuietLog;
+import com.redshape.maven.plugins.gwt.benchmarks.SyntheticProject;
+import com.thoughtworks.qdox.JavaDocBuilder;
+import com.thoughtworks.qdox.model.JavaClass;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of locating the module, injector and name tokens classes in source trees of growing
+ * size: the direct path lookup, a cold full scan (no index) and a scan over a warm index.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 2, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class SourceLocatorBenchmark {
+
+    private static final String MISSING_CLASS_NAME = SyntheticProject.CLIENT_PACKAGE + ".gin.MissingModule";
+
+    @Param({ "1000", "10000" })
+    public int filesCount;
+
+    private File sourceRoot;
+    private List<String> sourceRoots;
+    private SourceIndex warmIndex;
+
+    @Setup( Level.Trial )
+    public void setUp() throws Exception {
+        sourceRoot = SyntheticProject.createTempDirectory("gwtp-bench");
+        SyntheticProject.createSourceTree( sourceRoot, filesCount, 10 );
+        sourceRoots = Arrays.asList( sourceRoot.getAbsolutePath() );
+
+        warmIndex = new SourceIndex( null );
+        new SourceLocator( sourceRoots, warmIndex, new QuietLog() )
+                .locate( new JavaDocBuilder(), Arrays.asList( MISSING_CLASS_NAME ) );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() {
+        SyntheticProject.delete( sourceRoot );
+    }
+
+    @Benchmark
+    public Map<String, JavaClass> directLookup() {
+        return new SourceLocator( sourceRoots, new QuietLog() ).locate( new JavaDocBuilder(), Arrays.asList(
+                SyntheticProject.MODULE_CLASS_NAME,
+                SyntheticProject.INJECTOR_CLASS_NAME,
+                SyntheticProject.NAME_TOKENS_CLASS_NAME ) );
+    }
+
+    @Benchmark
+    public Map<String, JavaClass> coldFullScan() {
+        return new SourceLocator( sourceRoots, new QuietLog() )
+                .locate( new JavaDocBuilder(), Arrays.asList( MISSING_CLASS_NAME ) );
+    }
+
+    @Benchmark
+    public Map<String, JavaClass> indexedFullScan() {
+        return new SourceLocator( sourceRoots, warmIndex, new QuietLog() )
+                .locate( new JavaDocBuilder(), Arrays.asList( MISSING_CLASS_NAME ) );
+    }
+}
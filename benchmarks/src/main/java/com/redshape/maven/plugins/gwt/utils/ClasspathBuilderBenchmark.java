@@ -0,0 +1,107 @@
+package com.redshape.maven.plugins.gwt.utils;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.ArtifactHandler;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classpath resolution for projects with a growing number of dependencies.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ClasspathBuilderBenchmark {
+
+    private static final ArtifactHandler JAR_HANDLER = new ArtifactHandler() {
+        public String getExtension() {
+            return "jar";
+        }
+
+        public String getDirectory() {
+            return null;
+        }
+
+        public String getClassifier() {
+            return null;
+        }
+
+        public String getPackaging() {
+            return "jar";
+        }
+
+        public boolean isIncludesDependencies() {
+            return false;
+        }
+
+        public String getLanguage() {
+            return "java";
+        }
+
+        public boolean isAddedToClasspath() {
+            return true;
+        }
+    };
+
+    @Param({ "10", "100", "1000" })
+    public int artifactsCount;
+
+    private ClasspathBuilder classpathBuilder;
+    private MavenProject project;
+    private Set<Artifact> artifacts;
+
+    @Setup( Level.Trial )
+    public void setUp() {
+        classpathBuilder = new ClasspathBuilder();
+        classpathBuilder.enableLogging( new ConsoleLogger( Logger.LEVEL_WARN, "benchmark" ) );
+
+        Model model = new Model();
+        model.setGroupId("com.example");
+        model.setArtifactId("client");
+        model.setVersion("1.0");
+        Build build = new Build();
+        build.setOutputDirectory("target/classes");
+        build.setTestOutputDirectory("target/test-classes");
+        model.setBuild( build );
+
+        project = new MavenProject( model );
+        project.addCompileSourceRoot("src/main/java");
+
+        String[] scopes = { Artifact.SCOPE_COMPILE, Artifact.SCOPE_PROVIDED, Artifact.SCOPE_RUNTIME,
+                Artifact.SCOPE_TEST };
+        artifacts = new LinkedHashSet<Artifact>();
+        for ( int i = 0; i < artifactsCount; i++ ) {
+            Artifact artifact = new DefaultArtifact( "com.example", "dependency" + i,
+                    VersionRange.createFromVersion("1.0"), scopes[i % scopes.length], "jar", null,
+                    JAR_HANDLER );
+            artifact.setFile( new File( "repository/dependency" + i + "-1.0.jar" ) );
+            artifacts.add( artifact );
+        }
+        project.setArtifacts( artifacts );
+    }
+
+    @Benchmark
+    public Collection<File> buildCompileClasspathList() throws ClasspathBuilderException {
+        return classpathBuilder.buildClasspathList( project, Artifact.SCOPE_COMPILE, artifacts );
+    }
+
+    @Benchmark
+    public Collection<File> buildRuntimeClasspathList() throws ClasspathBuilderException {
+        return classpathBuilder.buildClasspathList( project, Artifact.SCOPE_RUNTIME, artifacts );
+    }
+}
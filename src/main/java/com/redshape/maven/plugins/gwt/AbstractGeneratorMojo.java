@@ -1,11 +1,880 @@
 package com.redshape.maven.plugins.gwt;
 
+import com.redshape.maven.plugins.gwt.generators.GenerationContext;
+import com.redshape.maven.plugins.gwt.generators.SourceGenerator;
+import com.redshape.maven.plugins.gwt.metrics.GeneratorMetrics;
+import com.redshape.maven.plugins.gwt.output.FileTransaction;
+import com.redshape.maven.plugins.gwt.output.GeneratedFileWriter;
+import com.redshape.maven.plugins.gwt.output.GenerationFingerprint;
+import com.redshape.maven.plugins.gwt.output.GenerationManifest;
+import com.redshape.maven.plugins.gwt.output.GenerationPipeline;
+import com.redshape.maven.plugins.gwt.sources.SourceIndex;
+import com.redshape.maven.plugins.gwt.sources.SourceLocator;
+import com.redshape.maven.plugins.gwt.sources.SourceModelCache;
+import com.redshape.maven.plugins.gwt.sources.SourcePatch;
+import com.redshape.maven.plugins.gwt.templates.TemplateEngine;
+import com.redshape.maven.plugins.gwt.utils.ClasspathBuilder;
+import com.redshape.maven.plugins.gwt.utils.ClasspathBuilderException;
+import com.redshape.maven.plugins.gwt.utils.ClasspathIndex;
+import com.redshape.maven.plugins.gwt.utils.SourceCompiler;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.thoughtworks.qdox.JavaDocBuilder;
+import com.thoughtworks.qdox.model.JavaClass;
+import com.thoughtworks.qdox.model.JavaSource;
+import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
-import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.sonatype.plexus.build.incremental.BuildContext;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * Generation engine shared by the goals: owns the source index, the parsing of the classes
+ * the generated code is registered into, the code model rendering pipeline and the writing
+ * of the results.
+ *
+ * Goals contribute {@link SourceGenerator}s. All the generators of an execution share one
+ * classpath check, one lookup of their registration classes and one write phase: every
+ * generated file and patched source is published by a single {@link FileTransaction}, and
+ * the sources several generators register into are read and written once.
+ */
 public abstract class AbstractGeneratorMojo extends AbstractMojo {
 
+    private static final Charset DEFAULT_SOURCE_CHARSET = Charset.forName("UTF-8");
+
+    @Parameter( required = true, property = "project" )
+    private MavenProject project;
+
+    @Parameter( required = true, defaultValue = "src/main/java")
+    private String outputPath;
+
+    /**
+     * Encoding of the generated sources and of the module, injector and name tokens sources,
+     * UTF-8 when not set
+     */
+    @Parameter( defaultValue = "${project.build.sourceEncoding}" )
+    private String encoding;
+
+    /**
+     * Directory keeping the generator state between runs (source index, generation manifest etc.)
+     */
+    @Parameter( defaultValue = "${project.build.directory}/gwtp-generator" )
+    private File workDirectory;
+
+    /**
+     * Directory with project specific templates overriding the bundled ones of the same name
+     * (<code>UiBinder.Template.xml</code>). Templates may refer to the <code>${package}</code>,
+     * <code>${viewName}</code>, <code>${viewClass}</code>, <code>${binderName}</code>,
+     * <code>${presenterName}</code> and <code>${presenterClass}</code> placeholders.
+     */
+    @Parameter( defaultValue = "${basedir}/src/main/gwtp-templates" )
+    private File templatesDirectory;
+
+    /**
+     * Maximum number of units rendered concurrently, 0 for the number of available processors
+     */
+    @Parameter( defaultValue = "0" )
+    private int generationThreads;
+
+    /**
+     * Log a table of the time spent in each generation phase
+     */
+    @Parameter( property = "gwtp.generator.stats", defaultValue = "true" )
+    private boolean logStatistics;
+
+    /**
+     * Look the module, injector and name tokens classes up in the sources of the reactor
+     * projects this one depends on as well
+     */
+    @Parameter( property = "gwtp.generator.reactorSources", defaultValue = "true" )
+    private boolean searchReactorSources;
+
+    /**
+     * Check that the GWTP, Gin and GWT types the generated code refers to are on the compile
+     * classpath before generating anything
+     */
+    @Parameter( property = "gwtp.generator.verifyClasspath", defaultValue = "true" )
+    private boolean verifyClasspath;
+
+    /**
+     * Compile the generated classes and the patched sources in memory against the compile
+     * classpath before publishing them, failing the build on compilation errors
+     */
+    @Parameter( property = "gwtp.generator.compileCheck", defaultValue = "false" )
+    private boolean compileCheck;
+
+    /**
+     * Skip the execution when its configuration, its templates and the files it read and
+     * wrote are the same as after its previous run
+     */
+    @Parameter( property = "gwtp.generator.upToDateCheck", defaultValue = "true" )
+    private boolean upToDateCheck;
+
+    @Parameter( defaultValue = "${reactorProjects}", readonly = true )
+    private List<MavenProject> reactorProjects;
+
+    @Parameter( defaultValue = "${mojoExecution.executionId}", readonly = true )
+    private String executionId;
+
+    @Component
+    private ClasspathBuilder classpathBuilder;
+
+    @Component
+    private BuildContext buildContext;
+
+    /**
+     * Source index shared by the executions of the same reactor build, so that sibling
+     * modules sources are indexed once
+     */
+    private static final Object REACTOR_INDEX_LOCK = new Object();
+    private static WeakReference<List<MavenProject>> reactorIndexOwner;
+    private static SourceIndex reactorIndex;
+
+    private volatile GeneratorMetrics metrics = new GeneratorMetrics();
+    private volatile FileTransaction transaction;
+    private volatile List<SourceGenerator> generators;
+    private volatile SourceModelCache sourceModels;
+    private volatile Set<File> referencedFiles;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        generate( createGenerators() );
+    }
+
+    /**
+     * @return generators configured for the execution
+     */
+    protected abstract List<SourceGenerator> createGenerators() throws MojoExecutionException;
+
+    /**
+     * @return name of the goal, as recorded in the generator report
+     */
+    protected abstract String getGoal();
+
+    /**
+     * Runs the given generators and registers what they generate.
+     */
+    protected void generate( List<SourceGenerator> generators ) throws MojoExecutionException, MojoFailureException {
+        File fingerprintFile = null;
+        String settings = null;
+        if ( upToDateCheck && !isDryRun() ) {
+            settings = getSettingsHash( generators );
+            fingerprintFile = getFingerprintFile();
+            if ( fingerprintFile != null && isUpToDate( fingerprintFile, settings ) ) {
+                getLog().info("Generated sources are up to date");
+                return;
+            }
+        }
+
+        metrics = new GeneratorMetrics();
+        GeneratorMetrics.Timer timer = metrics.start("execute");
+        transaction = new FileTransaction();
+        referencedFiles = new LinkedHashSet<File>();
+        this.generators = generators;
+        try {
+            if ( verifyClasspath ) {
+                verifyClasspath();
+            }
+
+            File outputFile = resolveProjectFile( outputPath );
+            if ( !outputFile.exists() && !isDryRun() ) {
+                outputFile.mkdirs();
+            }
+
+            GeneratedFileWriter writer = createFileWriter( loadManifest() );
+            writer.setMetrics( metrics );
+            writer.setTransaction( transaction );
+            writer.setRecordSources( compileCheck );
+
+            GenerationPipeline pipeline = new GenerationPipeline( writer, generationThreads );
+            try {
+                GenerationContext context = new GenerationContext( getLog(), metrics, pipeline, getBaseDirectory(),
+                        outputFile, getSourceCharset(), getTemplateEngine() );
+                for ( SourceGenerator generator : generators ) {
+                    generator.generate( context );
+                }
+
+                updateReferences( context );
+
+                pipeline.await();
+
+                if ( compileCheck ) {
+                    checkCompilation( writer, context );
+                }
+            } finally {
+                pipeline.shutdown();
+            }
+
+            commit( transaction );
+            if ( !isDryRun() ) {
+                writer.getManifest().save();
+            }
+
+            refreshBuildContext( transaction );
+            if ( fingerprintFile != null ) {
+                saveFingerprint( fingerprintFile, settings, writer );
+            }
+        } catch (JClassAlreadyExistsException e) {
+            throw new MojoExecutionException( e.getMessage(), e );
+        } catch (IOException e) {
+            throw new MojoFailureException( e.getMessage(), e );
+        } finally {
+            transaction.close();
+            transaction = null;
+            referencedFiles = null;
+            this.generators = null;
+            timer.stop();
+            reportMetrics( generators );
+        }
+    }
+
+    /**
+     * @return hash of the configuration of the execution and of its generators
+     */
+    protected String getSettingsHash( List<SourceGenerator> generators ) {
+        StringBuilder settings = new StringBuilder();
+        settings.append( "goal=" ).append( getGoal() ).append( '\n' );
+        settings.append( "output=" ).append( resolveProjectFile( outputPath ).getAbsolutePath() ).append( '\n' );
+        settings.append( "encoding=" ).append( getSourceCharset().name() ).append( '\n' );
+        settings.append( "templates=" ).append( templatesDirectory ).append( '\n' );
+        settings.append( "compileCheck=" ).append( compileCheck ).append( '\n' );
+        for ( SourceGenerator generator : generators ) {
+            settings.append( "generator=" ).append( generator.getName() ).append( '\n' );
+            for ( Map.Entry<String, String> setting : generator.getSettings().entrySet() ) {
+                settings.append( setting.getKey() ).append( '=' ).append( setting.getValue() ).append( '\n' );
+            }
+        }
+
+        return GeneratedFileWriter.hash( settings.toString().getBytes( DEFAULT_SOURCE_CHARSET ) );
+    }
+
+    /**
+     * Under an incremental build context (IDE builders), the files of the previous run are
+     * checked against the changes the build context reports rather than against their stamps.
+     */
+    protected boolean isUpToDate( File fingerprintFile, String settings ) {
+        GenerationFingerprint fingerprint = GenerationFingerprint.load( fingerprintFile, getLog() );
+        if ( fingerprint == null || !settings.equals( fingerprint.getSettings() ) ) {
+            return false;
+        }
+
+        if ( buildContext != null && buildContext.isIncremental() ) {
+            for ( File file : fingerprint.getFiles() ) {
+                if ( buildContext.hasDelta( file ) ) {
+                    getLog().debug("Changed since the previous run: " + file.getPath() );
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        List<File> changed = fingerprint.getChangedFiles();
+        if ( !changed.isEmpty() ) {
+            getLog().debug("Changed since the previous run: " + changed );
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Records the inputs and outputs of a complete run: not done when any of the registration
+     * classes is missing, as it may be added anywhere in the source roots.
+     */
+    private void saveFingerprint( File fingerprintFile, String settings, GeneratedFileWriter writer ) {
+        Set<File> inputs = referencedFiles;
+        if ( inputs == null ) {
+            fingerprintFile.delete();
+            return;
+        }
+
+        GenerationFingerprint fingerprint = new GenerationFingerprint( fingerprintFile, settings );
+        fingerprint.addFiles( writer.getFiles() );
+        fingerprint.addFiles( inputs );
+        if ( templatesDirectory != null ) {
+            fingerprint.addFile( templatesDirectory );
+            File[] templates = templatesDirectory.listFiles();
+            if ( templates != null ) {
+                fingerprint.addFiles( Arrays.asList( templates ) );
+            }
+        }
+
+        File pluginFile = getPluginFile();
+        if ( pluginFile != null ) {
+            fingerprint.addFile( pluginFile );
+        }
+
+        try {
+            fingerprint.save();
+        } catch ( IOException e ) {
+            getLog().warn("Failed to store generation fingerprint: " + e.getMessage() );
+        }
+    }
+
+    /**
+     * Lets the build context (IDE builders) know about the published files.
+     */
+    private void refreshBuildContext( FileTransaction transaction ) {
+        if ( buildContext == null ) {
+            return;
+        }
+
+        for ( File file : transaction.getTargets() ) {
+            buildContext.refresh( file );
+        }
+    }
+
+    /**
+     * @return jar (or classes directory) of the plugin, so that its updates invalidate the
+     *         fingerprints of the previous runs
+     */
+    private static File getPluginFile() {
+        try {
+            return new File( AbstractGeneratorMojo.class.getProtectionDomain().getCodeSource().getLocation().toURI() );
+        } catch ( Exception e ) {
+            return null;
+        }
+    }
+
+    /**
+     * Compiles the generated and patched sources of the run in memory, failing before any of
+     * them is published when they do not compile.
+     */
+    protected void checkCompilation( GeneratedFileWriter writer, GenerationContext context )
+            throws MojoExecutionException, MojoFailureException {
+        if ( !SourceCompiler.isAvailable() ) {
+            getLog().warn("No Java compiler available (running on a JRE?), skipping the compile check");
+            return;
+        }
+
+        Map<File, byte[]> units = new LinkedHashMap<File, byte[]>( writer.getSources() );
+        for ( SourcePatch patch : context.getSourcePatches() ) {
+            if ( !patch.isEmpty() ) {
+                units.put( patch.getFile(), patch.toBytes() );
+            }
+        }
+
+        GeneratorMetrics.Timer timer = metrics.start("compileCheck");
+        List<String> errors;
+        try {
+            errors = new SourceCompiler( getCompileClasspath(), getSourceCharset() ).compile( units );
+            metrics.add( GeneratorMetrics.FILES_COMPILED, units.size() );
+        } catch ( ClasspathBuilderException e ) {
+            throw new MojoExecutionException("Failed to resolve compile classpath: " + e.getMessage(), e );
+        } catch ( IOException e ) {
+            throw new MojoExecutionException("Failed to compile generated sources: " + e.getMessage(), e );
+        } finally {
+            timer.stop();
+        }
+
+        if ( !errors.isEmpty() ) {
+            for ( String error : errors ) {
+                getLog().error( error );
+            }
+
+            throw new MojoFailureException( errors.size() + " compilation error(s) in the generated sources, "
+                    + "nothing has been written. First one: " + errors.get(0) );
+        }
+    }
+
+    /**
+     * Publishes all the files written by the run at once.
+     */
+    protected void commit( FileTransaction transaction ) throws IOException {
+        GeneratorMetrics.Timer timer = metrics.start("commit");
+        try {
+            transaction.commit();
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * @return true when nothing must be written to the filesystem, the generated files and
+     *         source patches being only compared with what is on disk
+     */
+    protected boolean isDryRun() {
+        return false;
+    }
+
+    protected GeneratedFileWriter createFileWriter( GenerationManifest manifest ) {
+        return new GeneratedFileWriter( manifest, getLog() );
+    }
+
+    protected void reportMetrics( List<SourceGenerator> generators ) {
+        if ( logStatistics ) {
+            metrics.log( getLog() );
+        }
+
+        File reportFile = getReportFile();
+        if ( reportFile == null || isDryRun() ) {
+            return;
+        }
+
+        Map<String, String> attributes = new LinkedHashMap<String, String>();
+        attributes.put( "goal", getGoal() );
+        attributes.put( "timestamp", String.valueOf( System.currentTimeMillis() ) );
+        for ( SourceGenerator generator : generators ) {
+            attributes.put( generator.getName(), String.valueOf( generator.getNames().size() ) );
+        }
+
+        try {
+            metrics.writeReport( reportFile, attributes );
+        } catch ( IOException e ) {
+            getLog().warn("Failed to write generator report: " + e.getMessage() );
+        }
+    }
+
+    protected void updateReferences( GenerationContext context ) throws IOException {
+        if ( getReferencedClassNames().isEmpty() ) {
+            return;
+        }
+
+        GeneratorMetrics.Timer timer = metrics.start("updateReferences");
+        try {
+            doUpdateReferences( context );
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private void doUpdateReferences( GenerationContext context ) throws IOException {
+        sourceModels = loadSourceModels();
+        try {
+            doUpdateReferences( context, sourceModels );
+        } finally {
+            sourceModels = null;
+        }
+    }
+
+    private void doUpdateReferences( GenerationContext context, SourceModelCache models ) throws IOException {
+        SourceIndex index = loadSourceIndex();
+        Map<String, JavaClass> classes = locateReferencedClasses( index );
+        Map<File, Long> stamps = getSourceStamps( classes.values() );
+
+        // held until the patched sources are published
+        transaction.lock( stamps.keySet() );
+        if ( !stamps.equals( getSourceStamps( classes.values() ) ) ) {
+            // patched by a concurrent execution since parsed
+            classes = locateReferencedClasses( index );
+        }
+
+        referencedFiles = classes.keySet().containsAll( getReferencedClassNames() )
+                ? new LinkedHashSet<File>( getSourceStamps( classes.values() ).keySet() ) : null;
+
+        patchReferences( context, index, classes );
+
+        if ( isDryRun() ) {
+            return;
+        }
+
+        try {
+            index.save();
+        } catch ( IOException e ) {
+            getLog().warn("Failed to store source index: " + e.getMessage() );
+        }
+
+        try {
+            models.save();
+        } catch ( IOException e ) {
+            getLog().warn("Failed to store source model cache: " + e.getMessage() );
+        }
+    }
+
+    /**
+     * Expects the source files of the given classes to be locked. The index is refreshed with
+     * the patched files as they will be once published.
+     */
+    private void patchReferences( GenerationContext context, SourceIndex index, Map<String, JavaClass> classes )
+            throws IOException {
+        for ( SourceGenerator generator : getGenerators() ) {
+            generator.register( context, classes );
+        }
+
+        context.submitGeneratedModules();
+
+        for ( SourcePatch patch : context.getSourcePatches() ) {
+            if ( !patch.isEmpty() ) {
+                File staged = updateClassSource( patch );
+                if ( staged != null ) {
+                    index.refresh( patch.getFile(), staged.length(), staged.lastModified() );
+                    cacheSourceModel( context, patch );
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the model of the patched source, so that the next run does not parse it again.
+     */
+    private void cacheSourceModel( GenerationContext context, SourcePatch patch ) {
+        SourceModelCache cache = sourceModels;
+        JavaSource source = context.getPatchedSource( patch );
+        if ( cache != null && source != null ) {
+            cache.put( SourceModelCache.hash( patch.toBytes() ), source );
+        }
+    }
+
+    /**
+     * Stages the patched source into the transaction of the run.
+     *
+     * @return staged file, or <code>null</code> when nothing has been staged
+     */
+    protected File updateClassSource( SourcePatch patch ) {
+        getLog().info("Updating source: " + patch.getFile().getAbsolutePath() );
+        FileTransaction current = transaction;
+        if ( current == null ) {
+            throw new IllegalStateException("Sources are only updated during a run");
+        }
+
+        if ( patch.isModified() ) {
+            throw new IllegalStateException("Source file has been modified concurrently: "
+                    + patch.getFile().getAbsolutePath() );
+        }
+
+        GeneratorMetrics.Timer timer = metrics.start("updateClassSource");
+        try {
+            byte[] content = patch.toBytes();
+            File staged = current.stage( patch.getFile(), content );
+
+            metrics.add( GeneratorMetrics.BYTES_WRITTEN, content.length );
+            metrics.increment( GeneratorMetrics.FILES_WRITTEN );
+            return staged;
+        } catch ( IOException e ) {
+            throw new IllegalStateException("Failed to update references in source: "
+                    + patch.getFile().getAbsolutePath(), e );
+        } finally {
+            timer.stop();
+        }
+    }
+
+    protected Map<File, Long> getSourceStamps( Collection<JavaClass> classes ) {
+        Map<File, Long> stamps = new HashMap<File, Long>();
+        for ( JavaClass clazz : classes ) {
+            File file = getSourceFile( clazz );
+            stamps.put( file, getStamp(file) );
+        }
+
+        return stamps;
+    }
+
+    /**
+     * @return value changing whenever the file is modified
+     */
+    protected static long getStamp( File file ) {
+        return file.lastModified() * 31 + file.length();
+    }
+
+    protected GenerationManifest loadManifest() {
+        return GenerationManifest.load( getManifestFile(), getLog() );
+    }
+
+    protected SourceModelCache loadSourceModels() {
+        return SourceModelCache.load( getSourceModelsFile(), getLog() );
+    }
+
+    /**
+     * @return index shared with the other executions of the current reactor build, loaded
+     *         from the work directory of the first of them
+     */
+    protected SourceIndex loadSourceIndex() {
+        if ( reactorProjects == null ) {
+            return SourceIndex.load( getSourceIndexFile(), getLog() );
+        }
+
+        synchronized ( REACTOR_INDEX_LOCK ) {
+            if ( reactorIndex == null || reactorIndexOwner.get() != reactorProjects ) {
+                reactorIndex = SourceIndex.load( getSourceIndexFile(), getLog() );
+                reactorIndexOwner = new WeakReference<List<MavenProject>>( reactorProjects );
+            }
+
+            return reactorIndex;
+        }
+    }
+
+    /**
+     * @return classes the generators register into, parsed from the project sources and
+     *         keyed by their configured names
+     */
+    protected Map<String, JavaClass> locateReferencedClasses( SourceIndex index ) {
+        SourceLocator locator = new SourceLocator( getCompileSourceRoots(), index, getLog() );
+        locator.setMetrics( metrics );
+        locator.setModelCache( sourceModels );
+
+        GeneratorMetrics.Timer timer = metrics.start("locate");
+        try {
+            return locator.locate( new JavaDocBuilder(), getReferencedClassNames() );
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * @return registration classes of all the generators of the execution
+     */
+    protected Collection<String> getReferencedClassNames() {
+        Set<String> names = new LinkedHashSet<String>();
+        for ( SourceGenerator generator : getGenerators() ) {
+            for ( String name : generator.getRegistrationClassNames() ) {
+                if ( name != null ) {
+                    names.add( name );
+                }
+            }
+        }
+
+        return names;
+    }
+
+    /**
+     * Fails when any of the types the generated code refers to is missing from the compile
+     * classpath, rather than leaving it to the GWT compilation.
+     */
+    protected void verifyClasspath() throws MojoExecutionException, MojoFailureException {
+        if ( project == null || classpathBuilder == null ) {
+            return;
+        }
+
+        Set<String> referencedTypes = new LinkedHashSet<String>();
+        for ( SourceGenerator generator : getGenerators() ) {
+            referencedTypes.addAll( generator.getReferencedTypes() );
+        }
+
+        GeneratorMetrics.Timer timer = metrics.start("verifyClasspath");
+        List<String> missing;
+        try {
+            missing = new ClasspathIndex( getCompileClasspath() ).findMissing( referencedTypes );
+        } catch ( ClasspathBuilderException e ) {
+            throw new MojoExecutionException("Failed to resolve compile classpath: " + e.getMessage(), e );
+        } catch ( IOException e ) {
+            throw new MojoExecutionException("Failed to index compile classpath: " + e.getMessage(), e );
+        } finally {
+            timer.stop();
+        }
+
+        if ( !missing.isEmpty() ) {
+            throw new MojoFailureException("Types referenced by the generated code are missing from the "
+                    + "compile classpath: " + missing + ". Add the GWTP, Gin and GWT dependencies to the "
+                    + "project, or set gwtp.generator.verifyClasspath to false.");
+        }
+    }
+
+    /**
+     * @return compile classpath of the project, empty outside of a Maven build
+     */
+    @SuppressWarnings("unchecked")
+    protected Collection<File> getCompileClasspath() throws ClasspathBuilderException {
+        if ( project == null || classpathBuilder == null ) {
+            return Collections.emptyList();
+        }
+
+        return classpathBuilder.buildClasspathList( project, Artifact.SCOPE_COMPILE, project.getArtifacts() );
+    }
+
+    /**
+     * @return generators of the running execution, or the configured ones between executions
+     */
+    protected List<SourceGenerator> getGenerators() {
+        List<SourceGenerator> current = generators;
+        if ( current != null ) {
+            return current;
+        }
+
+        try {
+            return createGenerators();
+        } catch ( MojoExecutionException e ) {
+            throw new IllegalStateException( e.getMessage(), e );
+        }
+    }
+
+    /**
+     * Resolves a path relative to the project base directory rather than to the working
+     * directory, which differs from it for the modules of a reactor build.
+     */
+    protected File resolveProjectFile( String path ) {
+        File file = new File( path );
+        if ( file.isAbsolute() || getBaseDirectory() == null ) {
+            return file;
+        }
+
+        return new File( getBaseDirectory(), path );
+    }
+
+    protected File getBaseDirectory() {
+        return project == null ? null : project.getBasedir();
+    }
+
+    /**
+     * @return source roots of the project, followed by the ones of the reactor projects it
+     *         depends on
+     */
+    @SuppressWarnings("unchecked")
+    protected List<String> getCompileSourceRoots() {
+        if ( !searchReactorSources || classpathBuilder == null ) {
+            return project.getCompileSourceRoots();
+        }
+
+        Collection<File> sourceRoots = new LinkedHashSet<File>();
+        classpathBuilder.addSourcesWithActiveProjects( project, sourceRoots, Artifact.SCOPE_COMPILE );
+
+        List<String> result = new ArrayList<String>( sourceRoots.size() );
+        for ( File sourceRoot : sourceRoots ) {
+            result.add( sourceRoot.getPath() );
+        }
+
+        return result;
+    }
+
+    /**
+     * @return file the given class has been parsed from
+     */
+    protected File getSourceFile( JavaClass clazz ) {
+        return GenerationContext.getSourceFile( clazz );
+    }
+
+    protected TemplateEngine getTemplateEngine() {
+        return new TemplateEngine( getClass().getClassLoader(), templatesDirectory );
+    }
+
+    protected File getSourceIndexFile() {
+        return workDirectory == null ? null : new File( workDirectory, "source-index.bin" );
+    }
+
+    protected File getSourceModelsFile() {
+        return workDirectory == null ? null : new File( workDirectory, "source-models.bin" );
+    }
+
+    /**
+     * @return file the fingerprint of the last run of the execution is stored to, the hash
+     *         of its settings being kept inside, or <code>null</code> not to check whether
+     *         the run is up to date
+     */
+    protected File getFingerprintFile() {
+        if ( workDirectory == null ) {
+            return null;
+        }
+
+        String name = getGoal();
+        if ( executionId != null && !executionId.isEmpty() ) {
+            name += "-" + executionId.replaceAll( "[^A-Za-z0-9._-]", "_" );
+        }
+
+        return new File( workDirectory, "fingerprint-" + name + ".bin" );
+    }
+
+    protected File getReportFile() {
+        return workDirectory == null ? null : new File( workDirectory, "generator-report.json" );
+    }
+
+    protected File getManifestFile() {
+        return workDirectory == null ? null : new File( workDirectory, "generation-manifest.bin" );
+    }
+
+    protected Charset getSourceCharset() {
+        return encoding == null || encoding.isEmpty() ? DEFAULT_SOURCE_CHARSET : Charset.forName( encoding );
+    }
+
+    public MavenProject getProject() {
+        return project;
+    }
+
+    public void setProject(MavenProject project) {
+        this.project = project;
+    }
+
+    public List<MavenProject> getReactorProjects() {
+        return reactorProjects;
+    }
+
+    public void setReactorProjects(List<MavenProject> reactorProjects) {
+        this.reactorProjects = reactorProjects;
+    }
+
+    public void setClasspathBuilder(ClasspathBuilder classpathBuilder) {
+        this.classpathBuilder = classpathBuilder;
+    }
+
+    public String getOutputPath() {
+        return outputPath;
+    }
+
+    public void setOutputPath(String outputPath) {
+        this.outputPath = outputPath;
+    }
+
+    public File getWorkDirectory() {
+        return workDirectory;
+    }
+
+    public void setWorkDirectory(File workDirectory) {
+        this.workDirectory = workDirectory;
+    }
+
+    public GeneratorMetrics getMetrics() {
+        return metrics;
+    }
+
+    public boolean isLogStatistics() {
+        return logStatistics;
+    }
+
+    public void setLogStatistics(boolean logStatistics) {
+        this.logStatistics = logStatistics;
+    }
+
+    public boolean isVerifyClasspath() {
+        return verifyClasspath;
+    }
+
+    public void setVerifyClasspath(boolean verifyClasspath) {
+        this.verifyClasspath = verifyClasspath;
+    }
+
+    public boolean isCompileCheck() {
+        return compileCheck;
+    }
+
+    public void setCompileCheck(boolean compileCheck) {
+        this.compileCheck = compileCheck;
+    }
+
+    public boolean isUpToDateCheck() {
+        return upToDateCheck;
+    }
+
+    public void setUpToDateCheck(boolean upToDateCheck) {
+        this.upToDateCheck = upToDateCheck;
+    }
+
+    public boolean isSearchReactorSources() {
+        return searchReactorSources;
+    }
+
+    public void setSearchReactorSources(boolean searchReactorSources) {
+        this.searchReactorSources = searchReactorSources;
+    }
+
+    public int getGenerationThreads() {
+        return generationThreads;
+    }
+
+    public void setGenerationThreads(int generationThreads) {
+        this.generationThreads = generationThreads;
+    }
+
+    public File getTemplatesDirectory() {
+        return templatesDirectory;
+    }
 
+    public void setTemplatesDirectory(File templatesDirectory) {
+        this.templatesDirectory = templatesDirectory;
+    }
 }
@@ -0,0 +1,89 @@
+package com.redshape.maven.plugins.gwt.generators;
+
+import com.redshape.maven.plugins.gwt.sources.SourcePatch;
+import com.thoughtworks.qdox.model.JavaClass;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base of the generators, configured through setters (or directly by Maven, when nested in
+ * the configuration of the <code>generate</code> goal).
+ */
+public abstract class AbstractSourceGenerator implements SourceGenerator {
+
+    /**
+     * GWT Constants
+     */
+    protected static final String PROVIDER_CLASS_NAME = "com.google.inject.Provider";
+    protected static final String INJECT_ANNOTATION_CLASS_NAME = "com.google.inject.Inject";
+    protected static final String EVENTBUS_CLASS_NAME = "com.google.web.bindery.event.shared.EventBus";
+
+    private List<String> names;
+    private Log log;
+
+    /**
+     * @return configured names, trimmed, without blanks and duplicates
+     */
+    @Override
+    public List<String> getNames() {
+        if ( names == null ) {
+            return Collections.emptyList();
+        }
+
+        List<String> result = new ArrayList<String>();
+        for ( String name : names ) {
+            if ( name == null || name.trim().isEmpty() || result.contains( name.trim() ) ) {
+                continue;
+            }
+
+            result.add( name.trim() );
+        }
+
+        return result;
+    }
+
+    @Override
+    public Map<String, String> getSettings() {
+        Map<String, String> settings = new LinkedHashMap<String, String>();
+        settings.put( "names", getNames().toString() );
+        return settings;
+    }
+
+    public void setNames( List<String> names ) {
+        this.names = names;
+    }
+
+    public Log getLog() {
+        if ( log == null ) {
+            log = new SystemStreamLog();
+        }
+
+        return log;
+    }
+
+    public void setLog( Log log ) {
+        this.log = log;
+    }
+
+    /**
+     * Appends the statement to the body of the given method, unless the registry of the
+     * method holds it already.
+     *
+     * @return true if the statement has been added
+     */
+    protected boolean addStatement( BindingRegistry registry, JavaClass clazz, SourcePatch patch,
+                                    String methodName, String statement ) {
+        if ( !registry.add( statement ) ) {
+            return false;
+        }
+
+        patch.insertStatement( GenerationContext.getTypeOutline(patch, clazz), methodName, statement );
+        return true;
+    }
+}
@@ -0,0 +1,203 @@
+package com.redshape.maven.plugins.gwt.generators;
+
+import com.redshape.maven.plugins.gwt.sources.SourcePatch;
+import com.sun.codemodel.*;
+import com.thoughtworks.qdox.model.JavaClass;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Generates GWTP dispatch commands: <code>NameAction</code> and <code>NameResult</code>,
+ * and when a handlers package is configured the server side <code>NameHandler</code>,
+ * bound in the <code>configureHandlers()</code> method of the handler module.
+ */
+public class ActionGenerator extends AbstractSourceGenerator {
+
+    private static final String ACTION_IMPL_CLASS_NAME = "com.gwtplatform.dispatch.shared.ActionImpl";
+    private static final String RESULT_CLASS_NAME = "com.gwtplatform.dispatch.shared.Result";
+    private static final String ACTION_EXCEPTION_CLASS_NAME = "com.gwtplatform.dispatch.shared.ActionException";
+    private static final String ACTION_HANDLER_CLASS_NAME =
+            "com.gwtplatform.dispatch.server.actionhandler.AbstractActionHandler";
+    private static final String EXECUTION_CONTEXT_CLASS_NAME = "com.gwtplatform.dispatch.server.ExecutionContext";
+
+    private static final String CONFIGURE_HANDLERS_METHOD_NAME = "configureHandlers";
+
+    private String actionsPackage;
+    private String handlersPackage;
+    private String handlerModuleClassName;
+
+    @Override
+    public String getName() {
+        return "actions";
+    }
+
+    @Override
+    public Collection<String> getReferencedTypes() {
+        if ( !isGenerateHandlers() ) {
+            return Arrays.asList( ACTION_IMPL_CLASS_NAME, RESULT_CLASS_NAME );
+        }
+
+        return Arrays.asList( ACTION_IMPL_CLASS_NAME, RESULT_CLASS_NAME, ACTION_EXCEPTION_CLASS_NAME,
+                ACTION_HANDLER_CLASS_NAME, EXECUTION_CONTEXT_CLASS_NAME, INJECT_ANNOTATION_CLASS_NAME );
+    }
+
+    @Override
+    public Collection<String> getRegistrationClassNames() {
+        if ( !isGenerateHandlers() || handlerModuleClassName == null ) {
+            return Collections.emptyList();
+        }
+
+        return Collections.singletonList( handlerModuleClassName );
+    }
+
+    @Override
+    public Map<String, String> getSettings() {
+        Map<String, String> settings = super.getSettings();
+        settings.put( "actionsPackage", actionsPackage );
+        settings.put( "handlersPackage", handlersPackage );
+        settings.put( "handlerModuleClassName", handlerModuleClassName );
+        return settings;
+    }
+
+    @Override
+    public void generate( GenerationContext context ) {
+        for ( final String name : getNames() ) {
+            context.submit( new GenerationContext.CodeModelBuilder() {
+                @Override
+                public JCodeModel build() throws JClassAlreadyExistsException {
+                    return buildCodeModel( Collections.singletonList(name) );
+                }
+            } );
+        }
+    }
+
+    @Override
+    public void register( GenerationContext context, Map<String, JavaClass> classes ) throws IOException {
+        if ( getRegistrationClassNames().isEmpty() ) {
+            return;
+        }
+
+        JavaClass moduleClazz = classes.get( handlerModuleClassName );
+        if ( moduleClazz == null ) {
+            getLog().warn("Failed to found handler module class: " + handlerModuleClassName );
+            return;
+        }
+
+        BindingRegistry registry = context.getBindingRegistry( moduleClazz, CONFIGURE_HANDLERS_METHOD_NAME );
+        SourcePatch patch = context.getSourcePatch( moduleClazz );
+        for ( String name : getNames() ) {
+            updateHandlerModuleReferences( registry, moduleClazz, patch, name );
+        }
+    }
+
+    public boolean updateHandlerModuleReferences( BindingRegistry registry, JavaClass moduleClazz, SourcePatch patch,
+                                                  String name ) {
+        String statement = "bindHandler(" + generateActionPath(name) + ".class, "
+                + generateHandlerPath(name) + ".class);";
+
+        if ( !addStatement( registry, moduleClazz, patch, CONFIGURE_HANDLERS_METHOD_NAME, statement ) ) {
+            getLog().debug("Action handler already registered in the handler module!");
+            return false;
+        }
+
+        return true;
+    }
+
+    public JCodeModel buildCodeModel( List<String> names ) throws JClassAlreadyExistsException {
+        JCodeModel model = new JCodeModel();
+        for ( String name : names ) {
+            JDefinedClass resultClazz = defineResult( model, name );
+            JDefinedClass actionClazz = defineAction( model, name, resultClazz );
+            if ( isGenerateHandlers() ) {
+                defineHandler( model, name, actionClazz, resultClazz );
+            }
+        }
+
+        return model;
+    }
+
+    protected JDefinedClass defineResult( JCodeModel model, String name ) throws JClassAlreadyExistsException {
+        JDefinedClass resultClazz = model._class( JMod.PUBLIC, generateResultPath(name), ClassType.CLASS );
+        resultClazz._implements( model.ref(RESULT_CLASS_NAME) );
+        resultClazz.constructor( JMod.PUBLIC );
+        return resultClazz;
+    }
+
+    protected JDefinedClass defineAction( JCodeModel model, String name, JDefinedClass resultClazz )
+            throws JClassAlreadyExistsException {
+        JDefinedClass actionClazz = model._class( JMod.PUBLIC, generateActionPath(name), ClassType.CLASS );
+        actionClazz._extends( model.ref(ACTION_IMPL_CLASS_NAME).narrow( resultClazz ) );
+        actionClazz.constructor( JMod.PUBLIC );
+        return actionClazz;
+    }
+
+    protected JDefinedClass defineHandler( JCodeModel model, String name, JDefinedClass actionClazz,
+                                           JDefinedClass resultClazz ) throws JClassAlreadyExistsException {
+        JDefinedClass handlerClazz = model._class( JMod.PUBLIC, generateHandlerPath(name), ClassType.CLASS );
+        handlerClazz._extends( model.ref(ACTION_HANDLER_CLASS_NAME).narrow( actionClazz, resultClazz ) );
+
+        JMethod constructorMethod = handlerClazz.constructor( JMod.PUBLIC );
+        constructorMethod.annotate( model.ref(INJECT_ANNOTATION_CLASS_NAME) );
+        constructorMethod.body().add( JExpr.invoke("super").arg( actionClazz.dotclass() ) );
+
+        JClass exceptionClazz = model.ref(ACTION_EXCEPTION_CLASS_NAME);
+        JClass contextClazz = model.ref(EXECUTION_CONTEXT_CLASS_NAME);
+
+        JMethod executeMethod = handlerClazz.method( JMod.PUBLIC, resultClazz, "execute" );
+        executeMethod.annotate( Override.class );
+        executeMethod.param( JMod.FINAL, actionClazz, "action" );
+        executeMethod.param( JMod.FINAL, contextClazz, "context" );
+        executeMethod._throws( exceptionClazz );
+        executeMethod.body()._return( JExpr._new( resultClazz ) );
+
+        JMethod undoMethod = handlerClazz.method( JMod.PUBLIC, model.VOID, "undo" );
+        undoMethod.annotate( Override.class );
+        undoMethod.param( JMod.FINAL, actionClazz, "action" );
+        undoMethod.param( JMod.FINAL, resultClazz, "result" );
+        undoMethod.param( JMod.FINAL, contextClazz, "context" );
+        undoMethod._throws( exceptionClazz );
+
+        return handlerClazz;
+    }
+
+    protected boolean isGenerateHandlers() {
+        return handlersPackage != null && !handlersPackage.trim().isEmpty();
+    }
+
+    protected String generateActionPath( String name ) {
+        return actionsPackage + "." + name + "Action";
+    }
+
+    protected String generateResultPath( String name ) {
+        return actionsPackage + "." + name + "Result";
+    }
+
+    protected String generateHandlerPath( String name ) {
+        return handlersPackage + "." + name + "Handler";
+    }
+
+    public String getActionsPackage() {
+        return actionsPackage;
+    }
+
+    public void setActionsPackage(String actionsPackage) {
+        this.actionsPackage = actionsPackage;
+    }
+
+    public String getHandlersPackage() {
+        return handlersPackage;
+    }
+
+    public void setHandlersPackage(String handlersPackage) {
+        this.handlersPackage = handlersPackage;
+    }
+
+    public String getHandlerModuleClassName() {
+        return handlerModuleClassName;
+    }
+
+    public void setHandlerModuleClassName(String handlerModuleClassName) {
+        this.handlerModuleClassName = handlerModuleClassName;
+    }
+}
@@ -0,0 +1,164 @@
+package com.redshape.maven.plugins.gwt.generators;
+
+import com.thoughtworks.qdox.model.JavaClass;
+import com.thoughtworks.qdox.model.JavaMethod;
+import com.thoughtworks.qdox.model.Type;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Statements of a registration method (<code>bindPresenter(...)</code>, <code>install(...)</code>
+ * etc.), split once and kept in a hash set so that checking whether a binding is already
+ * there does not depend on the size of the method. Statements are compared with whitespace
+ * and comments removed.
+ */
+public class BindingRegistry {
+
+    private final Set<String> statements = new HashSet<String>();
+    private final List<String> added = new ArrayList<String>();
+
+    public BindingRegistry() {
+    }
+
+    /**
+     * @param body source of a method body, as returned by QDox
+     */
+    public BindingRegistry( String body ) {
+        for ( String statement : split( body ) ) {
+            statements.add( statement );
+        }
+    }
+
+    /**
+     * @throws IllegalStateException when the class does not declare the method
+     */
+    public static BindingRegistry parse( JavaClass clazz, String methodName ) {
+        JavaMethod method = clazz.getMethodBySignature( methodName, new Type[] {} );
+        if ( method == null ) {
+            throw new IllegalStateException("Unable to find " + clazz.getFullyQualifiedName() + "."
+                    + methodName + "()" );
+        }
+
+        return new BindingRegistry( method.getSourceCode() == null ? "" : method.getSourceCode() );
+    }
+
+    public boolean contains( String statement ) {
+        return statements.contains( normalize(statement) );
+    }
+
+    /**
+     * @return false when the statement is registered already
+     */
+    public boolean add( String statement ) {
+        if ( !statements.add( normalize(statement) ) ) {
+            return false;
+        }
+
+        added.add( statement );
+        return true;
+    }
+
+    /**
+     * @return statements added since parsed, in order
+     */
+    public List<String> getAdded() {
+        return Collections.unmodifiableList( added );
+    }
+
+    public int size() {
+        return statements.size();
+    }
+
+    protected static String normalize( String statement ) {
+        List<String> result = split( statement );
+        return result.isEmpty() ? "" : result.get( result.size() - 1 );
+    }
+
+    /**
+     * Splits a block into its statements, each normalized. A statement ends with a semicolon
+     * or with the closing brace of a block outside of any parentheses; statements of nested
+     * blocks (<code>if</code>, loops) are listed as well, before the enclosing one, so that a
+     * conditional binding counts as registered.
+     */
+    protected static List<String> split( String body ) {
+        List<String> result = new ArrayList<String>();
+        StringBuilder current = new StringBuilder();
+        int parentheses = 0;
+        int braces = 0;
+        int nestedStart = 0;
+        int position = 0;
+        while ( position < body.length() ) {
+            char c = body.charAt( position );
+            if ( c == '/' && position + 1 < body.length() && body.charAt(position + 1) == '/' ) {
+                int end = body.indexOf( '\n', position );
+                position = end == -1 ? body.length() : end;
+                continue;
+            } else if ( c == '/' && position + 1 < body.length() && body.charAt(position + 1) == '*' ) {
+                int end = body.indexOf( "*/", position + 2 );
+                position = end == -1 ? body.length() : end + 2;
+                continue;
+            } else if ( c == '"' || c == '\'' ) {
+                int end = skipLiteral( body, position );
+                current.append( body, position, end );
+                position = end;
+                continue;
+            }
+
+            position++;
+            if ( Character.isWhitespace(c) ) {
+                continue;
+            }
+
+            current.append( c );
+            if ( c == '(' || c == '[' ) {
+                parentheses++;
+            } else if ( c == ')' || c == ']' ) {
+                parentheses = Math.max( 0, parentheses - 1 );
+            } else if ( c == '{' ) {
+                braces++;
+            } else if ( c == '}' ) {
+                braces = Math.max( 0, braces - 1 );
+            }
+
+            if ( parentheses > 0 ) {
+                continue;
+            }
+
+            if ( braces == 0 && ( c == ';' || c == '}' ) ) {
+                result.add( current.toString() );
+                current.setLength( 0 );
+                nestedStart = 0;
+            } else if ( braces > 0 && c == ';' ) {
+                result.add( current.substring( nestedStart ) );
+                nestedStart = current.length();
+            } else if ( c == '{' || c == '}' ) {
+                nestedStart = current.length();
+            }
+        }
+
+        if ( current.length() > 0 ) {
+            result.add( current.toString() );
+        }
+
+        return result;
+    }
+
+    private static int skipLiteral( String body, int start ) {
+        char quote = body.charAt( start );
+        int position = start + 1;
+        while ( position < body.length() ) {
+            char c = body.charAt( position++ );
+            if ( c == '\\' ) {
+                position++;
+            } else if ( c == quote || c == '\n' ) {
+                break;
+            }
+        }
+
+        return Math.min( position, body.length() );
+    }
+}
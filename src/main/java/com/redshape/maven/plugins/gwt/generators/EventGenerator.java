@@ -0,0 +1,127 @@
+package com.redshape.maven.plugins.gwt.generators;
+
+import com.sun.codemodel.*;
+import com.thoughtworks.qdox.model.JavaClass;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates GWT events: <code>NameEvent</code>, with its nested <code>NameHandler</code>
+ * interface, static <code>TYPE</code> and <code>fire</code> helper. Events need no
+ * registration.
+ */
+public class EventGenerator extends AbstractSourceGenerator {
+
+    private static final String GWT_EVENT_CLASS_NAME = "com.google.gwt.event.shared.GwtEvent";
+    private static final String EVENT_TYPE_CLASS_NAME = GWT_EVENT_CLASS_NAME + ".Type";
+    private static final String EVENT_HANDLER_CLASS_NAME = "com.google.gwt.event.shared.EventHandler";
+    private static final String HAS_HANDLERS_CLASS_NAME = "com.google.gwt.event.shared.HasHandlers";
+
+    private static final List<String> REFERENCED_TYPES = Collections.unmodifiableList( Arrays.asList(
+            GWT_EVENT_CLASS_NAME, EVENT_HANDLER_CLASS_NAME, HAS_HANDLERS_CLASS_NAME ) );
+
+    private String eventsPackage;
+
+    @Override
+    public String getName() {
+        return "events";
+    }
+
+    @Override
+    public Collection<String> getReferencedTypes() {
+        return REFERENCED_TYPES;
+    }
+
+    @Override
+    public Collection<String> getRegistrationClassNames() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Map<String, String> getSettings() {
+        Map<String, String> settings = super.getSettings();
+        settings.put( "eventsPackage", eventsPackage );
+        return settings;
+    }
+
+    @Override
+    public void generate( GenerationContext context ) {
+        for ( final String name : getNames() ) {
+            context.submit( new GenerationContext.CodeModelBuilder() {
+                @Override
+                public JCodeModel build() throws JClassAlreadyExistsException {
+                    return buildCodeModel( Collections.singletonList(name) );
+                }
+            } );
+        }
+    }
+
+    @Override
+    public void register( GenerationContext context, Map<String, JavaClass> classes ) {
+    }
+
+    public JCodeModel buildCodeModel( List<String> names ) throws JClassAlreadyExistsException {
+        JCodeModel model = new JCodeModel();
+        for ( String name : names ) {
+            defineEvent( model, name );
+        }
+
+        return model;
+    }
+
+    protected JDefinedClass defineEvent( JCodeModel model, String name ) throws JClassAlreadyExistsException {
+        JDefinedClass eventClazz = model._package( eventsPackage )._class( generateClassName(name) );
+
+        JDefinedClass handlerClazz = eventClazz._class( JMod.PUBLIC, generateHandlerName(name), ClassType.INTERFACE );
+        handlerClazz._implements( model.ref(EVENT_HANDLER_CLASS_NAME) );
+        handlerClazz.method( JMod.NONE, model.VOID, generateHandlerMethodName(name) )
+                .param( eventClazz, "event" );
+
+        eventClazz._extends( model.ref(GWT_EVENT_CLASS_NAME).narrow( handlerClazz ) );
+
+        JClass typeClazz = model.ref(EVENT_TYPE_CLASS_NAME).narrow( handlerClazz );
+        JFieldVar typeField = eventClazz.field( JMod.PRIVATE | JMod.STATIC | JMod.FINAL, typeClazz, "TYPE",
+                JExpr._new( typeClazz ) );
+
+        eventClazz.method( JMod.PUBLIC | JMod.STATIC, typeClazz, "getType" ).body()._return( typeField );
+
+        JMethod fireMethod = eventClazz.method( JMod.PUBLIC | JMod.STATIC, model.VOID, "fire" );
+        JVar source = fireMethod.param( JMod.FINAL, model.ref(HAS_HANDLERS_CLASS_NAME), "source" );
+        fireMethod.body().invoke( source, "fireEvent" ).arg( JExpr._new( eventClazz ) );
+
+        JMethod associatedTypeMethod = eventClazz.method( JMod.PUBLIC, typeClazz, "getAssociatedType" );
+        associatedTypeMethod.annotate( Override.class );
+        associatedTypeMethod.body()._return( typeField );
+
+        JMethod dispatchMethod = eventClazz.method( JMod.PROTECTED, model.VOID, "dispatch" );
+        dispatchMethod.annotate( Override.class );
+        JVar handler = dispatchMethod.param( JMod.FINAL, handlerClazz, "handler" );
+        dispatchMethod.body().invoke( handler, generateHandlerMethodName(name) ).arg( JExpr._this() );
+
+        return eventClazz;
+    }
+
+    protected String generateClassName( String name ) {
+        return name + "Event";
+    }
+
+    protected String generateHandlerName( String name ) {
+        return name + "Handler";
+    }
+
+    protected String generateHandlerMethodName( String name ) {
+        return "on" + name;
+    }
+
+    public String getEventsPackage() {
+        return eventsPackage;
+    }
+
+    public void setEventsPackage(String eventsPackage) {
+        this.eventsPackage = eventsPackage;
+    }
+}
@@ -0,0 +1,262 @@
+package com.redshape.maven.plugins.gwt.generators;
+
+import com.redshape.maven.plugins.gwt.metrics.GeneratorMetrics;
+import com.redshape.maven.plugins.gwt.output.GenerationPipeline;
+import com.redshape.maven.plugins.gwt.output.MemoryCodeWriter;
+import com.redshape.maven.plugins.gwt.sources.SourceLocator;
+import com.redshape.maven.plugins.gwt.sources.SourceOutline;
+import com.redshape.maven.plugins.gwt.sources.SourcePatch;
+import com.redshape.maven.plugins.gwt.templates.TemplateEngine;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.thoughtworks.qdox.model.JavaClass;
+import com.thoughtworks.qdox.model.JavaMethod;
+import com.thoughtworks.qdox.model.JavaSource;
+import com.thoughtworks.qdox.model.Type;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * State of a single generation run shared by its generators: the pipeline the generated
+ * files are submitted to, and the patches of the registration sources, one per file so that
+ * every file is written once whatever the number of generators registering into it.
+ *
+ * Registration methods are parsed once per run into {@link BindingRegistry}s, shared as well.
+ * Gin modules generators register into but which do not exist yet are collected as
+ * registries too, and rendered once all the generators have registered.
+ *
+ * The parsed models of the patched sources are kept up to date as well, to be cached along
+ * with the patched files (see {@link #getPatchedSource(SourcePatch)}).
+ */
+public class GenerationContext {
+
+    /**
+     * Builds the code model of generated classes; called from the pipeline threads.
+     */
+    public interface CodeModelBuilder {
+
+        JCodeModel build() throws JClassAlreadyExistsException;
+    }
+
+    private final Log log;
+    private final GeneratorMetrics metrics;
+    private final GenerationPipeline pipeline;
+    private final File baseDirectory;
+    private final File outputDirectory;
+    private final Charset sourceCharset;
+    private final TemplateEngine templateEngine;
+    private final Map<File, SourcePatch> patches = new LinkedHashMap<File, SourcePatch>();
+    private final Map<File, JavaSource> sources = new HashMap<File, JavaSource>();
+    private final Map<String, BindingRegistry> registries = new HashMap<String, BindingRegistry>();
+    private final Map<String, JavaMethod> registryMethods = new HashMap<String, JavaMethod>();
+    private final Map<String, Integer> syncedStatements = new HashMap<String, Integer>();
+    private final Map<String, BindingRegistry> generatedModules = new LinkedHashMap<String, BindingRegistry>();
+    private final Map<String, String> generatedModuleTypes = new HashMap<String, String>();
+
+    /**
+     * @param baseDirectory directory relative paths are resolved against, <code>null</code>
+     *                      for the working directory
+     * @param outputDirectory directory generated sources are written to
+     */
+    public GenerationContext( Log log, GeneratorMetrics metrics, GenerationPipeline pipeline, File baseDirectory,
+                              File outputDirectory, Charset sourceCharset, TemplateEngine templateEngine ) {
+        this.log = log;
+        this.metrics = metrics;
+        this.pipeline = pipeline;
+        this.baseDirectory = baseDirectory;
+        this.outputDirectory = outputDirectory;
+        this.sourceCharset = sourceCharset;
+        this.templateEngine = templateEngine;
+    }
+
+    public Log getLog() {
+        return log;
+    }
+
+    public GeneratorMetrics getMetrics() {
+        return metrics;
+    }
+
+    public Charset getSourceCharset() {
+        return sourceCharset;
+    }
+
+    public TemplateEngine getTemplateEngine() {
+        return templateEngine;
+    }
+
+    public File getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    public File resolve( String path ) {
+        File file = new File( path );
+        return file.isAbsolute() || baseDirectory == null ? file : new File( baseDirectory, path );
+    }
+
+    /**
+     * Submits files rendered by the unit, keyed by their path relative to the directory.
+     */
+    public void submit( File directory, GenerationPipeline.Unit unit ) {
+        pipeline.submit( directory, unit );
+    }
+
+    /**
+     * Submits the classes of a code model, rendered into the output directory.
+     */
+    public void submit( CodeModelBuilder builder ) {
+        submit( outputDirectory, builder );
+    }
+
+    /**
+     * Submits the classes of a code model, rendered into the given source root.
+     */
+    public void submit( File directory, final CodeModelBuilder builder ) {
+        pipeline.submit( directory, new GenerationPipeline.Unit() {
+            @Override
+            public Map<String, byte[]> render() throws IOException, JClassAlreadyExistsException {
+                JCodeModel model;
+                GeneratorMetrics.Timer timer = metrics.start("buildCodeModel");
+                try {
+                    model = builder.build();
+                } finally {
+                    timer.stop();
+                }
+
+                timer = metrics.start("renderCodeModel");
+                try {
+                    MemoryCodeWriter codeWriter = new MemoryCodeWriter( sourceCharset );
+                    model.build( codeWriter );
+                    return codeWriter.getFiles();
+                } finally {
+                    timer.stop();
+                }
+            }
+        } );
+    }
+
+    /**
+     * Classes declared in the same file share a single patch, so every file is written once.
+     */
+    public SourcePatch getSourcePatch( JavaClass clazz ) throws IOException {
+        File file = getSourceFile( clazz );
+        SourcePatch patch = patches.get( file );
+        if ( patch == null ) {
+            patch = SourcePatch.read( file, sourceCharset );
+            patches.put( file, patch );
+            sources.put( file, clazz.getSource() );
+            metrics.add( GeneratorMetrics.BYTES_READ, patch.getSize() );
+        }
+
+        return patch;
+    }
+
+    /**
+     * @return patches of the registration sources, in the order they were first requested
+     */
+    public Collection<SourcePatch> getSourcePatches() {
+        return Collections.unmodifiableCollection( patches.values() );
+    }
+
+    /**
+     * @return statements of the given method of a located registration class
+     */
+    public BindingRegistry getBindingRegistry( JavaClass clazz, String methodName ) {
+        String key = clazz.getFullyQualifiedName() + "#" + methodName;
+        BindingRegistry registry = registries.get( key );
+        if ( registry == null ) {
+            registry = BindingRegistry.parse( clazz, methodName );
+            registries.put( key, registry );
+            registryMethods.put( key, clazz.getMethodBySignature( methodName, new Type[] {} ) );
+        }
+
+        return registry;
+    }
+
+    /**
+     * @param className module to generate into the output directory, its statements being
+     *                  the <code>configure()</code> method body
+     * @param superClassName Gin module class the generated module extends
+     * @return statements of the module, empty when first requested
+     */
+    public BindingRegistry getGeneratedModule( String className, String superClassName ) {
+        BindingRegistry registry = generatedModules.get( className );
+        if ( registry == null ) {
+            registry = new BindingRegistry();
+            generatedModules.put( className, registry );
+            generatedModuleTypes.put( className, superClassName );
+        }
+
+        return registry;
+    }
+
+    /**
+     * Submits the modules requested through {@link #getGeneratedModule(String, String)}.
+     */
+    public void submitGeneratedModules() {
+        for ( final Map.Entry<String, BindingRegistry> module : generatedModules.entrySet() ) {
+            final String superClassName = generatedModuleTypes.get( module.getKey() );
+            submit( new CodeModelBuilder() {
+                @Override
+                public JCodeModel build() throws JClassAlreadyExistsException {
+                    JCodeModel model = new JCodeModel();
+                    JDefinedClass moduleClazz = model._class( module.getKey() );
+                    moduleClazz._extends( model.ref(superClassName) );
+
+                    JMethod configureMethod = moduleClazz.method( JMod.PROTECTED, model.VOID, "configure" );
+                    configureMethod.annotate( Override.class );
+                    for ( String statement : module.getValue().getAdded() ) {
+                        configureMethod.body().directStatement( statement );
+                    }
+
+                    return model;
+                }
+            } );
+        }
+
+        generatedModules.clear();
+    }
+
+    /**
+     * @return parsed model of the source as patched: its classes as updated by the generators,
+     *         with the statements added through the binding registries appended to their
+     *         methods; <code>null</code> for a source that has not been requested
+     */
+    public JavaSource getPatchedSource( SourcePatch patch ) {
+        for ( Map.Entry<String, BindingRegistry> entry : registries.entrySet() ) {
+            List<String> added = entry.getValue().getAdded();
+            Integer synced = syncedStatements.get( entry.getKey() );
+            if ( added.size() == ( synced == null ? 0 : synced ) ) {
+                continue;
+            }
+
+            JavaMethod method = registryMethods.get( entry.getKey() );
+            StringBuilder code = new StringBuilder( method.getSourceCode() == null ? "" : method.getSourceCode() );
+            for ( String statement : added.subList( synced == null ? 0 : synced, added.size() ) ) {
+                code.append( statement ).append( '\n' );
+            }
+            method.setSourceCode( code.toString() );
+            syncedStatements.put( entry.getKey(), added.size() );
+        }
+
+        return sources.get( patch.getFile() );
+    }
+
+    public static SourceOutline.TypeOutline getTypeOutline( SourcePatch patch, JavaClass clazz ) {
+        return patch.getType( SourceLocator.toSourceName( clazz.getFullyQualifiedName() ), clazz.getPackageName() );
+    }
+
+    /**
+     * @return file the given class has been parsed from
+     */
+    public static File getSourceFile( JavaClass clazz ) {
+        return new File( clazz.getSource().getURL().getPath() );
+    }
+}
@@ -0,0 +1,809 @@
+package com.redshape.maven.plugins.gwt.generators;
+
+import com.redshape.maven.plugins.gwt.metrics.GeneratorMetrics;
+import com.redshape.maven.plugins.gwt.output.GenerationPipeline;
+import com.redshape.maven.plugins.gwt.sources.SourceLocator;
+import com.redshape.maven.plugins.gwt.sources.SourcePatch;
+import com.redshape.maven.plugins.gwt.templates.Template;
+import com.sun.codemodel.*;
+import com.thoughtworks.qdox.JavaDocBuilder;
+import com.thoughtworks.qdox.model.JavaClass;
+import com.thoughtworks.qdox.model.JavaField;
+import com.thoughtworks.qdox.model.JavaMethod;
+import com.thoughtworks.qdox.model.JavaParameter;
+import com.thoughtworks.qdox.model.Type;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * Generates place presenters with their proxy, view and UiBinder template, and registers
+ * them in the Gin module, the injector and the name tokens class.
+ *
+ * With <code>shardModules</code> set, the bindings go to a Gin module of the presenters
+ * package instead (<code>com.example.client.home.HomeGinModule</code> for
+ * <code>com.example.client.home</code>), created on first use and installed from the main
+ * module, so that large applications do not grow a single huge <code>configure()</code>.
+ *
+ * The proxies are standard ones by default, putting every presenter in the initial download.
+ * See {@link ProxyStrategy} for the code split alternatives.
+ */
+public class PresenterGenerator extends AbstractSourceGenerator {
+
+    /**
+     * How the generated presenters are loaded by the GWT application
+     */
+    public enum ProxyStrategy {
+
+        /**
+         * <code>@ProxyStandard</code> proxies, presenters provided by a <code>Provider</code>
+         * of the injector: part of the initial download
+         */
+        STANDARD( PROXY_STANDARD_CLASS_NAME ),
+
+        /**
+         * <code>@ProxyCodeSplit</code> proxies, presenters provided by an <code>AsyncProvider</code>
+         * of the injector: every presenter is a split point of its own
+         */
+        CODE_SPLIT( PROXY_CODE_SPLIT_CLASS_NAME, ASYNC_PROVIDER_CLASS_NAME ),
+
+        /**
+         * <code>@ProxyCodeSplitBundle</code> proxies, presenters provided by a generated
+         * <code>ProviderBundle</code> (see <code>bundleName</code>) the injector provides
+         * asynchronously: presenters of a bundle are downloaded together
+         */
+        CODE_SPLIT_BUNDLE( PROXY_CODE_SPLIT_BUNDLE_CLASS_NAME, ASYNC_PROVIDER_CLASS_NAME, PROVIDER_BUNDLE_CLASS_NAME );
+
+        private final List<String> referencedTypes;
+
+        ProxyStrategy( String... referencedTypes ) {
+            this.referencedTypes = Collections.unmodifiableList( Arrays.asList( referencedTypes ) );
+        }
+
+        public List<String> getReferencedTypes() {
+            return referencedTypes;
+        }
+    }
+
+    /**
+     * GWTP Constants
+     */
+    protected static final String PRESENTER_CLASS_NAME = "com.gwtplatform.mvp.client.Presenter";
+    protected static final String VIEW_CLASS_NAME = "com.gwtplatform.mvp.client.View";
+    protected static final String PROXY_CLASS_NAME = "com.gwtplatform.mvp.client.proxy.ProxyPlace";
+    protected static final String PROXY_STANDARD_CLASS_NAME = "com.gwtplatform.mvp.client.annotations.ProxyStandard";
+    protected static final String PROXY_CODE_SPLIT_CLASS_NAME = "com.gwtplatform.mvp.client.annotations.ProxyCodeSplit";
+    protected static final String PROXY_CODE_SPLIT_BUNDLE_CLASS_NAME =
+            "com.gwtplatform.mvp.client.annotations.ProxyCodeSplitBundle";
+    protected static final String PROVIDER_BUNDLE_CLASS_NAME = "com.gwtplatform.common.client.ProviderBundle";
+    protected static final String ASYNC_PROVIDER_CLASS_NAME = "com.google.gwt.inject.client.AsyncProvider";
+    protected static final String NAME_TOKEN_CLASS_NAME = "com.gwtplatform.mvp.client.annotations.NameToken";
+    protected static final String UI_BINDER_CLASS_NAME = "com.google.gwt.uibinder.client.UiBinder";
+    protected static final String WIDGET_CLASS_NAME = "com.google.gwt.user.client.ui.Widget";
+    protected static final String VIEW_IMPL_CLASS_NAME = "com.gwtplatform.mvp.client.ViewImpl";
+    protected static final String GIN_MODULE_CLASS_NAME = "com.gwtplatform.mvp.client.gin.AbstractPresenterModule";
+
+    protected static final String CONFIGURE_METHOD_NAME = "configure";
+    private static final String SHARD_MODULE_SUFFIX = "GinModule";
+    private static final String BUNDLE_SUFFIX = "Bundle";
+    private static final String BUNDLE_ID_PREFIX = "ID_";
+    private static final String BUNDLE_SIZE_FIELD_NAME = "BUNDLE_SIZE";
+
+    /**
+     * Types the generated code refers to, expected on the compile classpath
+     */
+    private static final List<String> REFERENCED_TYPES = Collections.unmodifiableList( Arrays.asList(
+            PRESENTER_CLASS_NAME, VIEW_CLASS_NAME, PROXY_CLASS_NAME, NAME_TOKEN_CLASS_NAME, UI_BINDER_CLASS_NAME, WIDGET_CLASS_NAME, VIEW_IMPL_CLASS_NAME,
+            PROVIDER_CLASS_NAME, INJECT_ANNOTATION_CLASS_NAME, EVENTBUS_CLASS_NAME ) );
+
+    private static final Charset TEMPLATE_CHARSET = Charset.forName("UTF-8");
+    private static final String UI_BINDER_TEMPLATE = "UiBinder.Template.xml";
+    protected static final String BINDER_INTERFACE_NAME = "Binder";
+
+    private String resourcesPath;
+    private String presentersPackage;
+    private String presenterViewsPackage;
+    private String nameTokensClass;
+    private String injectorClassName;
+    private String moduleClassName;
+    private boolean generateView = true;
+    private boolean shardModules;
+    private ProxyStrategy proxyStrategy = ProxyStrategy.STANDARD;
+    private String bundleName;
+
+    @Override
+    public String getName() {
+        return "presenters";
+    }
+
+    @Override
+    public Collection<String> getReferencedTypes() {
+        List<String> types = new ArrayList<String>( REFERENCED_TYPES );
+        types.addAll( proxyStrategy.getReferencedTypes() );
+        return withShardModuleType( types );
+    }
+
+    @Override
+    public Collection<String> getRegistrationClassNames() {
+        List<String> classNames = new ArrayList<String>( Arrays.asList( injectorClassName, moduleClassName,
+                nameTokensClass ) );
+        if ( proxyStrategy == ProxyStrategy.CODE_SPLIT_BUNDLE ) {
+            classNames.add( getBundleClassName() );
+        }
+
+        return withShardModuleClass( classNames );
+    }
+
+    @Override
+    public Map<String, String> getSettings() {
+        Map<String, String> settings = super.getSettings();
+        settings.put( "resourcesPath", resourcesPath );
+        settings.put( "presentersPackage", presentersPackage );
+        settings.put( "presenterViewsPackage", presenterViewsPackage );
+        settings.put( "nameTokensClass", nameTokensClass );
+        settings.put( "injectorClassName", injectorClassName );
+        settings.put( "moduleClassName", moduleClassName );
+        settings.put( "generateView", String.valueOf( generateView ) );
+        settings.put( "shardModules", String.valueOf( shardModules ) );
+        settings.put( "proxyStrategy", String.valueOf( proxyStrategy ) );
+        settings.put( "bundleName", bundleName );
+        return settings;
+    }
+
+    protected Collection<String> withShardModuleType( Collection<String> types ) {
+        if ( !shardModules ) {
+            return types;
+        }
+
+        List<String> result = new ArrayList<String>( types );
+        result.add( GIN_MODULE_CLASS_NAME );
+        return result;
+    }
+
+    protected Collection<String> withShardModuleClass( Collection<String> classNames ) {
+        if ( !shardModules ) {
+            return classNames;
+        }
+
+        List<String> result = new ArrayList<String>( classNames );
+        result.add( getShardModuleClassName() );
+        return result;
+    }
+
+    @Override
+    public void generate( GenerationContext context ) throws IOException {
+        for ( final String name : getNames() ) {
+            context.submit( new GenerationContext.CodeModelBuilder() {
+                @Override
+                public JCodeModel build() throws JClassAlreadyExistsException {
+                    return buildCodeModel( Collections.singletonList(name) );
+                }
+            } );
+        }
+
+        if ( generateView ) {
+            generateUiBinderTemplates( context );
+        }
+    }
+
+    protected void generateUiBinderTemplates( final GenerationContext context ) throws IOException {
+        final Template template = context.getTemplateEngine().getTemplate( UI_BINDER_TEMPLATE );
+        File directory = new File( context.resolve( resourcesPath ), SourceLocator.toFilePath( presenterViewsPackage ) );
+        for ( final String name : getNames() ) {
+            context.submit( directory, new GenerationPipeline.Unit() {
+                @Override
+                public Map<String, byte[]> render() {
+                    GeneratorMetrics.Timer timer = context.getMetrics().start("generateUiBinderTemplate");
+                    try {
+                        return Collections.singletonMap( generateViewName(name) + ".gwt.xml",
+                                template.render( getTemplateValues(name) ).getBytes( TEMPLATE_CHARSET ) );
+                    } finally {
+                        timer.stop();
+                    }
+                }
+            } );
+        }
+    }
+
+    protected Map<String, String> getTemplateValues( String name ) {
+        Map<String, String> values = new HashMap<String, String>();
+        values.put( "package", presenterViewsPackage );
+        values.put( "viewName", generateViewName(name) );
+        values.put( "viewClass", generateViewPath(name) );
+        values.put( "binderName", BINDER_INTERFACE_NAME );
+        values.put( "presenterName", name );
+        values.put( "presenterClass", generateClassName(name) );
+        return values;
+    }
+
+    @Override
+    public void register( GenerationContext context, Map<String, JavaClass> classes ) throws IOException {
+        JavaClass injectorClazz = classes.get( injectorClassName );
+        JavaClass nameTokensClazz = classes.get( nameTokensClass );
+
+        registerModuleBindings( context, classes );
+
+        if ( nameTokensClazz != null ) {
+            SourcePatch patch = context.getSourcePatch( nameTokensClazz );
+            for ( String name : getNames() ) {
+                updateNameTokens(nameTokensClazz, patch, name);
+            }
+        } else {
+            getLog().warn("Failed to found name tokens class: " + nameTokensClass );
+        }
+
+        if ( injectorClazz != null ) {
+            SourcePatch patch = context.getSourcePatch( injectorClazz );
+            for ( String name : getNames() ) {
+                updateInjectorReferences(injectorClazz, patch, name);
+            }
+        } else {
+            getLog().warn("Failed to found injector class by the given name: " + injectorClassName );
+        }
+
+        if ( proxyStrategy == ProxyStrategy.CODE_SPLIT_BUNDLE ) {
+            registerBundle( context, classes );
+        }
+    }
+
+    /**
+     * (Re)generates the provider bundle with the presenters it already provides followed by
+     * the new ones, so that the ids the existing proxies refer to stay the same. The bundle
+     * is written where it has been found, the output directory otherwise.
+     */
+    protected void registerBundle( GenerationContext context, Map<String, JavaClass> classes ) throws IOException {
+        final String bundleClassName = getBundleClassName();
+        File directory = context.getOutputDirectory();
+        JavaClass bundleClazz = classes.get( bundleClassName );
+        if ( bundleClazz != null ) {
+            directory = getSourceRoot( bundleClazz );
+        } else {
+            bundleClazz = parseGeneratedClass( context, bundleClassName );
+        }
+
+        final List<String> presenters = getBundledPresenters( bundleClazz );
+        boolean changed = false;
+        for ( String name : getNames() ) {
+            String presenterClassName = presentersPackage + "." + generateClassName(name);
+            if ( !presenters.contains( presenterClassName ) ) {
+                presenters.add( presenterClassName );
+                changed = true;
+            }
+        }
+
+        if ( !changed ) {
+            getLog().debug("Presenters already bundled in " + bundleClassName );
+            return;
+        }
+
+        context.submit( directory, new GenerationContext.CodeModelBuilder() {
+            @Override
+            public JCodeModel build() throws JClassAlreadyExistsException {
+                return buildBundleCodeModel( bundleClassName, presenters );
+            }
+        } );
+    }
+
+    /**
+     * @return presenters provided by the bundle, in the order of their ids
+     */
+    protected List<String> getBundledPresenters( JavaClass bundleClazz ) {
+        List<String> presenters = new ArrayList<String>();
+        if ( bundleClazz == null ) {
+            return presenters;
+        }
+
+        for ( JavaMethod method : bundleClazz.getMethods() ) {
+            if ( !method.isConstructor() ) {
+                continue;
+            }
+
+            for ( JavaParameter parameter : method.getParameters() ) {
+                Type[] arguments = parameter.getType().getActualTypeArguments();
+                if ( arguments == null || arguments.length != 1 ) {
+                    continue;
+                }
+
+                // simple names are left unresolved when declared in the package of the bundle
+                String presenterClassName = arguments[0].getValue();
+                if ( presenterClassName.indexOf('.') == -1 && !bundleClazz.getPackageName().isEmpty() ) {
+                    presenterClassName = bundleClazz.getPackageName() + "." + presenterClassName;
+                }
+
+                presenters.add( presenterClassName );
+            }
+        }
+
+        return presenters;
+    }
+
+    public JCodeModel buildBundleCodeModel( String bundleClassName, List<String> presenters )
+            throws JClassAlreadyExistsException {
+        JCodeModel model = new JCodeModel();
+        JDefinedClass bundleClazz = model._class( bundleClassName );
+        bundleClazz._extends( model.ref(PROVIDER_BUNDLE_CLASS_NAME) );
+
+        List<JFieldVar> idFields = new ArrayList<JFieldVar>();
+        for ( int i = 0; i < presenters.size(); i++ ) {
+            idFields.add( bundleClazz.field( JMod.PUBLIC | JMod.STATIC | JMod.FINAL, model.INT,
+                    getBundleId( presenters.get(i) ), JExpr.lit(i) ) );
+        }
+        JFieldVar sizeField = bundleClazz.field( JMod.PUBLIC | JMod.STATIC | JMod.FINAL, model.INT,
+                BUNDLE_SIZE_FIELD_NAME, JExpr.lit( presenters.size() ) );
+
+        JMethod constructorMethod = bundleClazz.constructor( JMod.PUBLIC );
+        constructorMethod.annotate( model.ref(INJECT_ANNOTATION_CLASS_NAME) );
+        JBlock block = constructorMethod.body();
+        block.invoke("super").arg( sizeField );
+        for ( int i = 0; i < presenters.size(); i++ ) {
+            String presenterClassName = presenters.get(i);
+            String simpleName = presenterClassName.substring( presenterClassName.lastIndexOf('.') + 1 );
+            JVar param = constructorMethod.param( JMod.FINAL, model.ref(PROVIDER_CLASS_NAME).narrow(
+                    model.ref(presenterClassName) ), Character.toLowerCase( simpleName.charAt(0) )
+                    + simpleName.substring(1) + "Provider" );
+            block.assign( JExpr.ref("providers").component( idFields.get(i) ), param );
+        }
+
+        return model;
+    }
+
+    /**
+     * Binds the generated presenters in the Gin module, or in the shard module of their
+     * package when sharding.
+     */
+    protected void registerModuleBindings( GenerationContext context, Map<String, JavaClass> classes )
+            throws IOException {
+        JavaClass moduleClazz = classes.get( moduleClassName );
+        if ( moduleClazz == null ) {
+            getLog().warn("Failed to found module class: " + moduleClassName );
+            return;
+        }
+
+        BindingRegistry registry = context.getBindingRegistry( moduleClazz, CONFIGURE_METHOD_NAME );
+        SourcePatch patch = context.getSourcePatch( moduleClazz );
+        if ( !shardModules ) {
+            for ( String name : getNames() ) {
+                updateModuleReferences( registry, moduleClazz, patch, name );
+            }
+
+            return;
+        }
+
+        String shardClassName = getShardModuleClassName();
+        JavaClass shardClazz = classes.get( shardClassName );
+        if ( shardClazz == null ) {
+            shardClazz = parseGeneratedClass( context, shardClassName );
+        }
+
+        BindingRegistry shardRegistry;
+        SourcePatch shardPatch = null;
+        if ( shardClazz != null ) {
+            shardRegistry = context.getBindingRegistry( shardClazz, CONFIGURE_METHOD_NAME );
+            shardPatch = context.getSourcePatch( shardClazz );
+        } else {
+            shardRegistry = context.getGeneratedModule( shardClassName, GIN_MODULE_CLASS_NAME );
+        }
+
+        for ( String name : getNames() ) {
+            if ( registry.contains( getModuleBinding(name) ) ) {
+                getLog().debug("Presenter already registered in the client module!");
+            } else if ( shardClazz != null ) {
+                updateModuleReferences( shardRegistry, shardClazz, shardPatch, name );
+            } else {
+                shardRegistry.add( getModuleBinding(name) );
+            }
+        }
+
+        addStatement( registry, moduleClazz, patch, CONFIGURE_METHOD_NAME,
+                "install(new " + shardClassName + "());" );
+    }
+
+    /**
+     * Shard modules are looked up in the output directory as well, in case it is not one of
+     * the compile source roots: a module generated by a previous run is patched, not replaced.
+     */
+    private JavaClass parseGeneratedClass( GenerationContext context, String className ) throws IOException {
+        File file = new File( context.getOutputDirectory(), SourceLocator.toFilePath( className ) + ".java" );
+        if ( !file.exists() ) {
+            return null;
+        }
+
+        JavaDocBuilder builder = new JavaDocBuilder();
+        builder.setEncoding( context.getSourceCharset().name() );
+        builder.addSource( file );
+        return builder.getClassByName( className );
+    }
+
+    public boolean updateNameTokens( JavaClass nameTokensClazz, SourcePatch patch, String name ) {
+        boolean changed = false;
+
+        String tokenFieldName = name.toUpperCase();
+        String tokenValue = "\"" + name.toLowerCase() + "\"";
+
+        if ( nameTokensClazz.getFieldByName(tokenFieldName) != null ) {
+            getLog().debug("Name token field already exists. Skipping field creation...");
+        } else {
+            JavaField field = new JavaField();
+            field.setName( tokenFieldName );
+            field.setType(new Type("String"));
+            field.setModifiers(new String[]{"public", "static", "final"});
+            field.setInitializationExpression( tokenValue );
+            nameTokensClazz.addField(field);
+
+            patch.insertField( GenerationContext.getTypeOutline(patch, nameTokensClazz),
+                    "public static final String " + tokenFieldName + " = " + tokenValue + ";" );
+            changed = true;
+        }
+
+        String tokenAccessorName = "get" + name;
+        if ( nameTokensClazz.getMethodBySignature(tokenAccessorName, new Type[] {} ) != null ) {
+            getLog().debug("Name token field accessor already exists. Skipping field accessor creation...");
+        } else {
+            JavaMethod method = new JavaMethod();
+            method.setName( tokenAccessorName );
+            method.setReturns(new Type("String"));
+            method.setModifiers(new String[]{"static", "public", "final"});
+            method.setSourceCode(" return " + tokenFieldName + ";" );
+            nameTokensClazz.addMethod( method );
+
+            patch.insertMember( GenerationContext.getTypeOutline(patch, nameTokensClazz),
+                    "public static final String " + tokenAccessorName + "() {\n"
+                    + "    return " + tokenFieldName + ";\n"
+                    + "}" );
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    public boolean updateModuleReferences( BindingRegistry registry, JavaClass moduleClazz, SourcePatch patch,
+                                           String name ) {
+        if ( !addStatement( registry, moduleClazz, patch, CONFIGURE_METHOD_NAME, getModuleBinding(name) ) ) {
+            getLog().debug("Presenter already registered in the client module!");
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return statement binding the named presenter in a Gin module
+     */
+    protected String getModuleBinding( String name ) {
+        StringBuilder codeBlock = new StringBuilder();
+        codeBlock.append( "bindPresenter(" )
+            .append( presentersPackage ).append( "." ).append( generateClassName(name) ).append( ".class")
+            .append(", ")
+            .append( generateViewInterfaceName(name) ).append(".class")
+            .append(", ")
+            .append( generateViewPath(name) ).append( ".class" )
+            .append(", ")
+            .append( generateProxyName(name) ).append(".class")
+        .append(");");
+
+        return codeBlock.toString();
+    }
+
+    public boolean updateInjectorReferences( JavaClass injectorClazz, SourcePatch patch, String name ) {
+        String providedClassName = proxyStrategy == ProxyStrategy.CODE_SPLIT_BUNDLE
+                ? getBundleClassName() : presentersPackage + "." + generateClassName(name);
+        String providerClassName = proxyStrategy == ProxyStrategy.STANDARD
+                ? PROVIDER_CLASS_NAME : ASYNC_PROVIDER_CLASS_NAME;
+
+        String providerMethodName = "get" + providedClassName.substring( providedClassName.lastIndexOf('.') + 1 );
+        JavaMethod existing = injectorClazz.getMethodBySignature( providerMethodName, new Type[] {} );
+        if ( existing != null ) {
+            String returnType = existing.getGenericReturnType().getValue();
+            if ( returnType.indexOf('<') != -1 ) {
+                returnType = returnType.substring( 0, returnType.indexOf('<') );
+            }
+
+            if ( !providerClassName.equals( returnType ) ) {
+                getLog().warn("Injector method " + providerMethodName + "() is expected to return a "
+                        + providerClassName + " with the " + proxyStrategy + " proxy strategy" );
+            } else {
+                getLog().debug("Provider method for a " + name + " presenter already exists in " +
+                        "the injector class. Skipping update...");
+            }
+            return false;
+        }
+
+        String providerType = providerClassName + "<" + providedClassName + ">";
+
+        JavaMethod method = new JavaMethod(providerMethodName);
+        method.setReturns( new Type( providerType ) );
+        injectorClazz.addMethod(method);
+
+        patch.insertMember( GenerationContext.getTypeOutline(patch, injectorClazz),
+                providerType + " " + providerMethodName + "();" );
+        return true;
+    }
+
+    public JCodeModel buildCodeModel( List<String> names ) throws JClassAlreadyExistsException {
+        JCodeModel model = new JCodeModel();
+        for ( String name : names ) {
+            definePresenter(model, name);
+            if ( generateView ) {
+                defineView(model, name);
+            }
+        }
+
+        return model;
+    }
+
+    protected void definePresenter( JCodeModel model, String name ) throws JClassAlreadyExistsException {
+        JDefinedClass presenterClazz = model._package(presentersPackage)
+                ._class( generateClassName(name) );
+        presenterClazz._extends( model.ref( PRESENTER_CLASS_NAME).narrow(
+                model.ref(generateViewInterfaceName(name)), model.ref(generateProxyName(name)) ) );
+
+        defineViewInterface(model, presenterClazz);
+        defineProxyInterface(model, presenterClazz, name);
+
+        addConstructor(model, presenterClazz);
+        addOnRevealMethod(model, presenterClazz);
+        addOnBindMethod(model, presenterClazz);
+        addUseManualRevealMethod(model, presenterClazz);
+    }
+
+    protected void defineView( JCodeModel model, String name ) throws JClassAlreadyExistsException {
+        JDefinedClass viewClazz = model._class(JMod.PUBLIC, generateViewPath(name), ClassType.CLASS );
+        viewClazz._extends( model.ref(VIEW_IMPL_CLASS_NAME) );
+        viewClazz._implements( model.ref(generateViewInterfaceName(name)) );
+
+        defineUiBinder(model, viewClazz);
+        addViewConstructor( model, viewClazz );
+    }
+
+    protected JDefinedClass defineUiBinder( JCodeModel model, JDefinedClass viewClazz )
+            throws JClassAlreadyExistsException {
+        JDefinedClass uiBinderClazz = viewClazz._interface(JMod.PUBLIC, BINDER_INTERFACE_NAME);
+
+        uiBinderClazz._implements(
+            model.ref(UI_BINDER_CLASS_NAME)
+                .narrow( model.ref(WIDGET_CLASS_NAME) )
+                .narrow( model.ref(viewClazz.name()) )
+        );
+
+        return uiBinderClazz;
+    }
+
+    protected void addViewConstructor( JCodeModel model, JDefinedClass viewClazz ) {
+        JFieldVar eventBusField = viewClazz.field(JMod.FINAL | JMod.PRIVATE, model.ref(EVENTBUS_CLASS_NAME), "eventBus");
+        JFieldVar widgetField = viewClazz.field( JMod.FINAL | JMod.PRIVATE, model.ref(WIDGET_CLASS_NAME), "widget");
+
+        JMethod constructorMethod = viewClazz.constructor(JMod.PUBLIC);
+        constructorMethod.annotate( model.ref(INJECT_ANNOTATION_CLASS_NAME) );
+
+        JVar[] params = new JVar[2];
+        params[0] = constructorMethod.param( JMod.FINAL, model.ref(EVENTBUS_CLASS_NAME), "eventBus" );
+        params[1] = constructorMethod.param( JMod.FINAL, model.ref( viewClazz.fullName() + "." + BINDER_INTERFACE_NAME ), "binder" );
+
+        JBlock block = constructorMethod.body();
+        block.assign( JExpr.refthis( eventBusField.name() ), params[0]);
+        block.assign( JExpr.ref( widgetField.name() ), params[1].invoke("createAndBindUi").arg( JExpr._this() ) );
+    }
+
+    protected JDefinedClass defineViewInterface( JCodeModel model, JDefinedClass presenterClazz )
+        throws JClassAlreadyExistsException {
+        JDefinedClass viewInterface = presenterClazz._class(JMod.PUBLIC, "MyView", ClassType.INTERFACE );
+        viewInterface._implements( model.ref(VIEW_CLASS_NAME) );
+        return viewInterface;
+    }
+
+    protected JDefinedClass defineProxyInterface( JCodeModel model, JDefinedClass presenterClazz, String name )
+        throws JClassAlreadyExistsException {
+        JDefinedClass proxyInterface = presenterClazz._class(JMod.PUBLIC, "MyProxy", ClassType.INTERFACE );
+        proxyInterface._implements( model.ref(PROXY_CLASS_NAME).narrow( model.ref( presenterClazz.name() ) ) );
+        proxyInterface.annotate( model.ref(NAME_TOKEN_CLASS_NAME) )
+            .param("value", nameTokensClass + "." + name.toUpperCase() );
+        switch ( proxyStrategy ) {
+            case CODE_SPLIT:
+                proxyInterface.annotate( model.ref(PROXY_CODE_SPLIT_CLASS_NAME) );
+                break;
+            case CODE_SPLIT_BUNDLE:
+                JClass bundleClazz = model.ref( getBundleClassName() );
+                proxyInterface.annotate( model.ref(PROXY_CODE_SPLIT_BUNDLE_CLASS_NAME) )
+                    .param( "bundleClass", bundleClazz )
+                    .param( "id", bundleClazz.staticRef( getBundleId( presentersPackage + "." + generateClassName(name) ) ) );
+                break;
+            default:
+                proxyInterface.annotate( model.ref(PROXY_STANDARD_CLASS_NAME) );
+        }
+        return proxyInterface;
+    }
+
+    protected JMethod addUseManualRevealMethod( JCodeModel model, JDefinedClass presenterClazz ) {
+        JMethod useManualRevealMethod = presenterClazz.method(JMod.PUBLIC, model.BOOLEAN, "useManualReveal");
+        useManualRevealMethod.annotate( Override.class );
+        useManualRevealMethod.body()._return( JExpr.lit(false) );
+        return useManualRevealMethod;
+    }
+
+    protected JMethod addConstructor( JCodeModel model, JDefinedClass presenterClazz ) {
+        JMethod constructorMethod = presenterClazz.constructor(JMod.PUBLIC);
+        constructorMethod.annotate( model.ref(INJECT_ANNOTATION_CLASS_NAME) );
+        JVar[] constructorVars = new JVar[3];
+        constructorVars[0] = constructorMethod.param( JMod.FINAL, model.ref(EVENTBUS_CLASS_NAME), "eventBus" );
+        constructorVars[1] = constructorMethod.param( JMod.FINAL, model.ref("MyView"), "view" );
+        constructorVars[2] = constructorMethod.param( JMod.FINAL, model.ref("MyProxy"), "proxy" );
+
+        JInvocation superInvoke = JExpr.invoke("super   ");
+        superInvoke.arg( constructorVars[0] );
+        superInvoke.arg( constructorVars[1] );
+        superInvoke.arg( constructorVars[2] );
+
+        constructorMethod.body().add( superInvoke );
+
+        return constructorMethod;
+    }
+
+    protected JMethod addOnBindMethod( JCodeModel model, JDefinedClass presenterClazz ) {
+        JMethod method = presenterClazz.method(JMod.PUBLIC, model.VOID, "onBind");
+        method.annotate(Override.class);
+        method.body().invoke( JExpr._super(), presenterClazz.getMethod("onBind", new JType[] {} ) );
+        return method;
+    }
+
+    protected JMethod addOnRevealMethod( JCodeModel model, JDefinedClass presenterClazz ) {
+        JMethod method = presenterClazz.method(JMod.PUBLIC, model.VOID, "onReveal");
+        method.annotate(Override.class);
+        return method;
+    }
+
+    protected String generateViewInterfaceName( String name ) {
+        return presentersPackage + "." + generateClassName(name) + ".MyView";
+    }
+
+    protected String generateProxyName( String name ) {
+        return presentersPackage + "." + generateClassName(name) + ".MyProxy";
+    }
+
+    protected String generateViewName( String name ) {
+        return name + "View";
+    }
+
+    protected String generateViewPath( String name ) {
+        return presenterViewsPackage + "." + generateViewName(name);
+    }
+
+    protected String generateClassName( String name ) {
+        return name + "Presenter";
+    }
+
+    /**
+     * @return module the presenters are bound in when sharding, named after the last segment
+     *         of their package
+     */
+    public String getShardModuleClassName() {
+        return presentersPackage + "." + capitalize( getPackageSegment() ) + SHARD_MODULE_SUFFIX;
+    }
+
+    /**
+     * @return provider bundle of the presenters: <code>bundleName</code> when qualified, a class
+     *         of the presenters package named after <code>bundleName</code> or, when not set,
+     *         after the last segment of the package
+     */
+    public String getBundleClassName() {
+        String name = bundleName == null || bundleName.trim().isEmpty() ? getPackageSegment() : bundleName.trim();
+        if ( name.indexOf('.') != -1 ) {
+            return name;
+        }
+
+        name = capitalize( name );
+        return presentersPackage + "." + ( name.endsWith(BUNDLE_SUFFIX) ? name : name + BUNDLE_SUFFIX );
+    }
+
+    /**
+     * @return name of the bundle constant holding the id of the presenter
+     */
+    protected String getBundleId( String presenterClassName ) {
+        String name = presenterClassName.substring( presenterClassName.lastIndexOf('.') + 1 );
+        if ( name.endsWith("Presenter") && name.length() > "Presenter".length() ) {
+            name = name.substring( 0, name.length() - "Presenter".length() );
+        }
+
+        return BUNDLE_ID_PREFIX + name;
+    }
+
+    private String getPackageSegment() {
+        return presentersPackage.substring( presentersPackage.lastIndexOf('.') + 1 );
+    }
+
+    private static String capitalize( String value ) {
+        return Character.toUpperCase( value.charAt(0) ) + value.substring(1);
+    }
+
+    private static File getSourceRoot( JavaClass clazz ) {
+        File root = GenerationContext.getSourceFile( clazz ).getParentFile();
+        if ( !clazz.getPackageName().isEmpty() ) {
+            for ( int i = clazz.getPackageName().split("\\.").length; i > 0; i-- ) {
+                root = root.getParentFile();
+            }
+        }
+
+        return root;
+    }
+
+    public String getResourcesPath() {
+        return resourcesPath;
+    }
+
+    public void setResourcesPath(String resourcesPath) {
+        this.resourcesPath = resourcesPath;
+    }
+
+    public String getPresentersPackage() {
+        return presentersPackage;
+    }
+
+    public void setPresentersPackage(String presentersPackage) {
+        this.presentersPackage = presentersPackage;
+    }
+
+    public String getPresenterViewsPackage() {
+        return presenterViewsPackage;
+    }
+
+    public void setPresenterViewsPackage(String presenterViewsPackage) {
+        this.presenterViewsPackage = presenterViewsPackage;
+    }
+
+    public String getNameTokensClass() {
+        return nameTokensClass;
+    }
+
+    public void setNameTokensClass(String nameTokensClass) {
+        this.nameTokensClass = nameTokensClass;
+    }
+
+    public String getInjectorClassName() {
+        return injectorClassName;
+    }
+
+    public void setInjectorClassName(String injectorClassName) {
+        this.injectorClassName = injectorClassName;
+    }
+
+    public String getModuleClassName() {
+        return moduleClassName;
+    }
+
+    public void setModuleClassName(String moduleClassName) {
+        this.moduleClassName = moduleClassName;
+    }
+
+    public boolean isGenerateView() {
+        return generateView;
+    }
+
+    public void setGenerateView(boolean generateView) {
+        this.generateView = generateView;
+    }
+
+    public boolean isShardModules() {
+        return shardModules;
+    }
+
+    public void setShardModules(boolean shardModules) {
+        this.shardModules = shardModules;
+    }
+
+    public ProxyStrategy getProxyStrategy() {
+        return proxyStrategy;
+    }
+
+    public void setProxyStrategy(ProxyStrategy proxyStrategy) {
+        this.proxyStrategy = proxyStrategy == null ? ProxyStrategy.STANDARD : proxyStrategy;
+    }
+
+    public String getBundleName() {
+        return bundleName;
+    }
+
+    public void setBundleName(String bundleName) {
+        this.bundleName = bundleName;
+    }
+}
@@ -0,0 +1,97 @@
+package com.redshape.maven.plugins.gwt.generators;
+
+import com.redshape.maven.plugins.gwt.sources.SourcePatch;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JInvocation;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JVar;
+import com.thoughtworks.qdox.model.JavaClass;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates presenter widgets: presenters without a proxy nor a place, meant to be set into
+ * the slots of other presenters. They are only bound in the Gin module, the injector and the
+ * name tokens class are left alone.
+ */
+public class PresenterWidgetGenerator extends PresenterGenerator {
+
+    private static final String PRESENTER_WIDGET_CLASS_NAME = "com.gwtplatform.mvp.client.PresenterWidget";
+
+    private static final List<String> REFERENCED_TYPES = Collections.unmodifiableList( Arrays.asList(
+            PRESENTER_WIDGET_CLASS_NAME, VIEW_CLASS_NAME, UI_BINDER_CLASS_NAME, WIDGET_CLASS_NAME,
+            VIEW_IMPL_CLASS_NAME, INJECT_ANNOTATION_CLASS_NAME, EVENTBUS_CLASS_NAME ) );
+
+    @Override
+    public String getName() {
+        return "presenterWidgets";
+    }
+
+    @Override
+    public Collection<String> getReferencedTypes() {
+        return withShardModuleType( REFERENCED_TYPES );
+    }
+
+    @Override
+    public Collection<String> getRegistrationClassNames() {
+        return withShardModuleClass( Collections.singletonList( getModuleClassName() ) );
+    }
+
+    @Override
+    public void register( GenerationContext context, Map<String, JavaClass> classes ) throws IOException {
+        registerModuleBindings( context, classes );
+    }
+
+    @Override
+    public boolean updateModuleReferences( BindingRegistry registry, JavaClass moduleClazz, SourcePatch patch,
+                                           String name ) {
+        if ( !addStatement( registry, moduleClazz, patch, CONFIGURE_METHOD_NAME, getModuleBinding(name) ) ) {
+            getLog().debug("Presenter widget already registered in the client module!");
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    protected String getModuleBinding( String name ) {
+        return "bindPresenterWidget(" + getPresentersPackage() + "." + generateClassName(name) + ".class, "
+                + generateViewInterfaceName(name) + ".class, " + generateViewPath(name) + ".class);";
+    }
+
+    @Override
+    protected void definePresenter( JCodeModel model, String name ) throws JClassAlreadyExistsException {
+        JDefinedClass presenterClazz = model._package( getPresentersPackage() )
+                ._class( generateClassName(name) );
+        presenterClazz._extends( model.ref(PRESENTER_WIDGET_CLASS_NAME).narrow(
+                model.ref( generateViewInterfaceName(name) ) ) );
+
+        defineViewInterface( model, presenterClazz );
+        addConstructor( model, presenterClazz );
+        addOnBindMethod( model, presenterClazz );
+    }
+
+    @Override
+    protected JMethod addConstructor( JCodeModel model, JDefinedClass presenterClazz ) {
+        JMethod constructorMethod = presenterClazz.constructor(JMod.PUBLIC);
+        constructorMethod.annotate( model.ref(INJECT_ANNOTATION_CLASS_NAME) );
+        JVar eventBus = constructorMethod.param( JMod.FINAL, model.ref(EVENTBUS_CLASS_NAME), "eventBus" );
+        JVar view = constructorMethod.param( JMod.FINAL, model.ref("MyView"), "view" );
+
+        JInvocation superInvoke = JExpr.invoke("super");
+        superInvoke.arg( eventBus );
+        superInvoke.arg( view );
+        constructorMethod.body().add( superInvoke );
+
+        return constructorMethod;
+    }
+}
@@ -0,0 +1,58 @@
+package com.redshape.maven.plugins.gwt.generators;
+
+import com.thoughtworks.qdox.model.JavaClass;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generator plugged into the engine of {@link com.redshape.maven.plugins.gwt.AbstractGeneratorMojo}.
+ *
+ * The engine runs all the generators of an execution together: the referenced types of all
+ * of them are checked against the classpath at once, the classes they register into are
+ * located with a single source scan, and everything they emit is published by a single
+ * write phase.
+ */
+public interface SourceGenerator {
+
+    /**
+     * @return short name of the generator, as used in logs and reports
+     */
+    String getName();
+
+    /**
+     * @return names of the units to generate (presenters, events etc.)
+     */
+    List<String> getNames();
+
+    /**
+     * @return fully qualified names of the library types the generated code refers to
+     */
+    Collection<String> getReferencedTypes();
+
+    /**
+     * @return fully qualified names of the project classes the generated units are
+     *         registered into (Gin modules, injectors etc.), located in the project sources
+     */
+    Collection<String> getRegistrationClassNames();
+
+    /**
+     * @return settings the generated files depend on, by name; a run with the same names,
+     *         settings and input files as the previous one has nothing to do
+     */
+    Map<String, String> getSettings();
+
+    /**
+     * Submits the generated files to the context.
+     */
+    void generate( GenerationContext context ) throws IOException;
+
+    /**
+     * Patches the registration classes, through the patches of the context.
+     *
+     * @param classes located registration classes, keyed by name; missing ones are absent
+     */
+    void register( GenerationContext context, Map<String, JavaClass> classes ) throws IOException;
+}
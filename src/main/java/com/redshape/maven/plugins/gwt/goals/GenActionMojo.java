@@ -0,0 +1,95 @@
+package com.redshape.maven.plugins.gwt.goals;
+
+import com.redshape.maven.plugins.gwt.AbstractGeneratorMojo;
+import com.redshape.maven.plugins.gwt.generators.ActionGenerator;
+import com.redshape.maven.plugins.gwt.generators.SourceGenerator;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Generates GWTP dispatch actions and results, and optionally their server side handlers
+ * bound in the handler module.
+ */
+@Mojo( name = "gen-action", requiresDependencyResolution = ResolutionScope.COMPILE, threadSafe = true )
+public class GenActionMojo extends AbstractGeneratorMojo {
+
+    /**
+     * Names of the actions to generate, <code>GetUser</code> giving <code>GetUserAction</code>,
+     * <code>GetUserResult</code> and <code>GetUserHandler</code>
+     */
+    @Parameter( property = "gwtp.actions" )
+    private List<String> actions;
+
+    @Parameter( required = true )
+    private String actionsPackage;
+
+    /**
+     * Package of the action handlers, none generated when not set
+     */
+    @Parameter
+    private String handlersPackage;
+
+    /**
+     * Handler module the handlers are bound in, from its <code>configureHandlers()</code> method
+     */
+    @Parameter
+    private String handlerModuleClassName;
+
+    @Override
+    protected List<SourceGenerator> createGenerators() throws MojoExecutionException {
+        ActionGenerator generator = new ActionGenerator();
+        generator.setLog( getLog() );
+        generator.setNames( actions );
+        generator.setActionsPackage( actionsPackage );
+        generator.setHandlersPackage( handlersPackage );
+        generator.setHandlerModuleClassName( handlerModuleClassName );
+
+        if ( generator.getNames().isEmpty() ) {
+            throw new MojoExecutionException("actions must be configured");
+        }
+
+        return Collections.<SourceGenerator>singletonList( generator );
+    }
+
+    @Override
+    protected String getGoal() {
+        return "gen-action";
+    }
+
+    public List<String> getActions() {
+        return actions == null ? Collections.<String>emptyList() : actions;
+    }
+
+    public void setActions(List<String> actions) {
+        this.actions = actions;
+    }
+
+    public String getActionsPackage() {
+        return actionsPackage;
+    }
+
+    public void setActionsPackage(String actionsPackage) {
+        this.actionsPackage = actionsPackage;
+    }
+
+    public String getHandlersPackage() {
+        return handlersPackage;
+    }
+
+    public void setHandlersPackage(String handlersPackage) {
+        this.handlersPackage = handlersPackage;
+    }
+
+    public String getHandlerModuleClassName() {
+        return handlerModuleClassName;
+    }
+
+    public void setHandlerModuleClassName(String handlerModuleClassName) {
+        this.handlerModuleClassName = handlerModuleClassName;
+    }
+}
@@ -0,0 +1,320 @@
+package com.redshape.maven.plugins.gwt.goals;
+
+import com.redshape.maven.plugins.gwt.output.GenerationManifest;
+import com.redshape.maven.plugins.gwt.sources.SourceIndex;
+import com.redshape.maven.plugins.gwt.sources.SourceModelCache;
+import com.redshape.maven.plugins.gwt.sources.SourceWatcher;
+import com.thoughtworks.qdox.model.JavaClass;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * Keeps the generator running between requests, with the source index, generation manifest
+ * and the parsed module, injector and name tokens classes kept warm in memory. The source
+ * roots are watched, and the parsed classes re-parsed in the background when their files
+ * change.
+ *
+ * Requests are read line by line from a loopback socket (or from the standard input):
+ * <ul>
+ *     <li><code>generate Name [Name...]</code> - generates the given presenters</li>
+ *     <li><code>ping</code></li>
+ *     <li><code>shutdown</code> - stops the daemon</li>
+ * </ul>
+ * Each request is answered with a single line starting with <code>OK</code> or <code>ERROR</code>.
+ * The socket port is written to <code>&lt;workDirectory&gt;/daemon.port</code>. When serving the
+ * standard input, the standard output carries nothing but the responses: the log output,
+ * which Maven writes there too, goes to the standard error meanwhile.
+ */
+@Mojo( name = "gen-daemon", threadSafe = true )
+public class GenDaemonMojo extends GenPresenterMojo implements SourceWatcher.Listener {
+
+    private static final Charset PROTOCOL_CHARSET = Charset.forName("UTF-8");
+
+    /**
+     * Loopback port to listen on, 0 to pick a free one
+     */
+    @Parameter( property = "gwtp.daemon.port", defaultValue = "0" )
+    private int daemonPort;
+
+    /**
+     * Read requests from the standard input instead of a socket
+     */
+    @Parameter( property = "gwtp.daemon.stdin", defaultValue = "false" )
+    private boolean daemonStdin;
+
+    private final Object lock = new Object();
+    private SourceIndex index;
+    private GenerationManifest manifest;
+    private SourceModelCache models;
+    private Map<String, JavaClass> classes;
+    private Map<File, Long> classStamps;
+    private volatile boolean running;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if ( !daemonStdin ) {
+            run( null );
+            return;
+        }
+
+        // the responses get the standard output for themselves
+        PrintStream responses = System.out;
+        System.setOut( System.err );
+        try {
+            run( responses );
+        } finally {
+            System.setOut( responses );
+        }
+    }
+
+    /**
+     * @param responses stream to answer the requests of the standard input on, or
+     *                  <code>null</code> to listen on a socket
+     */
+    protected void run( PrintStream responses ) throws MojoExecutionException, MojoFailureException {
+        index = super.loadSourceIndex();
+        manifest = super.loadManifest();
+        models = super.loadSourceModels();
+
+        SourceWatcher watcher;
+        try {
+            watcher = new SourceWatcher( this, getLog() );
+            watcher.start( getSourceRoots() );
+        } catch ( IOException e ) {
+            throw new MojoFailureException("Failed to watch source roots: " + e.getMessage(), e );
+        }
+
+        running = true;
+        try {
+            synchronized ( lock ) {
+                locateReferencedClasses( index );
+            }
+
+            if ( responses != null ) {
+                getLog().info("Generator daemon is reading requests from the standard input");
+                serve( System.in, responses );
+            } else {
+                serveSocket();
+            }
+        } catch ( IOException e ) {
+            throw new MojoFailureException( e.getMessage(), e );
+        } finally {
+            watcher.close();
+        }
+    }
+
+    protected void serveSocket() throws IOException {
+        ServerSocket server = new ServerSocket( daemonPort, 16, InetAddress.getLoopbackAddress() );
+        try {
+            writePortFile( server.getLocalPort() );
+            getLog().info("Generator daemon is listening on " + server.getInetAddress().getHostAddress()
+                    + ":" + server.getLocalPort() );
+
+            while ( running ) {
+                Socket socket = server.accept();
+                try {
+                    serve( socket.getInputStream(), socket.getOutputStream() );
+                } catch ( IOException e ) {
+                    getLog().debug("Client connection failed", e );
+                } finally {
+                    socket.close();
+                }
+            }
+        } finally {
+            server.close();
+            File portFile = getPortFile();
+            if ( portFile != null ) {
+                portFile.delete();
+            }
+        }
+    }
+
+    protected void serve( InputStream input, OutputStream output ) throws IOException {
+        BufferedReader reader = new BufferedReader( new InputStreamReader( input, PROTOCOL_CHARSET ) );
+        Writer writer = new OutputStreamWriter( output, PROTOCOL_CHARSET );
+
+        String line;
+        while ( running && null != ( line = reader.readLine() ) ) {
+            line = line.trim();
+            if ( line.isEmpty() ) {
+                continue;
+            }
+
+            writer.write( handle( line ) );
+            writer.write( "\n" );
+            writer.flush();
+        }
+    }
+
+    protected String handle( String request ) {
+        String[] parts = request.split("[\\s,]+");
+        String command = parts[0];
+        if ( "ping".equals(command) ) {
+            return "OK pong";
+        } else if ( "shutdown".equals(command) ) {
+            running = false;
+            return "OK shutting down";
+        } else if ( !"generate".equals(command) ) {
+            return "ERROR unknown command: " + command;
+        }
+
+        List<String> names = new ArrayList<String>();
+        for ( int i = 1; i < parts.length; i++ ) {
+            if ( !isIdentifier( parts[i] ) ) {
+                return "ERROR invalid presenter name: " + parts[i];
+            } else if ( !names.contains( parts[i] ) ) {
+                names.add( parts[i] );
+            }
+        }
+
+        if ( names.isEmpty() ) {
+            return "ERROR no presenter names given";
+        }
+
+        long start = System.nanoTime();
+        synchronized ( lock ) {
+            try {
+                generatePresenters( names );
+            } catch ( Exception e ) {
+                // registering patched the parsed classes in memory, while their files were left as they were
+                classes = null;
+                classStamps = null;
+                getLog().error( e.getMessage(), e );
+                return "ERROR " + e.getMessage();
+            }
+        }
+
+        return "OK generated " + names.size() + " presenter(s) in "
+                + ( System.nanoTime() - start ) / 1000000 + " ms";
+    }
+
+    @Override
+    protected SourceIndex loadSourceIndex() {
+        return index;
+    }
+
+    @Override
+    protected GenerationManifest loadManifest() {
+        return manifest;
+    }
+
+    @Override
+    protected SourceModelCache loadSourceModels() {
+        return models;
+    }
+
+    /**
+     * Requests are always served: the daemon keeps its state warm instead.
+     */
+    @Override
+    protected File getFingerprintFile() {
+        return null;
+    }
+
+    /**
+     * Returns the classes parsed by the previous request while their files are unchanged.
+     */
+    @Override
+    protected Map<String, JavaClass> locateReferencedClasses( SourceIndex index ) {
+        if ( classes != null && isUnchanged( classStamps ) ) {
+            return classes;
+        }
+
+        classes = super.locateReferencedClasses( index );
+        classStamps = getSourceStamps( classes.values() );
+
+        return classes;
+    }
+
+    @Override
+    public void sourcesChanged( Set<File> files ) {
+        synchronized ( lock ) {
+            if ( classes == null || ( files != null && Collections.disjoint( files, classStamps.keySet() ) ) ) {
+                return;
+            }
+
+            classes = null;
+            if ( running ) {
+                getLog().debug("Sources changed, re-parsing referenced classes");
+                locateReferencedClasses( index );
+            }
+        }
+    }
+
+    protected List<File> getSourceRoots() {
+        List<File> sourceRoots = new ArrayList<File>();
+        for ( String sourceRoot : getCompileSourceRoots() ) {
+            sourceRoots.add( new File(sourceRoot).getAbsoluteFile() );
+        }
+
+        return sourceRoots;
+    }
+
+    protected File getPortFile() {
+        return getWorkDirectory() == null ? null : new File( getWorkDirectory(), "daemon.port" );
+    }
+
+    private void writePortFile( int port ) throws IOException {
+        File portFile = getPortFile();
+        if ( portFile == null ) {
+            return;
+        }
+
+        portFile.getParentFile().mkdirs();
+        OutputStream output = new FileOutputStream( portFile );
+        try {
+            output.write( String.valueOf(port).getBytes( PROTOCOL_CHARSET ) );
+        } finally {
+            output.close();
+        }
+    }
+
+    private static boolean isUnchanged( Map<File, Long> stamps ) {
+        for ( Map.Entry<File, Long> stamp : stamps.entrySet() ) {
+            if ( getStamp( stamp.getKey() ) != stamp.getValue() ) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isIdentifier( String name ) {
+        if ( !Character.isJavaIdentifierStart( name.charAt(0) ) ) {
+            return false;
+        }
+
+        for ( int i = 1; i < name.length(); i++ ) {
+            if ( !Character.isJavaIdentifierPart( name.charAt(i) ) ) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public int getDaemonPort() {
+        return daemonPort;
+    }
+
+    public void setDaemonPort(int daemonPort) {
+        this.daemonPort = daemonPort;
+    }
+
+    public boolean isDaemonStdin() {
+        return daemonStdin;
+    }
+
+    public void setDaemonStdin(boolean daemonStdin) {
+        this.daemonStdin = daemonStdin;
+    }
+}
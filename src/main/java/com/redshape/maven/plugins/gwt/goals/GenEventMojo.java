@@ -0,0 +1,64 @@
+package com.redshape.maven.plugins.gwt.goals;
+
+import com.redshape.maven.plugins.gwt.AbstractGeneratorMojo;
+import com.redshape.maven.plugins.gwt.generators.EventGenerator;
+import com.redshape.maven.plugins.gwt.generators.SourceGenerator;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Generates GWT events along with their handler interfaces.
+ */
+@Mojo( name = "gen-event", requiresDependencyResolution = ResolutionScope.COMPILE, threadSafe = true )
+public class GenEventMojo extends AbstractGeneratorMojo {
+
+    /**
+     * Names of the events to generate, <code>Saved</code> giving <code>SavedEvent</code>
+     * and <code>SavedEvent.SavedHandler</code>
+     */
+    @Parameter( property = "gwtp.events" )
+    private List<String> events;
+
+    @Parameter( required = true )
+    private String eventsPackage;
+
+    @Override
+    protected List<SourceGenerator> createGenerators() throws MojoExecutionException {
+        EventGenerator generator = new EventGenerator();
+        generator.setLog( getLog() );
+        generator.setNames( events );
+        generator.setEventsPackage( eventsPackage );
+
+        if ( generator.getNames().isEmpty() ) {
+            throw new MojoExecutionException("events must be configured");
+        }
+
+        return Collections.<SourceGenerator>singletonList( generator );
+    }
+
+    @Override
+    protected String getGoal() {
+        return "gen-event";
+    }
+
+    public List<String> getEvents() {
+        return events == null ? Collections.<String>emptyList() : events;
+    }
+
+    public void setEvents(List<String> events) {
+        this.events = events;
+    }
+
+    public String getEventsPackage() {
+        return eventsPackage;
+    }
+
+    public void setEventsPackage(String eventsPackage) {
+        this.eventsPackage = eventsPackage;
+    }
+}
@@ -0,0 +1,80 @@
+package com.redshape.maven.plugins.gwt.goals;
+
+import com.redshape.maven.plugins.gwt.AbstractGeneratorMojo;
+import com.redshape.maven.plugins.gwt.generators.PresenterWidgetGenerator;
+import com.redshape.maven.plugins.gwt.generators.SourceGenerator;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Generates presenter widgets with their view and UiBinder template, and binds them in the
+ * Gin module.
+ */
+@Mojo( name = "gen-presenter-widget", requiresDependencyResolution = ResolutionScope.COMPILE, threadSafe = true )
+public class GenPresenterWidgetMojo extends AbstractGeneratorMojo {
+
+    /**
+     * Names of the presenter widgets to generate
+     */
+    @Parameter( property = "gwtp.presenterWidgets" )
+    private List<String> presenterWidgets;
+
+    @Parameter(required = true)
+    private String resourcesPath;
+
+    @Parameter(required = true)
+    private String presentersPackage;
+
+    @Parameter(required = true)
+    private String presenterViewsPackage;
+
+    @Parameter( required = true )
+    private String moduleClassName;
+
+    @Parameter( defaultValue = "true" )
+    private boolean generateView = true;
+
+    /**
+     * Binds the generated presenters in a Gin module of their package, installed from
+     * <code>moduleClassName</code>, rather than in <code>moduleClassName</code> itself.
+     */
+    @Parameter( property = "gwtp.generator.shardModules", defaultValue = "false" )
+    private boolean shardModules;
+
+    @Override
+    protected List<SourceGenerator> createGenerators() throws MojoExecutionException {
+        PresenterWidgetGenerator generator = new PresenterWidgetGenerator();
+        generator.setLog( getLog() );
+        generator.setNames( presenterWidgets );
+        generator.setResourcesPath( resourcesPath );
+        generator.setPresentersPackage( presentersPackage );
+        generator.setPresenterViewsPackage( presenterViewsPackage );
+        generator.setModuleClassName( moduleClassName );
+        generator.setGenerateView( generateView );
+        generator.setShardModules( shardModules );
+
+        if ( generator.getNames().isEmpty() ) {
+            throw new MojoExecutionException("presenterWidgets must be configured");
+        }
+
+        return Collections.<SourceGenerator>singletonList( generator );
+    }
+
+    @Override
+    protected String getGoal() {
+        return "gen-presenter-widget";
+    }
+
+    public List<String> getPresenterWidgets() {
+        return presenterWidgets == null ? Collections.<String>emptyList() : presenterWidgets;
+    }
+
+    public void setPresenterWidgets(List<String> presenterWidgets) {
+        this.presenterWidgets = presenterWidgets;
+    }
+}
@@ -0,0 +1,72 @@
+package com.redshape.maven.plugins.gwt.goals;
+
+import com.redshape.maven.plugins.gwt.output.GeneratedFileWriter;
+import com.redshape.maven.plugins.gwt.output.GenerationManifest;
+import com.redshape.maven.plugins.gwt.output.VerifyingFileWriter;
+import com.redshape.maven.plugins.gwt.sources.SourcePatch;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks that the configured presenters are generated and registered, without writing
+ * anything: the generated classes, UiBinder templates and patched module, injector and name
+ * tokens sources are rendered in memory and compared with the working tree. Any difference
+ * is logged as a unified diff and fails the build.
+ */
+@Mojo( name = "gen-verify", requiresDependencyResolution = ResolutionScope.COMPILE, threadSafe = true )
+public class GenVerifyMojo extends GenPresenterMojo {
+
+    private VerifyingFileWriter writer;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        List<String> names = getPresenterNames();
+        if ( names.isEmpty() ) {
+            throw new MojoExecutionException("Either presenterName or presenters must be configured");
+        }
+
+        generatePresenters( names );
+
+        Map<File, String> differences = writer.getDifferences();
+        if ( differences.isEmpty() ) {
+            getLog().info("Generated sources are up to date");
+            return;
+        }
+
+        StringBuilder diff = new StringBuilder();
+        for ( String fileDiff : differences.values() ) {
+            diff.append( fileDiff );
+        }
+        getLog().error( "Generated sources are out of date:\n" + diff );
+
+        throw new MojoFailureException( differences.size() + " generated or patched file(s) are out of date: "
+                + differences.keySet() + ". Run the gen-presenter goal and commit the result.");
+    }
+
+    @Override
+    protected boolean isDryRun() {
+        return true;
+    }
+
+    @Override
+    protected GeneratedFileWriter createFileWriter( GenerationManifest manifest ) {
+        File baseDirectory = getProject() == null ? null : getProject().getBasedir();
+        writer = new VerifyingFileWriter( manifest, getLog(), baseDirectory, getSourceCharset() );
+        return writer;
+    }
+
+    /**
+     * Records the patch as a difference instead of applying it.
+     */
+    @Override
+    protected File updateClassSource( SourcePatch patch ) {
+        writer.addDifference( patch.getFile(), patch.getContent(), patch.apply() );
+        return null;
+    }
+}
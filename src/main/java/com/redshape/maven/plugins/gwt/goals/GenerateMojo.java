@@ -0,0 +1,112 @@
+package com.redshape.maven.plugins.gwt.goals;
+
+import com.redshape.maven.plugins.gwt.AbstractGeneratorMojo;
+import com.redshape.maven.plugins.gwt.generators.AbstractSourceGenerator;
+import com.redshape.maven.plugins.gwt.generators.ActionGenerator;
+import com.redshape.maven.plugins.gwt.generators.EventGenerator;
+import com.redshape.maven.plugins.gwt.generators.PresenterGenerator;
+import com.redshape.maven.plugins.gwt.generators.PresenterWidgetGenerator;
+import com.redshape.maven.plugins.gwt.generators.SourceGenerator;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs several generators in a single pass: their registration classes are located with one
+ * source scan, and everything they generate or patch is published by one write phase. Each
+ * generator is configured by a nested element holding its <code>names</code> and the
+ * parameters of the corresponding goal:
+ *
+ * <pre>
+ * &lt;presenters&gt;
+ *     &lt;names&gt;&lt;name&gt;Home&lt;/name&gt;&lt;/names&gt;
+ *     &lt;presentersPackage&gt;...&lt;/presentersPackage&gt;
+ *     ...
+ * &lt;/presenters&gt;
+ * &lt;events&gt;
+ *     &lt;names&gt;&lt;name&gt;Saved&lt;/name&gt;&lt;/names&gt;
+ *     &lt;eventsPackage&gt;...&lt;/eventsPackage&gt;
+ * &lt;/events&gt;
+ * </pre>
+ */
+@Mojo( name = "generate", requiresDependencyResolution = ResolutionScope.COMPILE, threadSafe = true )
+public class GenerateMojo extends AbstractGeneratorMojo {
+
+    @Parameter
+    private PresenterGenerator presenters;
+
+    @Parameter
+    private PresenterWidgetGenerator presenterWidgets;
+
+    @Parameter
+    private EventGenerator events;
+
+    @Parameter
+    private ActionGenerator actions;
+
+    @Override
+    protected List<SourceGenerator> createGenerators() throws MojoExecutionException {
+        List<SourceGenerator> generators = new ArrayList<SourceGenerator>();
+        addGenerator( generators, presenters );
+        addGenerator( generators, presenterWidgets );
+        addGenerator( generators, events );
+        addGenerator( generators, actions );
+
+        if ( generators.isEmpty() ) {
+            throw new MojoExecutionException("At least one of presenters, presenterWidgets, events or actions "
+                    + "must be configured with names");
+        }
+
+        return generators;
+    }
+
+    private void addGenerator( List<SourceGenerator> generators, AbstractSourceGenerator generator ) {
+        if ( generator == null || generator.getNames().isEmpty() ) {
+            return;
+        }
+
+        generator.setLog( getLog() );
+        generators.add( generator );
+    }
+
+    @Override
+    protected String getGoal() {
+        return "generate";
+    }
+
+    public PresenterGenerator getPresenters() {
+        return presenters;
+    }
+
+    public void setPresenters(PresenterGenerator presenters) {
+        this.presenters = presenters;
+    }
+
+    public PresenterWidgetGenerator getPresenterWidgets() {
+        return presenterWidgets;
+    }
+
+    public void setPresenterWidgets(PresenterWidgetGenerator presenterWidgets) {
+        this.presenterWidgets = presenterWidgets;
+    }
+
+    public EventGenerator getEvents() {
+        return events;
+    }
+
+    public void setEvents(EventGenerator events) {
+        this.events = events;
+    }
+
+    public ActionGenerator getActions() {
+        return actions;
+    }
+
+    public void setActions(ActionGenerator actions) {
+        this.actions = actions;
+    }
+}
@@ -0,0 +1,215 @@
+package com.redshape.maven.plugins.gwt.metrics;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Phase timers and counters of a generator run. Safe to update from any thread; phases
+ * running concurrently (rendering of several presenters) add up their elapsed times.
+ *
+ * Phases and counters are reported in the order they were first recorded.
+ */
+public class GeneratorMetrics {
+
+    public static final String FILES_VISITED = "files.visited";
+    public static final String FILES_PARSED = "files.parsed";
+    public static final String FILES_CACHED = "files.cached";
+    public static final String FILES_WRITTEN = "files.written";
+    public static final String FILES_UNCHANGED = "files.unchanged";
+    public static final String FILES_COMPILED = "files.compiled";
+    public static final String BYTES_READ = "bytes.read";
+    public static final String BYTES_WRITTEN = "bytes.written";
+
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private final ConcurrentMap<String, Phase> phases = new ConcurrentHashMap<String, Phase>();
+    private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<String, AtomicLong>();
+    private final List<String> phaseNames = new ArrayList<String>();
+    private final List<String> counterNames = new ArrayList<String>();
+
+    public Timer start( String phase ) {
+        return new Timer( getPhase(phase) );
+    }
+
+    public void increment( String counter ) {
+        add( counter, 1 );
+    }
+
+    public void add( String counter, long value ) {
+        AtomicLong result = counters.get( counter );
+        if ( result == null ) {
+            synchronized ( counterNames ) {
+                result = counters.get( counter );
+                if ( result == null ) {
+                    result = new AtomicLong();
+                    counters.put( counter, result );
+                    counterNames.add( counter );
+                }
+            }
+        }
+
+        result.addAndGet( value );
+    }
+
+    public long getCounter( String counter ) {
+        AtomicLong result = counters.get( counter );
+        return result == null ? 0 : result.get();
+    }
+
+    /**
+     * @return total nanoseconds spent in the phase
+     */
+    public long getNanos( String phase ) {
+        Phase result = phases.get( phase );
+        return result == null ? 0 : result.nanos.get();
+    }
+
+    public long getCount( String phase ) {
+        Phase result = phases.get( phase );
+        return result == null ? 0 : result.count.get();
+    }
+
+    public void log( Log log ) {
+        log.info( String.format( "%-28s %8s %12s %12s", "Phase", "Count", "Total ms", "Max ms" ) );
+        for ( String name : getPhaseNames() ) {
+            Phase phase = phases.get( name );
+            log.info( String.format( "%-28s %8d %12.2f %12.2f", name, phase.count.get(),
+                    phase.nanos.get() / 1e6, phase.maxNanos.get() / 1e6 ) );
+        }
+
+        log.info( String.format( "%-28s %8s", "Counter", "Value" ) );
+        for ( String name : getCounterNames() ) {
+            log.info( String.format( "%-28s %8d", name, counters.get(name).get() ) );
+        }
+    }
+
+    public void writeReport( File reportFile, Map<String, String> attributes ) throws IOException {
+        File directory = reportFile.getAbsoluteFile().getParentFile();
+        if ( !directory.exists() ) {
+            directory.mkdirs();
+        }
+
+        StringBuilder builder = new StringBuilder("{\n");
+        for ( Map.Entry<String, String> attribute : attributes.entrySet() ) {
+            builder.append("  ").append( quote(attribute.getKey()) ).append(": ")
+                   .append( quote(attribute.getValue()) ).append(",\n");
+        }
+
+        builder.append("  \"phases\": {");
+        String separator = "\n";
+        for ( String name : getPhaseNames() ) {
+            Phase phase = phases.get( name );
+            builder.append( separator ).append("    ").append( quote(name) )
+                   .append(": { \"count\": ").append( phase.count.get() )
+                   .append(", \"totalNanos\": ").append( phase.nanos.get() )
+                   .append(", \"maxNanos\": ").append( phase.maxNanos.get() ).append(" }");
+            separator = ",\n";
+        }
+        builder.append("\n  },\n  \"counters\": {");
+
+        separator = "\n";
+        for ( String name : getCounterNames() ) {
+            builder.append( separator ).append("    ").append( quote(name) ).append(": ")
+                   .append( counters.get(name).get() );
+            separator = ",\n";
+        }
+        builder.append("\n  }\n}\n");
+
+        OutputStream output = new FileOutputStream( reportFile );
+        try {
+            output.write( builder.toString().getBytes( CHARSET ) );
+        } finally {
+            output.close();
+        }
+    }
+
+    private Phase getPhase( String name ) {
+        Phase phase = phases.get( name );
+        if ( phase == null ) {
+            synchronized ( phaseNames ) {
+                phase = phases.get( name );
+                if ( phase == null ) {
+                    phase = new Phase();
+                    phases.put( name, phase );
+                    phaseNames.add( name );
+                }
+            }
+        }
+
+        return phase;
+    }
+
+    private List<String> getPhaseNames() {
+        synchronized ( phaseNames ) {
+            return new ArrayList<String>( phaseNames );
+        }
+    }
+
+    private List<String> getCounterNames() {
+        synchronized ( counterNames ) {
+            return new ArrayList<String>( counterNames );
+        }
+    }
+
+    private static String quote( String value ) {
+        StringBuilder builder = new StringBuilder( value.length() + 2 ).append('"');
+        for ( int i = 0; i < value.length(); i++ ) {
+            char c = value.charAt(i);
+            if ( c == '"' || c == '\\' ) {
+                builder.append('\\').append( c );
+            } else if ( c < 0x20 ) {
+                builder.append( String.format( "\\u%04x", (int) c ) );
+            } else {
+                builder.append( c );
+            }
+        }
+
+        return builder.append('"').toString();
+    }
+
+    private static class Phase {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong nanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record( long elapsed ) {
+            count.incrementAndGet();
+            nanos.addAndGet( elapsed );
+
+            long max;
+            while ( elapsed > ( max = maxNanos.get() ) && !maxNanos.compareAndSet( max, elapsed ) ) {
+            }
+        }
+    }
+
+    public static class Timer {
+        private final Phase phase;
+        private final long start = System.nanoTime();
+        private boolean stopped;
+
+        Timer( Phase phase ) {
+            this.phase = phase;
+        }
+
+        /**
+         * @return nanoseconds elapsed since the timer was started
+         */
+        public long stop() {
+            long elapsed = System.nanoTime() - start;
+            if ( !stopped ) {
+                stopped = true;
+                phase.record( elapsed );
+            }
+
+            return elapsed;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.redshape.maven.plugins.gwt.output;
+
+import com.redshape.maven.plugins.gwt.sources.FileLocks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Set of file writes published together.
+ *
+ * Every file is first staged as a temporary file next to its target, with the permissions
+ * of the target (or the default ones of a new file), and flushed to the disk. {@link #commit()}
+ * then moves all of them into place with atomic renames, so that readers (compilers, IDE file
+ * watchers) never see partially written files, and see all the files of a run change at
+ * once. Replaced files are kept as hard links (or copies) until the commit is complete: if
+ * any move fails, the files already published are restored. A transaction closed without
+ * being committed removes its staged files and leaves the targets untouched.
+ *
+ * Staging is thread safe.
+ */
+public class FileTransaction {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String BACKUP_SUFFIX = ".bak";
+
+    private final Map<File, Staged> staged = new LinkedHashMap<File, Staged>();
+    private final List<Lock> locks = new ArrayList<Lock>();
+    private boolean committed;
+
+    /**
+     * Writes the content to a temporary file in the directory of the target.
+     *
+     * @return the temporary file, which becomes the target on commit (so that its size and
+     *         modification time are the ones the target will have)
+     */
+    public File stage( File target, byte[] content ) throws IOException {
+        File directory = target.getAbsoluteFile().getParentFile();
+        if ( !directory.exists() ) {
+            directory.mkdirs();
+        }
+
+        Path temp = createTempFile( directory.toPath(), target.getName() );
+        try {
+            write( temp, content );
+            copyPermissions( target.toPath(), temp );
+        } catch ( IOException e ) {
+            Files.deleteIfExists( temp );
+            throw e;
+        }
+
+        Staged previous;
+        synchronized ( this ) {
+            if ( committed ) {
+                Files.deleteIfExists( temp );
+                throw new IllegalStateException("Transaction is already committed");
+            }
+
+            previous = staged.put( target.getAbsoluteFile(), new Staged( target.getAbsoluteFile(), temp ) );
+        }
+
+        if ( previous != null ) {
+            Files.deleteIfExists( previous.temp );
+        }
+
+        return temp.toFile();
+    }
+
+    /**
+     * Locks the given files (see {@link FileLocks}) until the transaction is closed, so that
+     * they can be read, patched and published without interference of concurrent executions.
+     */
+    public synchronized void lock( Collection<File> files ) {
+        locks.addAll( FileLocks.lockAll( files ) );
+    }
+
+    public synchronized boolean isEmpty() {
+        return staged.isEmpty();
+    }
+
+    public synchronized Set<File> getTargets() {
+        return Collections.unmodifiableSet( new LinkedHashSet<File>( staged.keySet() ) );
+    }
+
+    /**
+     * Moves all the staged files into place, restoring the already replaced targets if any
+     * of the moves fails. Targets that could not be restored are reported as suppressed
+     * exceptions of the thrown one.
+     */
+    public synchronized void commit() throws IOException {
+        if ( committed ) {
+            throw new IllegalStateException("Transaction is already committed");
+        }
+        committed = true;
+
+        List<Staged> published = new ArrayList<Staged>( staged.size() );
+        try {
+            for ( Staged entry : staged.values() ) {
+                entry.publish();
+                published.add( entry );
+            }
+        } catch ( IOException e ) {
+            for ( int i = published.size() - 1; i >= 0; i-- ) {
+                try {
+                    published.get(i).restore();
+                } catch ( IOException restoreFailure ) {
+                    e.addSuppressed( restoreFailure );
+                }
+            }
+            throw e;
+        } finally {
+            for ( Staged entry : staged.values() ) {
+                entry.discard();
+            }
+        }
+    }
+
+    /**
+     * Discards whatever has not been committed and releases the locks.
+     */
+    public synchronized void close() {
+        try {
+            if ( !committed ) {
+                committed = true;
+                for ( Staged entry : staged.values() ) {
+                    entry.discard();
+                }
+            }
+        } finally {
+            FileLocks.unlockAll( locks );
+            locks.clear();
+        }
+    }
+
+    /**
+     * Unlike {@link Files#createTempFile}, which restricts the file to its owner, creates the
+     * file with the default permissions (umask) of the process, as the target would get.
+     */
+    private static Path createTempFile( Path directory, String name ) throws IOException {
+        while ( true ) {
+            Path temp = directory.resolve( "." + name + "." + ( ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE )
+                    + TEMP_SUFFIX );
+            try {
+                return Files.createFile( temp );
+            } catch ( FileAlreadyExistsException e ) {
+                // picked the name of another staged file, try again
+            }
+        }
+    }
+
+    private static void copyPermissions( Path target, Path temp ) throws IOException {
+        if ( !Files.exists( target ) ) {
+            return;
+        }
+
+        try {
+            Files.setPosixFilePermissions( temp, Files.getPosixFilePermissions( target ) );
+        } catch ( UnsupportedOperationException e ) {
+            // not a POSIX file system
+        }
+    }
+
+    private static void write( Path path, byte[] content ) throws IOException {
+        FileChannel channel = FileChannel.open( path, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING );
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap( content );
+            while ( buffer.hasRemaining() ) {
+                channel.write( buffer );
+            }
+
+            // the content must be on the disk before the rename is
+            channel.force( true );
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static void move( Path source, Path target ) throws IOException {
+        try {
+            Files.move( source, target, StandardCopyOption.ATOMIC_MOVE );
+        } catch ( AtomicMoveNotSupportedException e ) {
+            Files.move( source, target, StandardCopyOption.REPLACE_EXISTING );
+        }
+    }
+
+    private static class Staged {
+        private final File target;
+        private final Path temp;
+        private Path backup;
+        private boolean published;
+
+        Staged( File target, Path temp ) {
+            this.target = target;
+            this.temp = temp;
+        }
+
+        void publish() throws IOException {
+            Path targetPath = target.toPath();
+            if ( Files.exists( targetPath ) ) {
+                backup = Files.createTempFile( targetPath.getParent(), "." + target.getName() + ".", BACKUP_SUFFIX );
+                Files.delete( backup );
+                try {
+                    Files.createLink( backup, targetPath );
+                } catch ( IOException e ) {
+                    Files.copy( targetPath, backup, StandardCopyOption.COPY_ATTRIBUTES );
+                } catch ( UnsupportedOperationException e ) {
+                    Files.copy( targetPath, backup, StandardCopyOption.COPY_ATTRIBUTES );
+                }
+            }
+
+            move( temp, targetPath );
+            published = true;
+        }
+
+        void restore() throws IOException {
+            published = false;
+            Path previous = backup;
+            try {
+                if ( previous != null ) {
+                    move( previous, target.toPath() );
+                } else {
+                    Files.deleteIfExists( target.toPath() );
+                }
+            } catch ( IOException e ) {
+                throw new IOException( previous == null
+                        ? "Failed to remove " + target.getAbsolutePath()
+                        : "Failed to restore " + target.getAbsolutePath() + ", its previous content is left in "
+                                + previous.toAbsolutePath(), e );
+            } finally {
+                // a backup that could not be moved back is left in place for manual recovery
+                backup = null;
+            }
+        }
+
+        void discard() {
+            try {
+                if ( !published ) {
+                    Files.deleteIfExists( temp );
+                }
+                if ( backup != null ) {
+                    Files.deleteIfExists( backup );
+                }
+            } catch ( IOException e ) {
+                // stale temporary file
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.redshape.maven.plugins.gwt.output;
+
+import com.redshape.maven.plugins.gwt.metrics.GeneratorMetrics;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes generated files only when their content differs from what is already on disk,
+ * leaving the modification time of unchanged files alone so that incremental compilers
+ * have nothing to redo. Changed files are written through a {@link FileTransaction}.
+ */
+public class GeneratedFileWriter {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final GenerationManifest manifest;
+    private final Log log;
+    private GeneratorMetrics metrics = new GeneratorMetrics();
+    private FileTransaction transaction;
+    private Map<File, byte[]> sources;
+    private final Set<File> files = new LinkedHashSet<File>();
+
+    public GeneratedFileWriter( GenerationManifest manifest, Log log ) {
+        this.manifest = manifest;
+        this.log = log;
+    }
+
+    public GenerationManifest getManifest() {
+        return manifest;
+    }
+
+    public FileTransaction getTransaction() {
+        return transaction;
+    }
+
+    /**
+     * @param transaction transaction to stage the written files into, published once it is
+     *                    committed; files are published one by one when none is set
+     */
+    public void setTransaction( FileTransaction transaction ) {
+        this.transaction = transaction;
+    }
+
+    public GeneratorMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics( GeneratorMetrics metrics ) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param recordSources keep the content of the Java sources passed to
+     *                      {@link #writeAll(File, Map)}, written or not, for {@link #getSources()}
+     */
+    public synchronized void setRecordSources( boolean recordSources ) {
+        this.sources = recordSources ? new LinkedHashMap<File, byte[]>() : null;
+    }
+
+    /**
+     * @return recorded Java sources keyed by their file, empty unless recording is enabled
+     */
+    public synchronized Map<File, byte[]> getSources() {
+        return sources == null ? Collections.<File, byte[]>emptyMap() : new LinkedHashMap<File, byte[]>( sources );
+    }
+
+    /**
+     * @return files passed to {@link #writeAll(File, Map)}, written or not
+     */
+    public synchronized Set<File> getFiles() {
+        return new LinkedHashSet<File>( files );
+    }
+
+    public void writeAll( File directory, Map<String, byte[]> files ) throws IOException {
+        for ( Map.Entry<String, byte[]> entry : files.entrySet() ) {
+            File file = new File( directory, entry.getKey() );
+            recordFile( file );
+            if ( entry.getKey().endsWith(".java") ) {
+                recordSource( file, entry.getValue() );
+            }
+
+            write( file, entry.getValue() );
+        }
+    }
+
+    private synchronized void recordFile( File file ) {
+        files.add( file );
+    }
+
+    private synchronized void recordSource( File file, byte[] content ) {
+        if ( sources != null ) {
+            sources.put( file, content );
+        }
+    }
+
+    /**
+     * @return true if the file has been (re)written
+     */
+    public boolean write( File file, byte[] content ) throws IOException {
+        GeneratorMetrics.Timer timer = metrics.start("write");
+        try {
+            return doWrite( file, content );
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private boolean doWrite( File file, byte[] content ) throws IOException {
+        String hash = hash( content );
+        if ( isUpToDate( file, content, hash ) ) {
+            metrics.increment( GeneratorMetrics.FILES_UNCHANGED );
+            log.debug("Unchanged: " + file.getPath() );
+            return false;
+        }
+
+        if ( transaction != null ) {
+            File staged = transaction.stage( file, content );
+            manifest.put( file, staged.length(), staged.lastModified(), hash );
+        } else {
+            FileTransaction single = new FileTransaction();
+            try {
+                single.stage( file, content );
+                single.commit();
+            } finally {
+                single.close();
+            }
+            manifest.put( file, hash );
+        }
+
+        metrics.increment( GeneratorMetrics.FILES_WRITTEN );
+        metrics.add( GeneratorMetrics.BYTES_WRITTEN, content.length );
+        log.info("Generated: " + file.getPath() );
+        return true;
+    }
+
+    protected boolean isUpToDate( File file, byte[] content, String hash ) throws IOException {
+        if ( !file.isFile() ) {
+            return false;
+        }
+
+        String recordedHash = manifest.getHash( file );
+        if ( recordedHash != null ) {
+            return recordedHash.equals( hash );
+        }
+
+        if ( file.length() != content.length ) {
+            return false;
+        }
+
+        byte[] existing = read( file );
+        metrics.add( GeneratorMetrics.BYTES_READ, existing.length );
+        String existingHash = hash( existing );
+        manifest.put( file, existingHash );
+        return existingHash.equals( hash );
+    }
+
+    protected static byte[] read( File file ) throws IOException {
+        RandomAccessFile input = new RandomAccessFile( file, "r" );
+        try {
+            byte[] bytes = new byte[ (int) input.length() ];
+            input.readFully( bytes );
+            return bytes;
+        } finally {
+            input.close();
+        }
+    }
+
+    public static String hash( byte[] content ) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest( content );
+            char[] result = new char[ digest.length * 2 ];
+            for ( int i = 0; i < digest.length; i++ ) {
+                result[i * 2] = HEX[ ( digest[i] >> 4 ) & 0xf ];
+                result[i * 2 + 1] = HEX[ digest[i] & 0xf ];
+            }
+
+            return new String( result );
+        } catch ( NoSuchAlgorithmException e ) {
+            throw new IllegalStateException( e.getMessage(), e );
+        }
+    }
+}
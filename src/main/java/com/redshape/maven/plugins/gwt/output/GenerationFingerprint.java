@@ -0,0 +1,143 @@
+package com.redshape.maven.plugins.gwt.output;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inputs and outputs of the last complete run of an execution: a hash of its settings, and
+ * the size and modification time of every file it read or wrote. As long as the settings
+ * are the same and none of the files changed, running it again would not change anything.
+ */
+public class GenerationFingerprint {
+
+    private static final int MAGIC = 0x47575046;
+    private static final int VERSION = 1;
+    private static final long MISSING = -1;
+
+    private final File fingerprintFile;
+    private final String settings;
+    private final Map<File, long[]> files = new LinkedHashMap<File, long[]>();
+
+    /**
+     * @param settings hash of the settings of the execution
+     */
+    public GenerationFingerprint( File fingerprintFile, String settings ) {
+        this.fingerprintFile = fingerprintFile;
+        this.settings = settings;
+    }
+
+    /**
+     * @return fingerprint stored by the previous run, or <code>null</code> when there is none
+     *         usable
+     */
+    public static GenerationFingerprint load( File fingerprintFile, Log log ) {
+        if ( fingerprintFile == null || !fingerprintFile.isFile() ) {
+            return null;
+        }
+
+        try {
+            DataInputStream input = new DataInputStream( new BufferedInputStream( new FileInputStream(fingerprintFile) ) );
+            try {
+                if ( input.readInt() != MAGIC || input.readInt() != VERSION ) {
+                    throw new IOException("Unsupported fingerprint format");
+                }
+
+                GenerationFingerprint fingerprint = new GenerationFingerprint( fingerprintFile, input.readUTF() );
+                int count = input.readInt();
+                for ( int i = 0; i < count; i++ ) {
+                    fingerprint.files.put( new File( input.readUTF() ), new long[] { input.readLong(), input.readLong() } );
+                }
+
+                return fingerprint;
+            } finally {
+                input.close();
+            }
+        } catch ( IOException e ) {
+            log.debug("Discarding unreadable fingerprint " + fingerprintFile.getAbsolutePath(), e );
+            return null;
+        }
+    }
+
+    public void save() throws IOException {
+        File directory = fingerprintFile.getAbsoluteFile().getParentFile();
+        if ( !directory.exists() ) {
+            directory.mkdirs();
+        }
+
+        File tempFile = new File( directory, fingerprintFile.getName() + ".tmp" );
+        DataOutputStream output = new DataOutputStream( new BufferedOutputStream( new FileOutputStream(tempFile) ) );
+        try {
+            output.writeInt( MAGIC );
+            output.writeInt( VERSION );
+            output.writeUTF( settings );
+            output.writeInt( files.size() );
+            for ( Map.Entry<File, long[]> entry : files.entrySet() ) {
+                output.writeUTF( entry.getKey().getPath() );
+                output.writeLong( entry.getValue()[0] );
+                output.writeLong( entry.getValue()[1] );
+            }
+        } finally {
+            output.close();
+        }
+
+        if ( !tempFile.renameTo(fingerprintFile) ) {
+            fingerprintFile.delete();
+            if ( !tempFile.renameTo(fingerprintFile) ) {
+                throw new IOException("Unable to replace fingerprint " + fingerprintFile.getAbsolutePath() );
+            }
+        }
+    }
+
+    /**
+     * Records the file as it currently is, or as missing.
+     */
+    public void addFile( File file ) {
+        File absoluteFile = file.getAbsoluteFile();
+        files.put( absoluteFile, stamp( absoluteFile ) );
+    }
+
+    public void addFiles( Collection<File> files ) {
+        for ( File file : files ) {
+            addFile( file );
+        }
+    }
+
+    public String getSettings() {
+        return settings;
+    }
+
+    public Collection<File> getFiles() {
+        return files.keySet();
+    }
+
+    /**
+     * @return files which have been changed, created or removed since they were recorded
+     */
+    public List<File> getChangedFiles() {
+        List<File> changed = new ArrayList<File>();
+        for ( Map.Entry<File, long[]> entry : files.entrySet() ) {
+            long[] recorded = entry.getValue();
+            long[] current = stamp( entry.getKey() );
+            if ( recorded[0] != current[0] || recorded[1] != current[1] ) {
+                changed.add( entry.getKey() );
+            }
+        }
+
+        return changed;
+    }
+
+    private static long[] stamp( File file ) {
+        long lastModified = file.lastModified();
+        if ( lastModified == 0 && !file.exists() ) {
+            return new long[] { MISSING, MISSING };
+        }
+
+        return new long[] { file.isDirectory() ? 0 : file.length(), lastModified };
+    }
+}
@@ -0,0 +1,160 @@
+package com.redshape.maven.plugins.gwt.output;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Content hashes of the files written by the generator, together with the size and
+ * modification time they had right after being written. While a file keeps both, its
+ * content is known without reading it.
+ */
+public class GenerationManifest {
+
+    private static final int MAGIC = 0x4757504d;
+    private static final int VERSION = 1;
+
+    private final File manifestFile;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    private volatile boolean modified;
+
+    /**
+     * @param manifestFile file the manifest is stored to, or <code>null</code> for a manifest
+     *                     living only for the current run
+     */
+    public GenerationManifest( File manifestFile ) {
+        this.manifestFile = manifestFile;
+    }
+
+    public static GenerationManifest load( File manifestFile, Log log ) {
+        GenerationManifest manifest = new GenerationManifest( manifestFile );
+        if ( manifestFile == null || !manifestFile.isFile() ) {
+            return manifest;
+        }
+
+        try {
+            DataInputStream input = new DataInputStream( new BufferedInputStream( new FileInputStream(manifestFile) ) );
+            try {
+                if ( input.readInt() != MAGIC || input.readInt() != VERSION ) {
+                    throw new IOException("Unsupported manifest format");
+                }
+
+                int count = input.readInt();
+                for ( int i = 0; i < count; i++ ) {
+                    Entry entry = new Entry( input.readUTF(), input.readLong(), input.readLong(), input.readUTF() );
+                    manifest.entries.put( entry.getPath(), entry );
+                }
+            } finally {
+                input.close();
+            }
+        } catch ( IOException e ) {
+            log.debug("Discarding unreadable generation manifest " + manifestFile.getAbsolutePath(), e );
+            manifest.entries.clear();
+        }
+
+        return manifest;
+    }
+
+    public void save() throws IOException {
+        if ( manifestFile == null || !modified ) {
+            return;
+        }
+
+        File directory = manifestFile.getAbsoluteFile().getParentFile();
+        if ( !directory.exists() ) {
+            directory.mkdirs();
+        }
+
+        File tempFile = new File( directory, manifestFile.getName() + ".tmp" );
+        DataOutputStream output = new DataOutputStream( new BufferedOutputStream( new FileOutputStream(tempFile) ) );
+        try {
+            List<Entry> values = new ArrayList<Entry>( entries.values() );
+            output.writeInt( MAGIC );
+            output.writeInt( VERSION );
+            output.writeInt( values.size() );
+            for ( Entry entry : values ) {
+                output.writeUTF( entry.getPath() );
+                output.writeLong( entry.getSize() );
+                output.writeLong( entry.getLastModified() );
+                output.writeUTF( entry.getHash() );
+            }
+        } finally {
+            output.close();
+        }
+
+        if ( !tempFile.renameTo(manifestFile) ) {
+            manifestFile.delete();
+            if ( !tempFile.renameTo(manifestFile) ) {
+                throw new IOException("Unable to replace generation manifest " + manifestFile.getAbsolutePath() );
+            }
+        }
+
+        modified = false;
+    }
+
+    /**
+     * @return hash of the file content, provided the file has not changed since it was recorded
+     */
+    public String getHash( File file ) {
+        Entry entry = entries.get( file.getAbsolutePath() );
+        if ( entry == null || entry.getSize() != file.length() || entry.getLastModified() != file.lastModified() ) {
+            return null;
+        }
+
+        return entry.getHash();
+    }
+
+    public void put( File file, String hash ) {
+        put( file, file.length(), file.lastModified(), hash );
+    }
+
+    /**
+     * Records the hash of a file not yet in place, with the size and modification time it
+     * will have.
+     */
+    public void put( File file, long size, long lastModified, String hash ) {
+        Entry entry = new Entry( file.getAbsolutePath(), size, lastModified, hash );
+        Entry previous = entries.put( entry.getPath(), entry );
+        if ( previous == null || !previous.isSameAs(entry) ) {
+            modified = true;
+        }
+    }
+
+    public static class Entry {
+        private final String path;
+        private final long size;
+        private final long lastModified;
+        private final String hash;
+
+        public Entry( String path, long size, long lastModified, String hash ) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        protected boolean isSameAs( Entry entry ) {
+            return size == entry.size && lastModified == entry.lastModified && hash.equals( entry.hash );
+        }
+    }
+}
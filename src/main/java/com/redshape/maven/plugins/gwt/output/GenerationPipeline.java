@@ -0,0 +1,141 @@
+package com.redshape.maven.plugins.gwt.output;
+
+import com.sun.codemodel.JClassAlreadyExistsException;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders independent generation units on a bounded pool and hands their output over to a
+ * single writer thread, so that rendering of the next units overlaps with disk I/O of the
+ * previous ones. Virtual threads are used for rendering when the running JDK has them.
+ *
+ * Files shared between units (module, injector, name tokens) are not written through the
+ * pipeline: they are patched by the calling thread only.
+ */
+public class GenerationPipeline {
+
+    public interface Unit {
+
+        /**
+         * @return rendered files keyed by their path relative to the unit output directory
+         */
+        Map<String, byte[]> render() throws IOException, JClassAlreadyExistsException;
+    }
+
+    private final GeneratedFileWriter writer;
+    private final ExecutorService renderers;
+    private final ExecutorService writerThread;
+    private final List<Future<Future<?>>> results = new ArrayList<Future<Future<?>>>();
+
+    /**
+     * @param threads maximum number of units rendered at once, 0 for the number of processors
+     */
+    public GenerationPipeline( GeneratedFileWriter writer, int threads ) {
+        this.writer = writer;
+        this.renderers = Executors.newFixedThreadPool(
+                threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+                createRendererThreadFactory() );
+        this.writerThread = Executors.newSingleThreadExecutor( new NamedThreadFactory("gwtp-generator-writer") );
+    }
+
+    public GeneratedFileWriter getWriter() {
+        return writer;
+    }
+
+    public void submit( final File directory, final Unit unit ) {
+        results.add( renderers.submit( new Callable<Future<?>>() {
+            @Override
+            public Future<?> call() throws Exception {
+                final Map<String, byte[]> files = unit.render();
+                return writerThread.submit( new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        writer.writeAll( directory, files );
+                        return null;
+                    }
+                } );
+            }
+        } ) );
+    }
+
+    /**
+     * Waits for all the submitted units to be rendered and written, then releases the
+     * pipeline threads.
+     */
+    public void await() throws IOException, JClassAlreadyExistsException {
+        try {
+            for ( Future<Future<?>> result : results ) {
+                getResult( getResult( result ) );
+            }
+        } finally {
+            shutdown();
+        }
+    }
+
+    public void shutdown() {
+        renderers.shutdownNow();
+        writerThread.shutdown();
+    }
+
+    private static <T> T getResult( Future<T> future ) throws IOException, JClassAlreadyExistsException {
+        try {
+            return future.get();
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for generated files", e );
+        } catch ( ExecutionException e ) {
+            Throwable cause = e.getCause();
+            if ( cause instanceof IOException ) {
+                throw (IOException) cause;
+            } else if ( cause instanceof JClassAlreadyExistsException ) {
+                throw (JClassAlreadyExistsException) cause;
+            } else if ( cause instanceof RuntimeException ) {
+                throw (RuntimeException) cause;
+            } else if ( cause instanceof Error ) {
+                throw (Error) cause;
+            }
+
+            throw new IllegalStateException( cause.getMessage(), cause );
+        }
+    }
+
+    /**
+     * @return factory of virtual threads when running on a JDK which supports them (looked
+     *         up reflectively to keep the plugin loadable by older JDKs)
+     */
+    private static ThreadFactory createRendererThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke( null );
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod( "name", String.class, long.class )
+                    .invoke( builder, "gwtp-generator-", 0L );
+            Method factory = builderClass.getMethod("factory");
+            return (ThreadFactory) factory.invoke( builder );
+        } catch ( Exception e ) {
+            return new NamedThreadFactory("gwtp-generator-");
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        NamedThreadFactory( String prefix ) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread( Runnable runnable ) {
+            Thread thread = new Thread( runnable, prefix.endsWith("-") ? prefix + counter.getAndIncrement() : prefix );
+            thread.setDaemon( true );
+            return thread;
+        }
+    }
+}
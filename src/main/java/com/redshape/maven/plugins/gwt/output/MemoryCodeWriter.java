@@ -0,0 +1,56 @@
+package com.redshape.maven.plugins.gwt.output;
+
+import com.sun.codemodel.CodeWriter;
+import com.sun.codemodel.JPackage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Renders <code>JCodeModel</code> output into memory, keyed by the path relative to the
+ * output directory, so that it can be compared with what is already on disk.
+ */
+public class MemoryCodeWriter extends CodeWriter {
+
+    private final Charset charset;
+    private final Map<String, ByteArrayOutputStream> files = new LinkedHashMap<String, ByteArrayOutputStream>();
+
+    public MemoryCodeWriter( Charset charset ) {
+        this.charset = charset;
+    }
+
+    @Override
+    public OutputStream openBinary( JPackage pkg, String fileName ) throws IOException {
+        String path = pkg == null || pkg.isUnnamed() ? fileName : pkg.name().replace('.', '/') + "/" + fileName;
+        ByteArrayOutputStream stream = new ByteArrayOutputStream( 4096 );
+        files.put( path, stream );
+        return stream;
+    }
+
+    @Override
+    public Writer openSource( JPackage pkg, String fileName ) throws IOException {
+        return new OutputStreamWriter( openBinary( pkg, fileName ), charset );
+    }
+
+    @Override
+    public void close() throws IOException {
+    }
+
+    /**
+     * @return rendered files keyed by their path relative to the output directory
+     */
+    public Map<String, byte[]> getFiles() {
+        Map<String, byte[]> result = new LinkedHashMap<String, byte[]>();
+        for ( Map.Entry<String, ByteArrayOutputStream> entry : files.entrySet() ) {
+            result.put( entry.getKey(), entry.getValue().toByteArray() );
+        }
+
+        return result;
+    }
+}
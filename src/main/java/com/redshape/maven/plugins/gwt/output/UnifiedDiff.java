@@ -0,0 +1,191 @@
+package com.redshape.maven.plugins.gwt.output;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Line based unified diff (<code>diff -u</code> format) of two texts.
+ *
+ * The common leading and trailing lines are matched directly, and only the differing middle
+ * is aligned with a longest common subsequence, which keeps the insertions the generator
+ * makes into large sources cheap to diff.
+ */
+public final class UnifiedDiff {
+
+    private static final int CONTEXT = 3;
+
+    /**
+     * Differing middles larger than that (in lines squared) are reported as replaced as a whole
+     */
+    private static final long MAX_ALIGNED_CELLS = 4L * 1024 * 1024;
+
+    private static final char EQUAL = ' ';
+    private static final char DELETE = '-';
+    private static final char INSERT = '+';
+
+    private UnifiedDiff() {
+    }
+
+    /**
+     * @param original original text, or <code>null</code> for a new file
+     * @return diff of the two texts, empty when they have the same lines
+     */
+    public static String diff( String path, String original, String revised ) {
+        List<String> originalLines = split( original );
+        List<String> revisedLines = split( revised );
+        List<Edit> edits = align( originalLines, revisedLines );
+
+        StringBuilder builder = new StringBuilder();
+        int[] originalBefore = new int[ edits.size() + 1 ];
+        int[] revisedBefore = new int[ edits.size() + 1 ];
+        for ( int i = 0; i < edits.size(); i++ ) {
+            char type = edits.get(i).type;
+            originalBefore[i + 1] = originalBefore[i] + ( type == INSERT ? 0 : 1 );
+            revisedBefore[i + 1] = revisedBefore[i] + ( type == DELETE ? 0 : 1 );
+        }
+
+        int i = 0;
+        while ( i < edits.size() ) {
+            if ( edits.get(i).type == EQUAL ) {
+                i++;
+                continue;
+            }
+
+            int start = Math.max( 0, i - CONTEXT );
+            int end = i + 1;
+            int j = i + 1;
+            while ( j < edits.size() ) {
+                if ( edits.get(j).type != EQUAL ) {
+                    end = ++j;
+                    continue;
+                }
+
+                int k = j;
+                while ( k < edits.size() && edits.get(k).type == EQUAL ) {
+                    k++;
+                }
+
+                if ( k == edits.size() || k - j > 2 * CONTEXT ) {
+                    break;
+                }
+                j = k;
+            }
+
+            int hunkEnd = Math.min( edits.size(), end + CONTEXT );
+            if ( builder.length() == 0 ) {
+                builder.append("--- ").append( original == null ? "/dev/null" : "a/" + path ).append('\n')
+                       .append("+++ b/").append( path ).append('\n');
+            }
+
+            int originalCount = originalBefore[hunkEnd] - originalBefore[start];
+            int revisedCount = revisedBefore[hunkEnd] - revisedBefore[start];
+            builder.append("@@ -").append( originalBefore[start] + ( originalCount == 0 ? 0 : 1 ) )
+                   .append(',').append( originalCount )
+                   .append(" +").append( revisedBefore[start] + ( revisedCount == 0 ? 0 : 1 ) )
+                   .append(',').append( revisedCount ).append(" @@\n");
+            for ( int e = start; e < hunkEnd; e++ ) {
+                builder.append( edits.get(e).type ).append( edits.get(e).line ).append('\n');
+            }
+
+            i = hunkEnd;
+        }
+
+        return builder.toString();
+    }
+
+    private static List<Edit> align( List<String> original, List<String> revised ) {
+        int prefix = 0;
+        while ( prefix < original.size() && prefix < revised.size()
+                && original.get(prefix).equals( revised.get(prefix) ) ) {
+            prefix++;
+        }
+
+        int suffix = 0;
+        while ( suffix < original.size() - prefix && suffix < revised.size() - prefix
+                && original.get( original.size() - 1 - suffix ).equals( revised.get( revised.size() - 1 - suffix ) ) ) {
+            suffix++;
+        }
+
+        List<Edit> edits = new ArrayList<Edit>( Math.max( original.size(), revised.size() ) );
+        for ( int i = 0; i < prefix; i++ ) {
+            edits.add( new Edit( EQUAL, original.get(i) ) );
+        }
+
+        List<String> a = original.subList( prefix, original.size() - suffix );
+        List<String> b = revised.subList( prefix, revised.size() - suffix );
+        if ( (long) a.size() * b.size() > MAX_ALIGNED_CELLS ) {
+            for ( String line : a ) {
+                edits.add( new Edit( DELETE, line ) );
+            }
+            for ( String line : b ) {
+                edits.add( new Edit( INSERT, line ) );
+            }
+        } else {
+            alignMiddle( a, b, edits );
+        }
+
+        for ( int i = original.size() - suffix; i < original.size(); i++ ) {
+            edits.add( new Edit( EQUAL, original.get(i) ) );
+        }
+
+        return edits;
+    }
+
+    private static void alignMiddle( List<String> a, List<String> b, List<Edit> edits ) {
+        int[][] common = new int[ a.size() + 1 ][ b.size() + 1 ];
+        for ( int i = a.size() - 1; i >= 0; i-- ) {
+            for ( int j = b.size() - 1; j >= 0; j-- ) {
+                common[i][j] = a.get(i).equals( b.get(j) )
+                        ? common[i + 1][j + 1] + 1
+                        : Math.max( common[i + 1][j], common[i][j + 1] );
+            }
+        }
+
+        int i = 0;
+        int j = 0;
+        while ( i < a.size() || j < b.size() ) {
+            if ( i < a.size() && j < b.size() && a.get(i).equals( b.get(j) ) ) {
+                edits.add( new Edit( EQUAL, a.get(i++) ) );
+                j++;
+            } else if ( j == b.size() || ( i < a.size() && common[i + 1][j] >= common[i][j + 1] ) ) {
+                edits.add( new Edit( DELETE, a.get(i++) ) );
+            } else {
+                edits.add( new Edit( INSERT, b.get(j++) ) );
+            }
+        }
+    }
+
+    private static List<String> split( String text ) {
+        List<String> lines = new ArrayList<String>();
+        if ( text == null || text.isEmpty() ) {
+            return lines;
+        }
+
+        int start = 0;
+        int end;
+        while ( ( end = text.indexOf( '\n', start ) ) != -1 ) {
+            lines.add( stripCarriageReturn( text.substring( start, end ) ) );
+            start = end + 1;
+        }
+
+        if ( start < text.length() ) {
+            lines.add( stripCarriageReturn( text.substring(start) ) );
+        }
+
+        return lines;
+    }
+
+    private static String stripCarriageReturn( String line ) {
+        return line.endsWith("\r") ? line.substring( 0, line.length() - 1 ) : line;
+    }
+
+    private static class Edit {
+        private final char type;
+        private final String line;
+
+        Edit( char type, String line ) {
+            this.type = type;
+            this.line = line;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.redshape.maven.plugins.gwt.output;
+
+import com.redshape.maven.plugins.gwt.metrics.GeneratorMetrics;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares the generated files with what is on disk instead of writing them, collecting a
+ * unified diff of every file that would change. Nothing is written, the manifest is only
+ * updated in memory.
+ */
+public class VerifyingFileWriter extends GeneratedFileWriter {
+
+    private final File baseDirectory;
+    private final Charset charset;
+    private final Map<File, String> differences = new LinkedHashMap<File, String>();
+
+    /**
+     * @param baseDirectory directory the paths of the diff headers are relative to
+     * @param charset charset the diffs decode the compared content with
+     */
+    public VerifyingFileWriter( GenerationManifest manifest, Log log, File baseDirectory, Charset charset ) {
+        super( manifest, log );
+        this.baseDirectory = baseDirectory;
+        this.charset = charset;
+    }
+
+    /**
+     * @return true if the file is out of date
+     */
+    @Override
+    public boolean write( File file, byte[] content ) throws IOException {
+        GeneratorMetrics.Timer timer = getMetrics().start("verify");
+        try {
+            if ( isUpToDate( file, content, hash(content) ) ) {
+                getMetrics().increment( GeneratorMetrics.FILES_UNCHANGED );
+                return false;
+            }
+
+            String original = null;
+            if ( file.isFile() ) {
+                byte[] existing = read( file );
+                getMetrics().add( GeneratorMetrics.BYTES_READ, existing.length );
+                original = new String( existing, charset );
+            }
+
+            addDifference( file, original, new String( content, charset ) );
+            return true;
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Records a file that would be changed from the original to the revised content.
+     *
+     * @param original current content, or <code>null</code> if the file does not exist
+     */
+    public synchronized void addDifference( File file, String original, String revised ) {
+        differences.put( file, UnifiedDiff.diff( getRelativePath(file), original, revised ) );
+    }
+
+    /**
+     * @return unified diffs of the out of date files, in the order they were found
+     */
+    public synchronized Map<File, String> getDifferences() {
+        return Collections.unmodifiableMap( new LinkedHashMap<File, String>( differences ) );
+    }
+
+    protected String getRelativePath( File file ) {
+        String path = file.getAbsolutePath();
+        if ( baseDirectory != null ) {
+            String base = baseDirectory.getAbsolutePath() + File.separator;
+            if ( path.startsWith(base) ) {
+                path = path.substring( base.length() );
+            }
+        }
+
+        return path.replace( File.separatorChar, '/' );
+    }
+}
@@ -0,0 +1,71 @@
+package com.redshape.maven.plugins.gwt.sources;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * JVM-wide locks of source files, keyed by canonical path, coordinating the read-modify-write
+ * cycles of concurrent executions (parallel reactor builds) editing the same files.
+ */
+public final class FileLocks {
+
+    private static final ConcurrentMap<String, Lock> LOCKS = new ConcurrentHashMap<String, Lock>();
+
+    private FileLocks() {
+    }
+
+    public static Lock get( File file ) {
+        String path = getCanonicalPath( file );
+        Lock lock = LOCKS.get( path );
+        if ( lock == null ) {
+            Lock created = new ReentrantLock();
+            lock = LOCKS.putIfAbsent( path, created );
+            if ( lock == null ) {
+                lock = created;
+            }
+        }
+
+        return lock;
+    }
+
+    /**
+     * Locks all the given files, always in the same (canonical path) order so that executions
+     * locking overlapping sets do not deadlock.
+     *
+     * @return locks acquired, to be passed to {@link #unlockAll(List)}
+     */
+    public static List<Lock> lockAll( Collection<File> files ) {
+        SortedMap<String, File> sorted = new TreeMap<String, File>();
+        for ( File file : files ) {
+            sorted.put( getCanonicalPath(file), file );
+        }
+
+        List<Lock> locks = new ArrayList<Lock>( sorted.size() );
+        for ( File file : sorted.values() ) {
+            Lock lock = get( file );
+            lock.lock();
+            locks.add( lock );
+        }
+
+        return locks;
+    }
+
+    public static void unlockAll( List<Lock> locks ) {
+        for ( int i = locks.size() - 1; i >= 0; i-- ) {
+            locks.get(i).unlock();
+        }
+    }
+
+    private static String getCanonicalPath( File file ) {
+        try {
+            return file.getCanonicalPath();
+        } catch ( IOException e ) {
+            return file.getAbsolutePath();
+        }
+    }
+}
@@ -0,0 +1,441 @@
+package com.redshape.maven.plugins.gwt.sources;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Persistent map of the classes declared by the already parsed sources.
+ *
+ * Every entry remembers the source root, size and modification time of its file, so it is
+ * validated with a single stat. Directory listings are cached the same way, which lets a
+ * fallback scan re-list only the directories modified since the previous run.
+ *
+ * Classes a complete scan did not find are remembered with the stamp the source tree had
+ * then, so that looking them up again costs a walk of the tree without reading any file.
+ * Misses are kept per set of source roots, as the index may be shared by the modules of a
+ * reactor which each look the same classes up in their own roots.
+ */
+public class SourceIndex {
+
+    private static final int MAGIC = 0x47575053;
+    private static final int VERSION = 3;
+
+    /**
+     * Listings of directories modified this recently are not cached: a file created within
+     * the timestamp granularity of the file system would not change the directory stamp.
+     */
+    private static final long RACY_INTERVAL = 2000;
+
+    private final File indexFile;
+    private final ConcurrentMap<String, FileEntry> files = new ConcurrentHashMap<String, FileEntry>();
+    private final ConcurrentMap<String, DirectoryEntry> directories = new ConcurrentHashMap<String, DirectoryEntry>();
+    private final ConcurrentMap<String, String> classes = new ConcurrentHashMap<String, String>();
+    private final ConcurrentMap<String, ConcurrentMap<String, MissEntry>> misses
+            = new ConcurrentHashMap<String, ConcurrentMap<String, MissEntry>>();
+    private volatile boolean modified;
+
+    /**
+     * @param indexFile file the index is stored to, or <code>null</code> for an index living
+     *                  only for the current run
+     */
+    public SourceIndex( File indexFile ) {
+        this.indexFile = indexFile;
+    }
+
+    public static SourceIndex load( File indexFile, Log log ) {
+        SourceIndex index = new SourceIndex( indexFile );
+        if ( indexFile == null || !indexFile.isFile() ) {
+            return index;
+        }
+
+        try {
+            DataInputStream input = new DataInputStream( new BufferedInputStream( new FileInputStream(indexFile) ) );
+            try {
+                index.read( input );
+            } finally {
+                input.close();
+            }
+        } catch ( IOException e ) {
+            log.debug("Discarding unreadable source index " + indexFile.getAbsolutePath(), e );
+            index.clear();
+        }
+
+        return index;
+    }
+
+    public synchronized void save() throws IOException {
+        if ( indexFile == null || !modified ) {
+            return;
+        }
+
+        File directory = indexFile.getAbsoluteFile().getParentFile();
+        if ( !directory.exists() ) {
+            directory.mkdirs();
+        }
+
+        // cleared before the snapshot is taken, so that a change made meanwhile is saved next time
+        modified = false;
+        boolean saved = false;
+        try {
+            File tempFile = new File( directory, indexFile.getName() + ".tmp" );
+            DataOutputStream output = new DataOutputStream( new BufferedOutputStream( new FileOutputStream(tempFile) ) );
+            try {
+                write( output );
+            } finally {
+                output.close();
+            }
+
+            if ( !tempFile.renameTo(indexFile) ) {
+                indexFile.delete();
+                if ( !tempFile.renameTo(indexFile) ) {
+                    throw new IOException("Unable to replace source index " + indexFile.getAbsolutePath() );
+                }
+            }
+
+            saved = true;
+        } finally {
+            if ( !saved ) {
+                modified = true;
+            }
+        }
+    }
+
+    /**
+     * @return up-to-date file declaring the given class under one of the given roots,
+     *         or <code>null</code> when the index knows nothing valid about it
+     */
+    public File lookup( String className, Collection<File> sourceRoots ) {
+        String path = classes.get( className );
+        if ( path == null ) {
+            return null;
+        }
+
+        File file = new File( path );
+        FileEntry entry = getFile( file );
+        if ( entry == null || !entry.getClassNames().contains(className) ) {
+            return null;
+        }
+
+        for ( File sourceRoot : sourceRoots ) {
+            if ( sourceRoot.getAbsolutePath().equals( entry.getRoot() ) ) {
+                return file;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return entry of the given file, provided it has not changed since it was indexed
+     */
+    public FileEntry getFile( File file ) {
+        FileEntry entry = files.get( file.getAbsolutePath() );
+        if ( entry == null ) {
+            return null;
+        }
+
+        if ( entry.getLastModified() != file.lastModified() || entry.getSize() != file.length() ) {
+            return null;
+        }
+
+        return entry;
+    }
+
+    public void putFile( File file, File sourceRoot, Collection<String> classNames ) {
+        putFile( file, sourceRoot, classNames, file.length(), file.lastModified() );
+    }
+
+    private void putFile( File file, File sourceRoot, Collection<String> classNames, long size, long lastModified ) {
+        String path = file.getAbsolutePath();
+        FileEntry entry = new FileEntry( path, sourceRoot.getAbsolutePath(), size, lastModified,
+                new ArrayList<String>(classNames) );
+
+        FileEntry previous = files.put( path, entry );
+        if ( previous != null && previous.isSameAs(entry) ) {
+            return;
+        } else if ( previous != null ) {
+            for ( String className : previous.getClassNames() ) {
+                classes.remove( className, path );
+            }
+        }
+
+        for ( String className : classNames ) {
+            classes.put( className, path );
+            for ( ConcurrentMap<String, MissEntry> rootsMisses : misses.values() ) {
+                rootsMisses.remove( className );
+            }
+        }
+
+        modified = true;
+    }
+
+    /**
+     * Re-stamps the entry of a file about to be replaced by the generator itself, whose
+     * declared classes are known to stay the same, with the size and modification time it
+     * will have.
+     */
+    public void refresh( File file, long size, long lastModified ) {
+        FileEntry entry = files.get( file.getAbsolutePath() );
+        if ( entry != null ) {
+            putFile( file, new File( entry.getRoot() ), entry.getClassNames(), size, lastModified );
+        }
+    }
+
+    /**
+     * @return cached listing of the given directory, provided it has not changed since
+     */
+    public DirectoryEntry getDirectory( File directory ) {
+        DirectoryEntry entry = directories.get( directory.getAbsolutePath() );
+        if ( entry == null || entry.getLastModified() != directory.lastModified() ) {
+            return null;
+        }
+
+        return entry;
+    }
+
+    /**
+     * @return entry of the given listing, which is cached only when the directory has not
+     *         been modified within the last {@link #RACY_INTERVAL} milliseconds
+     */
+    public DirectoryEntry putDirectory( File directory, List<String> fileNames, List<String> directoryNames ) {
+        long lastModified = directory.lastModified();
+        DirectoryEntry entry = new DirectoryEntry( directory.getAbsolutePath(), lastModified,
+                fileNames, directoryNames );
+        if ( System.currentTimeMillis() - lastModified < RACY_INTERVAL ) {
+            return entry;
+        }
+
+        directories.put( entry.getPath(), entry );
+        modified = true;
+        return entry;
+    }
+
+    /**
+     * @return stamp of the source tree when a scan of the given roots last missed the class,
+     *         or <code>null</code> if no such miss is known
+     */
+    public Long getMiss( String className, Collection<File> sourceRoots ) {
+        ConcurrentMap<String, MissEntry> rootsMisses = misses.get( toRoots(sourceRoots) );
+        MissEntry entry = rootsMisses == null ? null : rootsMisses.get( className );
+        return entry == null ? null : entry.getTreeStamp();
+    }
+
+    public void putMiss( String className, Collection<File> sourceRoots, long treeStamp ) {
+        putMiss( new MissEntry( className, toRoots(sourceRoots), treeStamp ) );
+        modified = true;
+    }
+
+    private void putMiss( MissEntry entry ) {
+        ConcurrentMap<String, MissEntry> rootsMisses = misses.get( entry.getRoots() );
+        if ( rootsMisses == null ) {
+            ConcurrentMap<String, MissEntry> created = new ConcurrentHashMap<String, MissEntry>();
+            rootsMisses = misses.putIfAbsent( entry.getRoots(), created );
+            if ( rootsMisses == null ) {
+                rootsMisses = created;
+            }
+        }
+
+        rootsMisses.put( entry.getClassName(), entry );
+    }
+
+    private static String toRoots( Collection<File> sourceRoots ) {
+        StringBuilder roots = new StringBuilder();
+        for ( File sourceRoot : sourceRoots ) {
+            roots.append( sourceRoot.getAbsolutePath() ).append( File.pathSeparatorChar );
+        }
+
+        return roots.toString();
+    }
+
+    public void clear() {
+        files.clear();
+        directories.clear();
+        classes.clear();
+        misses.clear();
+        modified = true;
+    }
+
+    public boolean isModified() {
+        return modified;
+    }
+
+    protected void read( DataInputStream input ) throws IOException {
+        if ( input.readInt() != MAGIC || input.readInt() != VERSION ) {
+            throw new IOException("Unsupported source index format");
+        }
+
+        int filesCount = input.readInt();
+        for ( int i = 0; i < filesCount; i++ ) {
+            FileEntry entry = new FileEntry( input.readUTF(), input.readUTF(), input.readLong(), input.readLong(),
+                    readStrings(input) );
+            files.put( entry.getPath(), entry );
+            for ( String className : entry.getClassNames() ) {
+                classes.put( className, entry.getPath() );
+            }
+        }
+
+        int directoriesCount = input.readInt();
+        for ( int i = 0; i < directoriesCount; i++ ) {
+            DirectoryEntry entry = new DirectoryEntry( input.readUTF(), input.readLong(), readStrings(input),
+                    readStrings(input) );
+            directories.put( entry.getPath(), entry );
+        }
+
+        int missesCount = input.readInt();
+        for ( int i = 0; i < missesCount; i++ ) {
+            putMiss( new MissEntry( input.readUTF(), input.readUTF(), input.readLong() ) );
+        }
+    }
+
+    protected void write( DataOutputStream output ) throws IOException {
+        output.writeInt( MAGIC );
+        output.writeInt( VERSION );
+
+        List<FileEntry> fileEntries = new ArrayList<FileEntry>( files.values() );
+        output.writeInt( fileEntries.size() );
+        for ( FileEntry entry : fileEntries ) {
+            output.writeUTF( entry.getPath() );
+            output.writeUTF( entry.getRoot() );
+            output.writeLong( entry.getSize() );
+            output.writeLong( entry.getLastModified() );
+            writeStrings( output, entry.getClassNames() );
+        }
+
+        List<DirectoryEntry> directoryEntries = new ArrayList<DirectoryEntry>( directories.values() );
+        output.writeInt( directoryEntries.size() );
+        for ( DirectoryEntry entry : directoryEntries ) {
+            output.writeUTF( entry.getPath() );
+            output.writeLong( entry.getLastModified() );
+            writeStrings( output, entry.getFileNames() );
+            writeStrings( output, entry.getDirectoryNames() );
+        }
+
+        List<MissEntry> missEntries = new ArrayList<MissEntry>();
+        for ( ConcurrentMap<String, MissEntry> rootsMisses : misses.values() ) {
+            missEntries.addAll( rootsMisses.values() );
+        }
+
+        output.writeInt( missEntries.size() );
+        for ( MissEntry entry : missEntries ) {
+            output.writeUTF( entry.getClassName() );
+            output.writeUTF( entry.getRoots() );
+            output.writeLong( entry.getTreeStamp() );
+        }
+    }
+
+    private static List<String> readStrings( DataInputStream input ) throws IOException {
+        int count = input.readInt();
+        List<String> result = new ArrayList<String>( count );
+        for ( int i = 0; i < count; i++ ) {
+            result.add( input.readUTF() );
+        }
+
+        return result;
+    }
+
+    private static void writeStrings( DataOutputStream output, List<String> values ) throws IOException {
+        output.writeInt( values.size() );
+        for ( String value : values ) {
+            output.writeUTF( value );
+        }
+    }
+
+    public static class FileEntry {
+        private final String path;
+        private final String root;
+        private final long size;
+        private final long lastModified;
+        private final List<String> classNames;
+
+        public FileEntry( String path, String root, long size, long lastModified, List<String> classNames ) {
+            this.path = path;
+            this.root = root;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.classNames = Collections.unmodifiableList( classNames );
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getRoot() {
+            return root;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public List<String> getClassNames() {
+            return classNames;
+        }
+
+        protected boolean isSameAs( FileEntry entry ) {
+            return size == entry.size && lastModified == entry.lastModified
+                    && root.equals( entry.root ) && classNames.equals( entry.classNames );
+        }
+    }
+
+    public static class DirectoryEntry {
+        private final String path;
+        private final long lastModified;
+        private final List<String> fileNames;
+        private final List<String> directoryNames;
+
+        public DirectoryEntry( String path, long lastModified, List<String> fileNames, List<String> directoryNames ) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.fileNames = Collections.unmodifiableList( fileNames );
+            this.directoryNames = Collections.unmodifiableList( directoryNames );
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public List<String> getFileNames() {
+            return fileNames;
+        }
+
+        public List<String> getDirectoryNames() {
+            return directoryNames;
+        }
+    }
+
+    public static class MissEntry {
+        private final String className;
+        private final String roots;
+        private final long treeStamp;
+
+        public MissEntry( String className, String roots, long treeStamp ) {
+            this.className = className;
+            this.roots = roots;
+            this.treeStamp = treeStamp;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public String getRoots() {
+            return roots;
+        }
+
+        public long getTreeStamp() {
+            return treeStamp;
+        }
+    }
+}
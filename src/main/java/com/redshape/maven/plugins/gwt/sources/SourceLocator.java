@@ -0,0 +1,484 @@
+package com.redshape.maven.plugins.gwt.sources;
+
+import com.redshape.maven.plugins.gwt.metrics.GeneratorMetrics;
+import com.thoughtworks.qdox.JavaDocBuilder;
+import com.thoughtworks.qdox.model.JavaClass;
+import com.thoughtworks.qdox.model.JavaSource;
+import com.thoughtworks.qdox.parser.ParseException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves fully-qualified class names to the sources declaring them.
+ *
+ * Each class is first looked up in the {@link SourceIndex}, then directly by its path under
+ * every source root, then (for secondary top-level classes) among the sources of its package
+ * directory, and only as a last resort by walking the whole source tree in parallel. The walk
+ * stops as soon as every requested class has been found, and skips the files the index
+ * already knows not to declare any of them. Unindexed files are parsed only if a
+ * {@link SourcePrefilter} finds a possible declaration in their raw bytes. Classes the walk
+ * misses are remembered in the index, and not searched for again while a stat-only walk
+ * finds the tree unchanged.
+ *
+ * With a {@link SourceModelCache}, the files found are hashed and rebuilt from their
+ * snapshot when they have one, QDox only parsing the new or changed ones.
+ */
+public class SourceLocator {
+
+    private static final String SOURCE_EXTENSION = ".java";
+
+    private final List<File> sourceRoots = new ArrayList<File>();
+    private final SourceIndex index;
+    private final SourceScanner scanner;
+    private final Log log;
+    private GeneratorMetrics metrics = new GeneratorMetrics();
+    private SourceModelCache modelCache;
+
+    public SourceLocator( Collection<String> sourceRoots, Log log ) {
+        this( sourceRoots, new SourceIndex(null), log );
+    }
+
+    public SourceLocator( Collection<String> sourceRoots, SourceIndex index, Log log ) {
+        for ( String sourceRoot : sourceRoots ) {
+            this.sourceRoots.add( new File(sourceRoot).getAbsoluteFile() );
+        }
+
+        this.index = index;
+        this.scanner = new SourceScanner( index );
+        this.log = log;
+    }
+
+    public List<File> getSourceRoots() {
+        return sourceRoots;
+    }
+
+    public SourceIndex getIndex() {
+        return index;
+    }
+
+    public GeneratorMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics( GeneratorMetrics metrics ) {
+        this.metrics = metrics;
+    }
+
+    public SourceModelCache getModelCache() {
+        return modelCache;
+    }
+
+    public void setModelCache( SourceModelCache modelCache ) {
+        this.modelCache = modelCache;
+    }
+
+    /**
+     * Parses sources declaring the given classes into <code>builder</code>.
+     *
+     * @return classes found, keyed by the requested class name
+     */
+    public Map<String, JavaClass> locate( JavaDocBuilder builder, Collection<String> classNames ) {
+        Set<String> pending = Collections.newSetFromMap( new ConcurrentHashMap<String, Boolean>() );
+        for ( String className : classNames ) {
+            if ( className != null ) {
+                pending.add( className );
+            }
+        }
+
+        Map<String, JavaClass> result = new ConcurrentHashMap<String, JavaClass>();
+        Set<File> visited = Collections.newSetFromMap( new ConcurrentHashMap<File, Boolean>() );
+
+        for ( String className : new ArrayList<String>(pending) ) {
+            File indexed = index.lookup( className, sourceRoots );
+            if ( indexed != null ) {
+                collect( builder, indexed, visited, pending, result );
+            }
+        }
+
+        for ( String className : new ArrayList<String>(pending) ) {
+            for ( File candidate : resolveCandidates(className) ) {
+                collect( builder, candidate, visited, pending, result );
+                if ( !pending.contains(className) ) {
+                    break;
+                }
+            }
+        }
+
+        SourcePrefilter prefilter = new SourcePrefilter( pending );
+        for ( String className : new ArrayList<String>(pending) ) {
+            for ( File directory : resolvePackageDirectories(className) ) {
+                scanPackageDirectory( builder, directory, prefilter, visited, pending, result );
+                if ( !pending.contains(className) ) {
+                    break;
+                }
+            }
+        }
+
+        if ( !pending.isEmpty() ) {
+            GeneratorMetrics.Timer timer = metrics.start("scan");
+            try {
+                scanTree( builder, visited, pending, result );
+            } finally {
+                timer.stop();
+            }
+        }
+
+        return result;
+    }
+
+    private void scanTree( JavaDocBuilder builder, Set<File> visited, Set<String> pending,
+                           Map<String, JavaClass> result ) {
+        if ( isMissing( pending ) ) {
+            log.debug("Source tree unchanged since the last scan missed: " + pending );
+            return;
+        }
+
+        log.debug("Falling back to the source tree scan for: " + pending );
+        TreeVisitor visitor = new TreeVisitor( builder, new SourcePrefilter(pending), visited, pending, result );
+        if ( !scanner.scan( sourceRoots, visitor ) ) {
+            for ( String className : pending ) {
+                index.putMiss( className, sourceRoots, visitor.getTreeStamp() );
+            }
+        }
+    }
+
+    /**
+     * @return true when a previous scan missed all the given classes, and the source tree has
+     *         the same stamp as then
+     */
+    private boolean isMissing( Set<String> classNames ) {
+        Long treeStamp = null;
+        for ( String className : classNames ) {
+            Long missStamp = index.getMiss( className, sourceRoots );
+            if ( missStamp == null || ( treeStamp != null && !treeStamp.equals(missStamp) ) ) {
+                return false;
+            }
+
+            treeStamp = missStamp;
+        }
+
+        final AtomicLong current = new AtomicLong();
+        scanner.scan( sourceRoots, new SourceScanner.Visitor() {
+            @Override
+            public boolean visitFile( File file, File sourceRoot ) {
+                current.addAndGet( stamp(file) );
+                return true;
+            }
+        } );
+
+        return treeStamp != null && treeStamp == current.get();
+    }
+
+    /**
+     * Share of a file in the stamp of the source tree: its path, and its size and
+     * modification time unless the index knows what its current content declares. Files
+     * the generator patches itself are re-stamped in the index, and so leave the tree
+     * stamp unchanged.
+     */
+    private long stamp( File file ) {
+        long stamp = file.getAbsolutePath().hashCode();
+        if ( index.getFile(file) == null ) {
+            stamp = 31 * ( 31 * stamp + file.length() ) + file.lastModified();
+        }
+
+        // spread the bits, the shares are summed in whatever order the files are visited
+        return stamp * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * Candidate files for a class, most specific first: <code>a/b/C.java</code>, then the
+     * files of possible enclosing classes (<code>a/b/C.D</code> lives in <code>a/b/C.java</code>).
+     */
+    protected List<File> resolveCandidates( String className ) {
+        List<File> candidates = new ArrayList<File>();
+        String path = toFilePath( className );
+        while ( true ) {
+            for ( File sourceRoot : sourceRoots ) {
+                File candidate = new File( sourceRoot, path + SOURCE_EXTENSION );
+                if ( candidate.isFile() ) {
+                    candidates.add( candidate );
+                }
+            }
+
+            int separatorIndex = path.lastIndexOf('/');
+            if ( separatorIndex == -1 ) {
+                break;
+            }
+
+            path = path.substring( 0, separatorIndex );
+        }
+
+        return candidates;
+    }
+
+    protected List<File> resolvePackageDirectories( String className ) {
+        List<File> directories = new ArrayList<File>();
+        String path = toFilePath( className );
+        int separatorIndex;
+        while ( -1 != ( separatorIndex = path.lastIndexOf('/') ) ) {
+            path = path.substring( 0, separatorIndex );
+            for ( File sourceRoot : sourceRoots ) {
+                File directory = new File( sourceRoot, path );
+                if ( directory.isDirectory() ) {
+                    directories.add( directory );
+                }
+            }
+        }
+
+        return directories;
+    }
+
+    private void scanPackageDirectory( JavaDocBuilder builder, File directory, SourcePrefilter prefilter,
+                                       Set<File> visited, Set<String> pending, Map<String, JavaClass> result ) {
+        SourceIndex.DirectoryEntry listing = scanner.list( directory );
+        if ( listing == null ) {
+            return;
+        }
+
+        for ( String fileName : listing.getFileNames() ) {
+            File file = new File( directory, fileName );
+            metrics.increment( GeneratorMetrics.FILES_VISITED );
+            SourceIndex.FileEntry entry = index.getFile( file );
+            if ( entry != null ? Collections.disjoint( entry.getClassNames(), pending ) : !mayDeclare( prefilter, file ) ) {
+                continue;
+            }
+
+            collect( builder, file, visited, pending, result );
+            if ( pending.isEmpty() ) {
+                return;
+            }
+        }
+    }
+
+    private void collect( JavaDocBuilder builder, File file, Set<File> visited,
+                          Set<String> pending, Map<String, JavaClass> result ) {
+        if ( !visited.add(file) ) {
+            return;
+        }
+
+        JavaSource source;
+        try {
+            source = modelCache == null ? parse( builder, file ) : load( builder, file );
+        } catch ( IOException e ) {
+            log.info("Failed to process file : " + file.getAbsolutePath(), e );
+            return;
+        } catch ( ParseException e ) {
+            log.debug("Failed to parse file : " + file.getAbsolutePath(), e );
+            File sourceRoot = findSourceRoot( file );
+            if ( sourceRoot != null ) {
+                index.putFile( file, sourceRoot, Collections.<String>emptyList() );
+            }
+            return;
+        }
+
+        register( file, source, pending, result );
+    }
+
+    /**
+     * Collects the requested classes of the parsed file and indexes the classes it declares.
+     */
+    private void register( File file, JavaSource source, Set<String> pending, Map<String, JavaClass> result ) {
+        List<String> declared = new ArrayList<String>();
+        for ( JavaClass clazz : source.getClasses() ) {
+            match( clazz, declared, pending, result );
+        }
+
+        File sourceRoot = findSourceRoot( file );
+        if ( sourceRoot != null ) {
+            index.putFile( file, sourceRoot, declared );
+        }
+    }
+
+    private JavaSource parse( JavaDocBuilder builder, File file ) throws IOException {
+        GeneratorMetrics.Timer timer = startParse( file );
+        try {
+            return builder.addSource( file );
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Rebuilds the source from its snapshot, or parses it (from the bytes read to hash it)
+     * and records its snapshot.
+     */
+    private JavaSource load( JavaDocBuilder builder, File file ) throws IOException {
+        byte[] content = readFile( file );
+        String hash = SourceModelCache.hash( content );
+        JavaSource source = modelCache.get( hash, file );
+        if ( source != null ) {
+            metrics.increment( GeneratorMetrics.FILES_CACHED );
+            metrics.add( GeneratorMetrics.BYTES_READ, content.length );
+            return source;
+        }
+
+        GeneratorMetrics.Timer timer = startParse( file );
+        try {
+            // same encoding as the builder, which reads files with the platform one
+            source = builder.addSource( new InputStreamReader( new ByteArrayInputStream(content),
+                    Charset.defaultCharset() ), file.getAbsolutePath() );
+            source.setURL( SourceModelCache.toURL( file ) );
+        } finally {
+            timer.stop();
+        }
+
+        modelCache.put( hash, source );
+        return source;
+    }
+
+    private static byte[] readFile( File file ) throws IOException {
+        RandomAccessFile input = new RandomAccessFile( file, "r" );
+        try {
+            byte[] bytes = new byte[ (int) input.length() ];
+            input.readFully( bytes );
+            return bytes;
+        } finally {
+            input.close();
+        }
+    }
+
+    private void match( JavaClass clazz, List<String> declared, Set<String> pending, Map<String, JavaClass> result ) {
+        String className = toSourceName( clazz.getFullyQualifiedName() );
+        declared.add( className );
+        if ( pending != null && pending.remove(className) ) {
+            result.put( className, clazz );
+        }
+
+        for ( JavaClass nestedClazz : clazz.getNestedClasses() ) {
+            match( nestedClazz, declared, pending, result );
+        }
+    }
+
+    /**
+     * Parses the file on its own, off the shared builder, so that scanner threads do not
+     * contend on it.
+     *
+     * @return parsed source, or <code>null</code> when the file can not be parsed (it is then
+     *         indexed as declaring nothing)
+     */
+    private JavaSource parseIsolated( File file, File sourceRoot ) {
+        JavaDocBuilder builder = new JavaDocBuilder();
+        try {
+            return modelCache == null ? parse( builder, file ) : load( builder, file );
+        } catch ( IOException e ) {
+            log.info("Failed to process file : " + file.getAbsolutePath(), e );
+        } catch ( ParseException e ) {
+            log.debug("Failed to parse file : " + file.getAbsolutePath(), e );
+            index.putFile( file, sourceRoot, Collections.<String>emptyList() );
+        }
+
+        return null;
+    }
+
+    /**
+     * Files rejected by the prefilter are not indexed: what they declare stays unknown, and
+     * they are checked again (cheaply) by the next scan.
+     */
+    private boolean mayDeclare( SourcePrefilter prefilter, File file ) {
+        metrics.add( GeneratorMetrics.BYTES_READ, file.length() );
+        try {
+            return prefilter.matches( file );
+        } catch ( IOException e ) {
+            log.info("Failed to process file : " + file.getAbsolutePath(), e );
+            return false;
+        }
+    }
+
+    private GeneratorMetrics.Timer startParse( File file ) {
+        metrics.increment( GeneratorMetrics.FILES_PARSED );
+        metrics.add( GeneratorMetrics.BYTES_READ, file.length() );
+        return metrics.start("parse");
+    }
+
+    private File findSourceRoot( File file ) {
+        String path = file.getAbsolutePath();
+        for ( File sourceRoot : sourceRoots ) {
+            String rootPath = sourceRoot.getPath();
+            if ( path.startsWith(rootPath) && path.length() > rootPath.length()
+                    && path.charAt( rootPath.length() ) == File.separatorChar ) {
+                return sourceRoot;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Source tree visitor running on the scanner threads. Files passing the prefilter are
+     * parsed in isolation, once: the classes of the parsed source are matched and indexed
+     * right away.
+     */
+    private class TreeVisitor implements SourceScanner.Visitor {
+        private final JavaDocBuilder builder;
+        private final SourcePrefilter prefilter;
+        private final Set<File> visited;
+        private final Set<String> pending;
+        private final Map<String, JavaClass> result;
+        private final AtomicLong treeStamp = new AtomicLong();
+
+        TreeVisitor( JavaDocBuilder builder, SourcePrefilter prefilter, Set<File> visited, Set<String> pending,
+                     Map<String, JavaClass> result ) {
+            this.builder = builder;
+            this.prefilter = prefilter;
+            this.visited = visited;
+            this.pending = pending;
+            this.result = result;
+        }
+
+        /**
+         * @return stamp of the tree, complete only when the scan has not been stopped
+         */
+        public long getTreeStamp() {
+            return treeStamp.get();
+        }
+
+        @Override
+        public boolean visitFile( File file, File sourceRoot ) {
+            metrics.increment( GeneratorMetrics.FILES_VISITED );
+            visit( file, sourceRoot );
+            treeStamp.addAndGet( stamp(file) );
+            return !pending.isEmpty();
+        }
+
+        private void visit( File file, File sourceRoot ) {
+            if ( visited.contains(file) ) {
+                return;
+            }
+
+            SourceIndex.FileEntry entry = index.getFile( file );
+            if ( entry == null && !mayDeclare( prefilter, file ) ) {
+                return;
+            }
+
+            if ( entry != null ) {
+                if ( !Collections.disjoint( entry.getClassNames(), pending ) ) {
+                    synchronized ( builder ) {
+                        collect( builder, file, visited, pending, result );
+                    }
+                }
+            } else {
+                JavaSource source = parseIsolated( file, sourceRoot );
+                if ( source != null && visited.add( file ) ) {
+                    register( file, source, pending, result );
+                }
+            }
+        }
+    }
+
+    public static String toFilePath( String className ) {
+        return className.replace('.', '/');
+    }
+
+    /**
+     * QDox names nested classes in the binary form (<code>a.b.C$D</code>), while
+     * configuration refers to them as <code>a.b.C.D</code>.
+     */
+    public static String toSourceName( String className ) {
+        return className.replace('$', '.');
+    }
+}
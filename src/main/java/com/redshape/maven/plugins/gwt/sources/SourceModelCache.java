@@ -0,0 +1,391 @@
+package com.redshape.maven.plugins.gwt.sources;
+
+import com.redshape.maven.plugins.gwt.output.GeneratedFileWriter;
+import com.thoughtworks.qdox.model.*;
+import com.thoughtworks.qdox.parser.structs.TypeDef;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Persistent snapshots of parsed sources, keyed by the hash of their content. A file whose
+ * content has a snapshot is rebuilt from it instead of being parsed by QDox again, and the
+ * generator records the snapshot of every source it patches, so that the next run does not
+ * parse its own output either.
+ *
+ * A snapshot holds what the generators look at: the classes with their fields, the
+ * signatures and bodies of their methods and their nested classes. Type names are stored
+ * as resolved by the parser. Snapshots not used by a run are dropped when the cache is saved.
+ */
+public class SourceModelCache {
+
+    private static final int MAGIC = 0x47575043;
+    private static final int VERSION = 1;
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private final File cacheFile;
+    private final ConcurrentMap<String, byte[]> snapshots = new ConcurrentHashMap<String, byte[]>();
+    private final Set<String> used = Collections.newSetFromMap( new ConcurrentHashMap<String, Boolean>() );
+    private volatile boolean modified;
+
+    /**
+     * @param cacheFile file the cache is stored to, or <code>null</code> for a cache living
+     *                  only for the current run
+     */
+    public SourceModelCache( File cacheFile ) {
+        this.cacheFile = cacheFile;
+    }
+
+    public static SourceModelCache load( File cacheFile, Log log ) {
+        SourceModelCache cache = new SourceModelCache( cacheFile );
+        if ( cacheFile == null || !cacheFile.isFile() ) {
+            return cache;
+        }
+
+        try {
+            DataInputStream input = new DataInputStream( new BufferedInputStream( new FileInputStream(cacheFile) ) );
+            try {
+                if ( input.readInt() != MAGIC || input.readInt() != VERSION ) {
+                    throw new IOException("Unsupported source model cache format");
+                }
+
+                int count = input.readInt();
+                for ( int i = 0; i < count; i++ ) {
+                    String hash = input.readUTF();
+                    byte[] snapshot = new byte[ input.readInt() ];
+                    input.readFully( snapshot );
+                    cache.snapshots.put( hash, snapshot );
+                }
+            } finally {
+                input.close();
+            }
+        } catch ( IOException e ) {
+            log.debug("Discarding unreadable source model cache " + cacheFile.getAbsolutePath(), e );
+            cache.snapshots.clear();
+        }
+
+        return cache;
+    }
+
+    /**
+     * Stores the snapshots used since the cache has been loaded.
+     */
+    public synchronized void save() throws IOException {
+        if ( cacheFile == null || ( !modified && used.size() == snapshots.size() ) ) {
+            return;
+        }
+
+        File directory = cacheFile.getAbsoluteFile().getParentFile();
+        if ( !directory.exists() ) {
+            directory.mkdirs();
+        }
+
+        snapshots.keySet().retainAll( used );
+
+        File tempFile = new File( directory, cacheFile.getName() + ".tmp" );
+        DataOutputStream output = new DataOutputStream( new BufferedOutputStream( new FileOutputStream(tempFile) ) );
+        try {
+            output.writeInt( MAGIC );
+            output.writeInt( VERSION );
+
+            List<Map.Entry<String, byte[]>> entries = new ArrayList<Map.Entry<String, byte[]>>( snapshots.entrySet() );
+            output.writeInt( entries.size() );
+            for ( Map.Entry<String, byte[]> entry : entries ) {
+                output.writeUTF( entry.getKey() );
+                output.writeInt( entry.getValue().length );
+                output.write( entry.getValue() );
+            }
+        } finally {
+            output.close();
+        }
+
+        if ( !tempFile.renameTo(cacheFile) ) {
+            cacheFile.delete();
+            if ( !tempFile.renameTo(cacheFile) ) {
+                throw new IOException("Unable to replace source model cache " + cacheFile.getAbsolutePath() );
+            }
+        }
+
+        modified = false;
+    }
+
+    public static String hash( byte[] content ) {
+        return GeneratedFileWriter.hash( content );
+    }
+
+    /**
+     * @return source rebuilt from the snapshot of the given content, or <code>null</code>
+     *         when there is none
+     */
+    public JavaSource get( String hash, File file ) {
+        byte[] snapshot = snapshots.get( hash );
+        if ( snapshot == null ) {
+            return null;
+        }
+
+        try {
+            JavaSource source = readSource( new DataInputStream( new ByteArrayInputStream(snapshot) ), file );
+            used.add( hash );
+            return source;
+        } catch ( IOException e ) {
+            snapshots.remove( hash );
+            modified = true;
+            return null;
+        }
+    }
+
+    public void put( String hash, JavaSource source ) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            writeSource( new DataOutputStream( bytes ), source );
+        } catch ( IOException e ) {
+            throw new IllegalStateException( e.getMessage(), e );
+        }
+
+        snapshots.put( hash, bytes.toByteArray() );
+        used.add( hash );
+        modified = true;
+    }
+
+    public int size() {
+        return snapshots.size();
+    }
+
+    /**
+     * @return location QDox gives to the sources it parses from files
+     */
+    public static URL toURL( File file ) throws IOException {
+        return new URL( "file", "", file.getAbsolutePath() );
+    }
+
+    protected JavaSource readSource( DataInputStream input, File file ) throws IOException {
+        JavaSource source = new JavaSource();
+        source.setURL( toURL(file) );
+        String packageName = readString( input );
+        if ( packageName != null ) {
+            source.setPackage( new JavaPackage( packageName ) );
+        }
+
+        int count = input.readInt();
+        for ( int i = 0; i < count; i++ ) {
+            source.addClass( readClass(input) );
+        }
+
+        return source;
+    }
+
+    protected void writeSource( DataOutputStream output, JavaSource source ) throws IOException {
+        writeString( output, source.getPackage() == null ? null : source.getPackage().getName() );
+        output.writeInt( source.getClasses().length );
+        for ( JavaClass clazz : source.getClasses() ) {
+            writeClass( output, clazz );
+        }
+    }
+
+    /**
+     * The class gets its parent when added to its source or outer class.
+     */
+    private JavaClass readClass( DataInputStream input ) throws IOException {
+        JavaClass clazz = new JavaClass( readString(input) );
+        clazz.setInterface( input.readBoolean() );
+        clazz.setModifiers( readStrings(input) );
+
+        int fieldsCount = input.readInt();
+        for ( int i = 0; i < fieldsCount; i++ ) {
+            String name = readString( input );
+            JavaField field = new JavaField( readType(input, clazz), name );
+            field.setModifiers( readStrings(input) );
+            field.setInitializationExpression( readString(input) );
+            clazz.addField( field );
+        }
+
+        int methodsCount = input.readInt();
+        for ( int i = 0; i < methodsCount; i++ ) {
+            JavaMethod method = new JavaMethod( readString(input) );
+            method.setConstructor( input.readBoolean() );
+            method.setReturns( readType(input, clazz) );
+            method.setModifiers( readStrings(input) );
+            int parametersCount = input.readInt();
+            for ( int j = 0; j < parametersCount; j++ ) {
+                String name = readString( input );
+                method.addParameter( new JavaParameter( readType(input, clazz), name ) );
+            }
+            method.setSourceCode( readString(input) );
+            clazz.addMethod( method );
+        }
+
+        int nestedCount = input.readInt();
+        for ( int i = 0; i < nestedCount; i++ ) {
+            clazz.addClass( readClass(input) );
+        }
+
+        return clazz;
+    }
+
+    private void writeClass( DataOutputStream output, JavaClass clazz ) throws IOException {
+        writeString( output, clazz.getName() );
+        output.writeBoolean( clazz.isInterface() );
+        writeStrings( output, clazz.getModifiers() );
+
+        output.writeInt( clazz.getFields().length );
+        for ( JavaField field : clazz.getFields() ) {
+            writeString( output, field.getName() );
+            writeType( output, field.getType() );
+            writeStrings( output, field.getModifiers() );
+            writeString( output, field.getInitializationExpression() );
+        }
+
+        output.writeInt( clazz.getMethods().length );
+        for ( JavaMethod method : clazz.getMethods() ) {
+            writeString( output, method.getName() );
+            output.writeBoolean( method.isConstructor() );
+            writeType( output, method.getGenericReturnType() );
+            writeStrings( output, method.getModifiers() );
+            output.writeInt( method.getParameters().length );
+            for ( JavaParameter parameter : method.getParameters() ) {
+                writeString( output, parameter.getName() );
+                writeType( output, parameter.getType() );
+            }
+            writeString( output, method.getSourceCode() );
+        }
+
+        output.writeInt( clazz.getNestedClasses().length );
+        for ( JavaClass nestedClazz : clazz.getNestedClasses() ) {
+            writeClass( output, nestedClazz );
+        }
+    }
+
+    private Type readType( DataInputStream input, JavaClassParent parent ) throws IOException {
+        TypeDef typeDef = readTypeDef( input );
+        return typeDef == null ? null : new Type( typeDef.name, typeDef, typeDef.dimensions, parent );
+    }
+
+    private TypeDef readTypeDef( DataInputStream input ) throws IOException {
+        String name = readString( input );
+        if ( name == null ) {
+            return null;
+        }
+
+        TypeDef typeDef = new TypeDef( name, input.readInt() );
+        int argumentsCount = input.readInt();
+        if ( argumentsCount > 0 ) {
+            List<TypeDef> arguments = new ArrayList<TypeDef>( argumentsCount );
+            for ( int i = 0; i < argumentsCount; i++ ) {
+                arguments.add( readTypeDef( input ) );
+            }
+            typeDef.actualArgumentTypes = arguments;
+        }
+
+        return typeDef;
+    }
+
+    /**
+     * Types created by the generators themselves carry their type arguments in their name,
+     * they are stored the way the parser would have split them.
+     */
+    private void writeType( DataOutputStream output, Type type ) throws IOException {
+        if ( type == null ) {
+            writeString( output, null );
+            return;
+        }
+
+        String value = type.getValue();
+        if ( value.indexOf('<') != -1 ) {
+            writeTypeName( output, value, type.getDimensions() );
+            return;
+        }
+
+        writeString( output, value );
+        output.writeInt( type.getDimensions() );
+        Type[] arguments = type.getActualTypeArguments();
+        output.writeInt( arguments == null ? 0 : arguments.length );
+        if ( arguments != null ) {
+            for ( Type argument : arguments ) {
+                writeType( output, argument );
+            }
+        }
+    }
+
+    private void writeTypeName( DataOutputStream output, String name, int dimensions ) throws IOException {
+        int argumentsStart = name.indexOf('<');
+        if ( argumentsStart == -1 || !name.endsWith(">") ) {
+            writeString( output, name.trim() );
+            output.writeInt( dimensions );
+            output.writeInt( 0 );
+            return;
+        }
+
+        writeString( output, name.substring( 0, argumentsStart ).trim() );
+        output.writeInt( dimensions );
+
+        List<String> arguments = new ArrayList<String>();
+        int depth = 0;
+        int start = argumentsStart + 1;
+        for ( int i = start; i < name.length() - 1; i++ ) {
+            char c = name.charAt(i);
+            if ( c == '<' ) {
+                depth++;
+            } else if ( c == '>' ) {
+                depth--;
+            } else if ( c == ',' && depth == 0 ) {
+                arguments.add( name.substring( start, i ) );
+                start = i + 1;
+            }
+        }
+        arguments.add( name.substring( start, name.length() - 1 ) );
+
+        output.writeInt( arguments.size() );
+        for ( String argument : arguments ) {
+            writeTypeName( output, argument, 0 );
+        }
+    }
+
+    private static String readString( DataInputStream input ) throws IOException {
+        int length = input.readInt();
+        if ( length == -1 ) {
+            return null;
+        }
+
+        byte[] bytes = new byte[ length ];
+        input.readFully( bytes );
+        return new String( bytes, CHARSET );
+    }
+
+    /**
+     * Unlike {@link DataOutputStream#writeUTF(String)}, not limited to 64k: method bodies
+     * of large Gin modules are longer than that.
+     */
+    private static void writeString( DataOutputStream output, String value ) throws IOException {
+        if ( value == null ) {
+            output.writeInt( -1 );
+            return;
+        }
+
+        byte[] bytes = value.getBytes( CHARSET );
+        output.writeInt( bytes.length );
+        output.write( bytes );
+    }
+
+    private static String[] readStrings( DataInputStream input ) throws IOException {
+        String[] values = new String[ input.readInt() ];
+        for ( int i = 0; i < values.length; i++ ) {
+            values[i] = readString( input );
+        }
+
+        return values;
+    }
+
+    private static void writeStrings( DataOutputStream output, String[] values ) throws IOException {
+        output.writeInt( values == null ? 0 : values.length );
+        if ( values != null ) {
+            for ( String value : values ) {
+                writeString( output, value );
+            }
+        }
+    }
+}
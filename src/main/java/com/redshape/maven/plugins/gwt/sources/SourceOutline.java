@@ -0,0 +1,477 @@
+package com.redshape.maven.plugins.gwt.sources;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Character offsets of the types and members declared by a Java source, as needed to splice
+ * new members and statements into the original text. Comments, string and character literals
+ * are skipped; the method bodies are not looked into.
+ */
+public class SourceOutline {
+
+    public enum MemberKind {
+        FIELD, METHOD, TYPE, INITIALIZER
+    }
+
+    private final List<TypeOutline> types;
+
+    protected SourceOutline( List<TypeOutline> types ) {
+        this.types = Collections.unmodifiableList( types );
+    }
+
+    public static SourceOutline parse( CharSequence content ) {
+        return new Parser( content ).parse();
+    }
+
+    public List<TypeOutline> getTypes() {
+        return types;
+    }
+
+    /**
+     * @param name simple name of a top-level type, or a dot separated path to a nested one
+     *             (<code>Outer.Inner</code>)
+     */
+    public TypeOutline getType( String name ) {
+        List<TypeOutline> candidates = types;
+        TypeOutline result = null;
+        for ( String part : name.split("\\.") ) {
+            result = null;
+            for ( TypeOutline candidate : candidates ) {
+                if ( candidate.getName().equals(part) ) {
+                    result = candidate;
+                    break;
+                }
+            }
+
+            if ( result == null ) {
+                return null;
+            }
+
+            candidates = result.getTypes();
+        }
+
+        return result;
+    }
+
+    public static class TypeOutline {
+        private final String name;
+        private final int start;
+        private final int bodyStart;
+        private int bodyEnd = -1;
+        private final List<MemberOutline> members = new ArrayList<MemberOutline>();
+        private final List<TypeOutline> types = new ArrayList<TypeOutline>();
+
+        protected TypeOutline( String name, int start, int bodyStart ) {
+            this.name = name;
+            this.start = start;
+            this.bodyStart = bodyStart;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return offset of the first modifier or of the type keyword
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * @return offset of the opening brace of the type body
+         */
+        public int getBodyStart() {
+            return bodyStart;
+        }
+
+        /**
+         * @return offset of the closing brace of the type body
+         */
+        public int getBodyEnd() {
+            return bodyEnd;
+        }
+
+        public List<MemberOutline> getMembers() {
+            return members;
+        }
+
+        public List<TypeOutline> getTypes() {
+            return types;
+        }
+
+        public MemberOutline getMethod( String name ) {
+            for ( MemberOutline member : members ) {
+                if ( member.getKind() == MemberKind.METHOD && name.equals( member.getName() ) ) {
+                    return member;
+                }
+            }
+
+            return null;
+        }
+
+        public MemberOutline getLastField() {
+            MemberOutline result = null;
+            for ( MemberOutline member : members ) {
+                if ( member.getKind() == MemberKind.FIELD ) {
+                    result = member;
+                }
+            }
+
+            return result;
+        }
+    }
+
+    public static class MemberOutline {
+        private final MemberKind kind;
+        private final String name;
+        private final int start;
+        private final int end;
+        private final int bodyStart;
+        private final int bodyEnd;
+
+        protected MemberOutline( MemberKind kind, String name, int start, int end, int bodyStart, int bodyEnd ) {
+            this.kind = kind;
+            this.name = name;
+            this.start = start;
+            this.end = end;
+            this.bodyStart = bodyStart;
+            this.bodyEnd = bodyEnd;
+        }
+
+        public MemberKind getKind() {
+            return kind;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return offset of the first token (annotation or modifier) of the member
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * @return offset just past the terminating semicolon or closing brace
+         */
+        public int getEnd() {
+            return end;
+        }
+
+        /**
+         * @return offset of the opening brace of the body, or -1 for bodiless members
+         */
+        public int getBodyStart() {
+            return bodyStart;
+        }
+
+        /**
+         * @return offset of the closing brace of the body, or -1 for bodiless members
+         */
+        public int getBodyEnd() {
+            return bodyEnd;
+        }
+    }
+
+    /**
+     * Single-pass tokenizer and member splitter.
+     */
+    private static class Parser {
+        private static final int EOF = -1;
+        private static final int IDENTIFIER = -2;
+
+        private final CharSequence content;
+        private int position;
+
+        private int tokenType;
+        private int tokenStart;
+        private int tokenEnd;
+        private int previousTokenEnd;
+        private String tokenText;
+
+        Parser( CharSequence content ) {
+            this.content = content;
+        }
+
+        SourceOutline parse() {
+            List<TypeOutline> types = new ArrayList<TypeOutline>();
+            int declarationStart = -1;
+            boolean afterDot = false;
+            next();
+            while ( tokenType != EOF ) {
+                if ( declarationStart == -1 ) {
+                    declarationStart = tokenStart;
+                }
+
+                if ( tokenType == IDENTIFIER && !afterDot && isTypeKeyword(tokenText) ) {
+                    TypeOutline type = parseType( declarationStart );
+                    if ( type != null ) {
+                        types.add( type );
+                    }
+                    declarationStart = -1;
+                    afterDot = false;
+                    continue;
+                }
+
+                if ( tokenType == ';' ) {
+                    declarationStart = -1;
+                } else if ( tokenType == '@' ) {
+                    skipAnnotation();
+                    afterDot = false;
+                    continue;
+                }
+
+                afterDot = tokenType == '.';
+                next();
+            }
+
+            return new SourceOutline( types );
+        }
+
+        /**
+         * Expects the current token to be the type keyword.
+         */
+        private TypeOutline parseType( int start ) {
+            next();
+            if ( tokenType != IDENTIFIER ) {
+                return null;
+            }
+
+            String name = tokenText;
+            while ( tokenType != '{' && tokenType != EOF ) {
+                next();
+            }
+
+            if ( tokenType == EOF ) {
+                return null;
+            }
+
+            TypeOutline type = new TypeOutline( name, start, tokenStart );
+            next();
+            parseTypeBody( type );
+            return type;
+        }
+
+        /**
+         * Consumes members up to and including the closing brace of the type body.
+         */
+        private void parseTypeBody( TypeOutline type ) {
+            while ( tokenType != EOF ) {
+                if ( tokenType == '}' ) {
+                    type.bodyEnd = tokenStart;
+                    next();
+                    return;
+                }
+
+                if ( tokenType == ';' ) {
+                    next();
+                    continue;
+                }
+
+                parseMember( type );
+            }
+        }
+
+        private void parseMember( TypeOutline type ) {
+            int start = tokenStart;
+            boolean parenthesisSeen = false;
+            boolean assignmentSeen = false;
+            String lastIdentifier = null;
+            String name = null;
+
+            while ( tokenType != EOF ) {
+                switch ( tokenType ) {
+                    case '@':
+                        skipAnnotation();
+                        continue;
+                    case '(':
+                        if ( !assignmentSeen && !parenthesisSeen ) {
+                            parenthesisSeen = true;
+                            name = lastIdentifier;
+                        }
+                        skipBalanced( '(', ')' );
+                        continue;
+                    case '=':
+                        if ( !parenthesisSeen && !assignmentSeen ) {
+                            assignmentSeen = true;
+                            name = lastIdentifier;
+                        }
+                        break;
+                    case ';':
+                        if ( name == null ) {
+                            name = lastIdentifier;
+                        }
+                        next();
+                        type.members.add( new MemberOutline(
+                                parenthesisSeen ? MemberKind.METHOD : MemberKind.FIELD,
+                                name, start, previousTokenEnd, -1, -1 ) );
+                        return;
+                    case '{':
+                        if ( assignmentSeen ) {
+                            skipBalanced( '{', '}' );
+                            continue;
+                        }
+
+                        int bodyStart = tokenStart;
+                        int bodyEnd = skipBalanced( '{', '}' );
+                        type.members.add( new MemberOutline(
+                                parenthesisSeen ? MemberKind.METHOD : MemberKind.INITIALIZER,
+                                name, start, bodyEnd + 1, bodyStart, bodyEnd ) );
+                        return;
+                    case '}':
+                        return;
+                    case IDENTIFIER:
+                        if ( !assignmentSeen && !parenthesisSeen && isTypeKeyword(tokenText) ) {
+                            TypeOutline nested = parseType( start );
+                            if ( nested != null ) {
+                                type.types.add( nested );
+                                type.members.add( new MemberOutline( MemberKind.TYPE, nested.getName(), start,
+                                        nested.getBodyEnd() + 1, nested.getBodyStart(), nested.getBodyEnd() ) );
+                            }
+                            return;
+                        }
+                        lastIdentifier = tokenText;
+                        break;
+                    default:
+                        break;
+                }
+
+                next();
+            }
+        }
+
+        /**
+         * Expects the current token to be the opening one.
+         *
+         * @return offset of the matching closing token
+         */
+        private int skipBalanced( int open, int close ) {
+            int depth = 0;
+            while ( tokenType != EOF ) {
+                if ( tokenType == open ) {
+                    depth++;
+                } else if ( tokenType == close ) {
+                    depth--;
+                    if ( depth == 0 ) {
+                        int end = tokenStart;
+                        next();
+                        return end;
+                    }
+                }
+                next();
+            }
+
+            return content.length();
+        }
+
+        /**
+         * Expects the current token to be '@'. Leaves <code>@interface</code> keywords in place.
+         */
+        private void skipAnnotation() {
+            next();
+            if ( tokenType == IDENTIFIER && "interface".equals(tokenText) ) {
+                return;
+            }
+
+            while ( tokenType == IDENTIFIER ) {
+                next();
+                if ( tokenType != '.' ) {
+                    break;
+                }
+                next();
+            }
+
+            if ( tokenType == '(' ) {
+                skipBalanced( '(', ')' );
+            }
+        }
+
+        private static boolean isTypeKeyword( String text ) {
+            return "class".equals(text) || "interface".equals(text) || "enum".equals(text);
+        }
+
+        private void next() {
+            previousTokenEnd = tokenEnd;
+            skipWhitespaceAndComments();
+            tokenStart = position;
+            tokenText = null;
+            if ( position >= content.length() ) {
+                tokenType = EOF;
+                tokenEnd = position;
+                return;
+            }
+
+            char c = content.charAt( position );
+            if ( Character.isJavaIdentifierStart(c) ) {
+                int end = position + 1;
+                while ( end < content.length() && Character.isJavaIdentifierPart( content.charAt(end) ) ) {
+                    end++;
+                }
+                tokenType = IDENTIFIER;
+                tokenText = content.subSequence( position, end ).toString();
+                position = end;
+            } else if ( c == '"' || c == '\'' ) {
+                skipLiteral( c );
+                tokenType = c;
+            } else {
+                tokenType = c;
+                position++;
+            }
+
+            tokenEnd = position;
+        }
+
+        private void skipLiteral( char quote ) {
+            position++;
+            while ( position < content.length() ) {
+                char c = content.charAt( position++ );
+                if ( c == '\\' ) {
+                    position++;
+                } else if ( c == quote || c == '\n' ) {
+                    return;
+                }
+            }
+        }
+
+        private void skipWhitespaceAndComments() {
+            while ( position < content.length() ) {
+                char c = content.charAt( position );
+                if ( Character.isWhitespace(c) ) {
+                    position++;
+                } else if ( c == '/' && position + 1 < content.length() && content.charAt(position + 1) == '/' ) {
+                    while ( position < content.length() && content.charAt(position) != '\n' ) {
+                        position++;
+                    }
+                } else if ( c == '/' && position + 1 < content.length() && content.charAt(position + 1) == '*' ) {
+                    int end = indexOf( "*/", position + 2 );
+                    position = end == -1 ? content.length() : end + 2;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private int indexOf( String text, int from ) {
+            for ( int i = from; i <= content.length() - text.length(); i++ ) {
+                boolean matches = true;
+                for ( int j = 0; j < text.length(); j++ ) {
+                    if ( content.charAt(i + j) != text.charAt(j) ) {
+                        matches = false;
+                        break;
+                    }
+                }
+
+                if ( matches ) {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+    }
+}
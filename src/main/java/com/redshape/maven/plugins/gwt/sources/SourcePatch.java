@@ -0,0 +1,280 @@
+package com.redshape.maven.plugins.gwt.sources;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * Set of text insertions into an existing source file.
+ *
+ * Nothing but the inserted text is changed: the patched content is the original one with
+ * the insertions spliced in.
+ */
+public class SourcePatch {
+
+    private static final String DEFAULT_INDENT = "    ";
+
+    private final File file;
+    private final Charset charset;
+    private final byte[] bytes;
+    private final String content;
+    private final long lastModified;
+    private final String lineSeparator;
+    private SourceOutline outline;
+
+    private final List<Insertion> insertions = new ArrayList<Insertion>();
+
+    protected SourcePatch( File file, Charset charset, byte[] bytes, long lastModified ) {
+        this.file = file;
+        this.charset = charset;
+        this.bytes = bytes;
+        this.content = new String( bytes, charset );
+        this.lastModified = lastModified;
+        this.lineSeparator = content.contains("\r\n") ? "\r\n" : "\n";
+    }
+
+    public static SourcePatch read( File file, Charset charset ) throws IOException {
+        long lastModified = file.lastModified();
+        RandomAccessFile input = new RandomAccessFile( file, "r" );
+        try {
+            byte[] bytes = new byte[ (int) input.length() ];
+            input.readFully( bytes );
+            return new SourcePatch( file, charset, bytes, lastModified );
+        } finally {
+            input.close();
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    /**
+     * @return size in bytes of the file as it was read
+     */
+    public int getSize() {
+        return bytes.length;
+    }
+
+    public SourceOutline getOutline() {
+        if ( outline == null ) {
+            outline = SourceOutline.parse( content );
+        }
+
+        return outline;
+    }
+
+    /**
+     * @param className fully qualified name of a type declared in this file
+     */
+    public SourceOutline.TypeOutline getType( String className, String packageName ) {
+        String name = className;
+        if ( packageName != null && !packageName.isEmpty() && className.startsWith(packageName + ".") ) {
+            name = className.substring( packageName.length() + 1 );
+        }
+
+        SourceOutline.TypeOutline type = getOutline().getType( name );
+        if ( type == null ) {
+            throw new IllegalStateException("Unable to find declaration of " + className + " in "
+                    + file.getAbsolutePath() );
+        }
+
+        return type;
+    }
+
+    public boolean isEmpty() {
+        return insertions.isEmpty();
+    }
+
+    public void insert( int offset, String text ) {
+        insertions.add( new Insertion( offset, insertions.size(), text ) );
+    }
+
+    /**
+     * Appends a statement to the end of the body of a method.
+     */
+    public void insertStatement( SourceOutline.TypeOutline type, String methodName, String statement ) {
+        SourceOutline.MemberOutline method = type.getMethod( methodName );
+        if ( method == null || method.getBodyEnd() == -1 ) {
+            throw new IllegalStateException("Unable to find body of " + type.getName() + "." + methodName
+                    + "() in " + file.getAbsolutePath() );
+        }
+
+        insertBeforeClosingBrace( method.getBodyEnd(), getStatementIndent(method), statement, false );
+    }
+
+    /**
+     * Adds a field declaration after the last field of the type (or at the top of its body).
+     */
+    public void insertField( SourceOutline.TypeOutline type, String declaration ) {
+        SourceOutline.MemberOutline lastField = type.getLastField();
+        String indent = getMemberIndent( type );
+        int offset = lastField != null ? lastField.getEnd() : type.getBodyStart() + 1;
+        insert( offset, lineSeparator + indent + declaration );
+    }
+
+    /**
+     * Adds a member (method, nested type) declaration at the end of the type body. Multi-line
+     * declarations are expected to be indented relative to their first line.
+     */
+    public void insertMember( SourceOutline.TypeOutline type, String declaration ) {
+        insertBeforeClosingBrace( type.getBodyEnd(), getMemberIndent(type), declaration, true );
+    }
+
+    public String getLineSeparator() {
+        return lineSeparator;
+    }
+
+    /**
+     * @return original content with all the insertions applied
+     */
+    public String apply() {
+        List<Insertion> sorted = getSortedInsertions();
+        StringBuilder builder = new StringBuilder( content.length() + getInsertedLength() );
+        int position = 0;
+        for ( Insertion insertion : sorted ) {
+            builder.append( content, position, insertion.offset ).append( insertion.text );
+            position = insertion.offset;
+        }
+
+        return builder.append( content, position, content.length() ).toString();
+    }
+
+    /**
+     * @return whether the file has been modified since it was read
+     */
+    public boolean isModified() {
+        return file.lastModified() != lastModified || file.length() != bytes.length;
+    }
+
+    /**
+     * @return encoded patched content
+     */
+    public byte[] toBytes() {
+        return insertions.isEmpty() ? bytes.clone() : apply().getBytes( charset );
+    }
+
+    private void insertBeforeClosingBrace( int braceOffset, String indent, String text, boolean separate ) {
+        int lineStart = content.lastIndexOf( '\n', braceOffset - 1 ) + 1;
+        boolean braceOnOwnLine = content.substring( lineStart, braceOffset ).trim().isEmpty();
+
+        StringBuilder builder = new StringBuilder();
+        if ( braceOnOwnLine ) {
+            if ( separate && !isPreviousLineBlank(lineStart) ) {
+                builder.append( lineSeparator );
+            }
+            builder.append( indent( text, indent ) ).append( lineSeparator );
+            insert( lineStart, builder.toString() );
+        } else {
+            builder.append( lineSeparator ).append( indent( text, indent ) ).append( lineSeparator )
+                   .append( getLineIndent(braceOffset) );
+            insert( braceOffset, builder.toString() );
+        }
+    }
+
+    private boolean isPreviousLineBlank( int lineStart ) {
+        if ( lineStart == 0 ) {
+            return true;
+        }
+
+        int previousStart = content.lastIndexOf( '\n', lineStart - 2 ) + 1;
+        return content.substring( previousStart, lineStart ).trim().isEmpty();
+    }
+
+    private String indent( String text, String indent ) {
+        StringBuilder builder = new StringBuilder();
+        String[] lines = text.split("\r?\n");
+        for ( int i = 0; i < lines.length; i++ ) {
+            if ( i > 0 ) {
+                builder.append( lineSeparator );
+            }
+
+            if ( !lines[i].isEmpty() ) {
+                builder.append( indent ).append( lines[i] );
+            }
+        }
+
+        return builder.toString();
+    }
+
+    private String getMemberIndent( SourceOutline.TypeOutline type ) {
+        for ( SourceOutline.MemberOutline member : type.getMembers() ) {
+            String indent = getLineIndent( member.getStart() );
+            if ( indent != null ) {
+                return indent;
+            }
+        }
+
+        String typeIndent = getLineIndent( type.getStart() );
+        return ( typeIndent == null ? "" : typeIndent ) + DEFAULT_INDENT;
+    }
+
+    private String getStatementIndent( SourceOutline.MemberOutline method ) {
+        int position = method.getBodyStart() + 1;
+        while ( position < method.getBodyEnd() && Character.isWhitespace( content.charAt(position) ) ) {
+            position++;
+        }
+
+        if ( position < method.getBodyEnd() ) {
+            String indent = getLineIndent( position );
+            if ( indent != null ) {
+                return indent;
+            }
+        }
+
+        String methodIndent = getLineIndent( method.getStart() );
+        return ( methodIndent == null ? "" : methodIndent ) + DEFAULT_INDENT;
+    }
+
+    /**
+     * @return leading whitespace of the line the offset belongs to, provided nothing but
+     *         whitespace precedes the offset on that line
+     */
+    private String getLineIndent( int offset ) {
+        int lineStart = content.lastIndexOf( '\n', offset - 1 ) + 1;
+        String prefix = content.substring( lineStart, offset );
+        return prefix.trim().isEmpty() ? prefix : null;
+    }
+
+    private List<Insertion> getSortedInsertions() {
+        List<Insertion> sorted = new ArrayList<Insertion>( insertions );
+        Collections.sort( sorted );
+        return sorted;
+    }
+
+    private int getInsertedLength() {
+        int length = 0;
+        for ( Insertion insertion : insertions ) {
+            length += insertion.text.length();
+        }
+
+        return length;
+    }
+
+    private static class Insertion implements Comparable<Insertion> {
+        private final int offset;
+        private final int sequence;
+        private final String text;
+
+        Insertion( int offset, int sequence, String text ) {
+            this.offset = offset;
+            this.sequence = sequence;
+            this.text = text;
+        }
+
+        @Override
+        public int compareTo( Insertion other ) {
+            if ( offset != other.offset ) {
+                return offset < other.offset ? -1 : 1;
+            }
+
+            return sequence < other.sequence ? -1 : ( sequence == other.sequence ? 0 : 1 );
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.redshape.maven.plugins.gwt.sources;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Byte-level check telling whether a source may declare one of the given classes, run
+ * before handing the file to the (much more expensive) QDox parser.
+ *
+ * A file passes when it contains the simple name of a class as a whole word preceded by a
+ * <code>class</code>, <code>interface</code> or <code>enum</code> keyword, whitespace and
+ * comments in between being skipped. The check never rejects a file that declares the
+ * class: when a comment can not be delimited the file passes as well.
+ */
+public class SourcePrefilter {
+
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    /**
+     * Files below this size are read on the heap, larger ones are memory-mapped
+     */
+    private static final int MAP_THRESHOLD = 64 * 1024;
+
+    private static final byte[][] KEYWORDS = {
+        "class".getBytes( CHARSET ), "interface".getBytes( CHARSET ), "enum".getBytes( CHARSET )
+    };
+
+    private static final byte[] BLOCK_COMMENT_START = "/*".getBytes( CHARSET );
+    private static final byte[] BLOCK_COMMENT_END = "*/".getBytes( CHARSET );
+
+    private final List<byte[]> simpleNames = new ArrayList<byte[]>();
+
+    public SourcePrefilter( Collection<String> classNames ) {
+        for ( String className : classNames ) {
+            simpleNames.add( className.substring( className.lastIndexOf('.') + 1 ).getBytes( CHARSET ) );
+        }
+    }
+
+    /**
+     * @return false when the file certainly declares none of the classes
+     */
+    public boolean matches( File file ) throws IOException {
+        if ( simpleNames.isEmpty() ) {
+            return false;
+        }
+
+        RandomAccessFile input = new RandomAccessFile( file, "r" );
+        try {
+            FileChannel channel = input.getChannel();
+            long size = channel.size();
+            if ( size == 0 ) {
+                return false;
+            } else if ( size > Integer.MAX_VALUE ) {
+                return true;
+            }
+
+            ByteBuffer buffer;
+            if ( size < MAP_THRESHOLD ) {
+                buffer = ByteBuffer.allocate( (int) size );
+                while ( buffer.hasRemaining() && channel.read(buffer) != -1 ) {
+                }
+                buffer.flip();
+            } else {
+                buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, size );
+            }
+
+            return matches( buffer );
+        } finally {
+            input.close();
+        }
+    }
+
+    protected boolean matches( ByteBuffer buffer ) {
+        for ( byte[] simpleName : simpleNames ) {
+            int from = 0;
+            int position;
+            while ( -1 != ( position = indexOf( buffer, simpleName, from ) ) ) {
+                if ( isWord( buffer, position, simpleName.length ) && isPrecededByKeyword( buffer, position ) ) {
+                    return true;
+                }
+
+                from = position + 1;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isPrecededByKeyword( ByteBuffer buffer, int position ) {
+        int end = position;
+        while ( end > 0 ) {
+            byte b = buffer.get( end - 1 );
+            if ( b == '\n' || b == '\r' ) {
+                end = getLineCommentStart( buffer, end - 1 );
+            } else if ( isWhitespace(b) ) {
+                end--;
+            } else if ( b == '/' && end > 1 && buffer.get( end - 2 ) == '*' ) {
+                end = lastIndexOf( buffer, BLOCK_COMMENT_START, end - 2 );
+                if ( end == -1 ) {
+                    return true;
+                }
+            } else {
+                break;
+            }
+        }
+
+        if ( end == 0 ) {
+            return false;
+        }
+
+        for ( byte[] keyword : KEYWORDS ) {
+            int start = end - keyword.length;
+            if ( start >= 0 && regionMatches( buffer, start, keyword ) && isWord( buffer, start, keyword.length ) ) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return position of the line comment ending the line that ends at the given line
+     *         terminator, or the position of the terminator if the line has none
+     */
+    private static int getLineCommentStart( ByteBuffer buffer, int lineEnd ) {
+        int lineStart = lineEnd;
+        while ( lineStart > 0 && buffer.get(lineStart - 1) != '\n' && buffer.get(lineStart - 1) != '\r' ) {
+            lineStart--;
+        }
+
+        byte quote = 0;
+        for ( int i = lineStart; i < lineEnd - 1; i++ ) {
+            byte b = buffer.get( i );
+            if ( quote != 0 ) {
+                if ( b == '\\' ) {
+                    i++;
+                } else if ( b == quote ) {
+                    quote = 0;
+                }
+            } else if ( b == '"' || b == '\'' ) {
+                quote = b;
+            } else if ( b == '/' && buffer.get(i + 1) == '/' ) {
+                return i;
+            } else if ( b == '/' && buffer.get(i + 1) == '*' ) {
+                int blockEnd = indexOf( buffer, BLOCK_COMMENT_END, i + 2 );
+                if ( blockEnd == -1 || blockEnd >= lineEnd ) {
+                    return lineEnd;
+                }
+
+                i = blockEnd + 1;
+            }
+        }
+
+        return lineEnd;
+    }
+
+    private static int lastIndexOf( ByteBuffer buffer, byte[] pattern, int before ) {
+        for ( int i = before - pattern.length; i >= 0; i-- ) {
+            if ( regionMatches( buffer, i, pattern ) ) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int indexOf( ByteBuffer buffer, byte[] pattern, int from ) {
+        int limit = buffer.limit() - pattern.length;
+        byte first = pattern[0];
+        for ( int i = from; i <= limit; i++ ) {
+            if ( buffer.get(i) == first && regionMatches( buffer, i, pattern ) ) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean regionMatches( ByteBuffer buffer, int offset, byte[] pattern ) {
+        for ( int j = 1; j < pattern.length; j++ ) {
+            if ( buffer.get(offset + j) != pattern[j] ) {
+                return false;
+            }
+        }
+
+        return buffer.get( offset ) == pattern[0];
+    }
+
+    private static boolean isWord( ByteBuffer buffer, int offset, int length ) {
+        return ( offset == 0 || !isIdentifierPart( buffer.get(offset - 1) ) )
+                && ( offset + length >= buffer.limit() || !isIdentifierPart( buffer.get(offset + length) ) );
+    }
+
+    private static boolean isIdentifierPart( byte b ) {
+        return ( b >= 'a' && b <= 'z' ) || ( b >= 'A' && b <= 'Z' ) || ( b >= '0' && b <= '9' )
+                || b == '_' || b == '$' || b < 0;
+    }
+
+    private static boolean isWhitespace( byte b ) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f';
+    }
+}
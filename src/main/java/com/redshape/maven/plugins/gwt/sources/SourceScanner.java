@@ -0,0 +1,207 @@
+package com.redshape.maven.plugins.gwt.sources;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Walks source trees in parallel, forking a task per subdirectory so that idle workers
+ * steal whole subtrees. Directory listings are taken from the {@link SourceIndex} while the
+ * directory is unchanged and read through a <code>DirectoryStream</code> otherwise.
+ *
+ * The visitor is called concurrently from the pool threads. Scanners share a dedicated pool
+ * of at most {@link #MAX_THREADS} daemon threads rather than the common pool, whose workers
+ * the build and the other plugins of the same JVM compete for, and which a blocking stat
+ * on a slow file system would starve.
+ */
+public class SourceScanner {
+
+    private static final String SOURCE_EXTENSION = ".java";
+    private static final int MAX_THREADS = 8;
+
+    private static final ForkJoinPool SHARED_POOL = new ForkJoinPool(
+            Math.min( MAX_THREADS, Runtime.getRuntime().availableProcessors() ), new WorkerThreadFactory(), null, false );
+
+    public interface Visitor {
+
+        /**
+         * @return false to stop the scan
+         */
+        boolean visitFile( File file, File sourceRoot );
+    }
+
+    private final SourceIndex index;
+    private final ForkJoinPool pool;
+
+    public SourceScanner( SourceIndex index ) {
+        this( index, SHARED_POOL );
+    }
+
+    public SourceScanner( SourceIndex index, ForkJoinPool pool ) {
+        this.index = index;
+        this.pool = pool;
+    }
+
+    /**
+     * @return true when the visitor stopped the scan
+     */
+    public boolean scan( Collection<File> sourceRoots, Visitor visitor ) {
+        AtomicBoolean stopped = new AtomicBoolean();
+        List<DirectoryTask> tasks = new ArrayList<DirectoryTask>();
+        for ( File sourceRoot : sourceRoots ) {
+            tasks.add( new DirectoryTask( sourceRoot, sourceRoot, visitor, stopped ) );
+        }
+
+        pool.invoke( new RootsTask( tasks ) );
+        return stopped.get();
+    }
+
+    /**
+     * @return listing of the given directory, cached in the index while the directory is
+     *         unchanged, or <code>null</code> if it can not be read
+     */
+    public SourceIndex.DirectoryEntry list( File directory ) {
+        SourceIndex.DirectoryEntry listing = index.getDirectory( directory );
+        if ( listing != null ) {
+            return listing;
+        }
+
+        List<String> fileNames = new ArrayList<String>();
+        List<String> directoryNames = new ArrayList<String>();
+        try {
+            DirectoryStream<Path> stream = Files.newDirectoryStream( directory.toPath() );
+            try {
+                for ( Path child : stream ) {
+                    String name = child.getFileName().toString();
+                    if ( name.endsWith(SOURCE_EXTENSION) ) {
+                        fileNames.add( name );
+                    } else if ( Files.isDirectory(child) ) {
+                        directoryNames.add( name );
+                    }
+                }
+            } finally {
+                stream.close();
+            }
+        } catch ( IOException e ) {
+            return null;
+        }
+
+        return index.putDirectory( directory, fileNames, directoryNames );
+    }
+
+    /**
+     * Converts a source or class file path into the name of the class it is expected to
+     * declare, in a single pass over the characters.
+     */
+    public static String toClassName( String sourceRoot, String fileName ) {
+        int start = sourceRoot.isEmpty() ? 0 : fileName.indexOf( sourceRoot );
+        start = start == -1 ? 0 : start + sourceRoot.length();
+
+        int end = fileName.length();
+        if ( fileName.endsWith(SOURCE_EXTENSION) || fileName.endsWith(".class") ) {
+            end = fileName.lastIndexOf('.');
+        }
+
+        while ( start < end && isSeparator( fileName.charAt(start) ) ) {
+            start++;
+        }
+
+        char[] result = new char[ Math.max( 0, end - start ) ];
+        for ( int i = start; i < end; i++ ) {
+            char c = fileName.charAt(i);
+            result[i - start] = isSeparator(c) ? '.' : c;
+        }
+
+        return new String( result );
+    }
+
+    private static boolean isSeparator( char c ) {
+        return c == '/' || c == '\\' || c == '.';
+    }
+
+    private static class WorkerThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+
+        @Override
+        public ForkJoinWorkerThread newThread( ForkJoinPool pool ) {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread( pool );
+            thread.setName( "gwtp-source-scanner-" + thread.getPoolIndex() );
+            thread.setDaemon( true );
+            return thread;
+        }
+    }
+
+    private static class RootsTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<DirectoryTask> tasks;
+
+        RootsTask( List<DirectoryTask> tasks ) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll( tasks );
+        }
+    }
+
+    private class DirectoryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final File directory;
+        private final File sourceRoot;
+        private final Visitor visitor;
+        private final AtomicBoolean stopped;
+
+        DirectoryTask( File directory, File sourceRoot, Visitor visitor, AtomicBoolean stopped ) {
+            this.directory = directory;
+            this.sourceRoot = sourceRoot;
+            this.visitor = visitor;
+            this.stopped = stopped;
+        }
+
+        @Override
+        protected void compute() {
+            if ( stopped.get() ) {
+                return;
+            }
+
+            SourceIndex.DirectoryEntry listing = list( directory );
+            if ( listing == null ) {
+                return;
+            }
+
+            List<DirectoryTask> subtasks = new ArrayList<DirectoryTask>( listing.getDirectoryNames().size() );
+            for ( String directoryName : listing.getDirectoryNames() ) {
+                subtasks.add( new DirectoryTask( new File( directory, directoryName ), sourceRoot, visitor, stopped ) );
+            }
+
+            for ( DirectoryTask subtask : subtasks ) {
+                subtask.fork();
+            }
+
+            for ( String fileName : listing.getFileNames() ) {
+                if ( stopped.get() ) {
+                    break;
+                }
+
+                if ( !visitor.visitFile( new File( directory, fileName ), sourceRoot ) ) {
+                    stopped.set( true );
+                }
+            }
+
+            for ( DirectoryTask subtask : subtasks ) {
+                subtask.join();
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.redshape.maven.plugins.gwt.sources;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Watches source trees for changes on a background thread. Directories created after the
+ * watcher has been started are registered as they appear.
+ */
+public class SourceWatcher implements Runnable {
+
+    public interface Listener {
+
+        /**
+         * @param files changed files, or <code>null</code> when events have been lost and
+         *              anything may have changed
+         */
+        void sourcesChanged( Set<File> files );
+    }
+
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new ConcurrentHashMap<WatchKey, Path>();
+    private final Listener listener;
+    private final Log log;
+    private Thread thread;
+
+    public SourceWatcher( Listener listener, Log log ) throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.listener = listener;
+        this.log = log;
+    }
+
+    public void start( Collection<File> sourceRoots ) throws IOException {
+        for ( File sourceRoot : sourceRoots ) {
+            if ( sourceRoot.isDirectory() ) {
+                registerTree( sourceRoot.toPath() );
+            }
+        }
+
+        thread = new Thread( this, "gwtp-generator-watcher" );
+        thread.setDaemon( true );
+        thread.start();
+    }
+
+    public void close() {
+        try {
+            watchService.close();
+        } catch ( IOException e ) {
+            log.debug("Failed to close source watcher", e );
+        }
+
+        if ( thread != null ) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        while ( true ) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch ( InterruptedException e ) {
+                return;
+            } catch ( ClosedWatchServiceException e ) {
+                return;
+            }
+
+            Set<File> changed = new HashSet<File>();
+            boolean overflow = false;
+            do {
+                overflow |= processEvents( key, changed );
+            } while ( null != ( key = watchService.poll() ) );
+
+            listener.sourcesChanged( overflow ? null : changed );
+        }
+    }
+
+    /**
+     * @return true if events have been lost
+     */
+    private boolean processEvents( WatchKey key, Set<File> changed ) {
+        Path directory = directories.get( key );
+        boolean overflow = false;
+        for ( WatchEvent<?> event : key.pollEvents() ) {
+            if ( event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null ) {
+                overflow = true;
+                continue;
+            }
+
+            Path path = directory.resolve( (Path) event.context() );
+            changed.add( path.toFile() );
+            if ( event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path) ) {
+                try {
+                    registerTree( path );
+                } catch ( IOException e ) {
+                    log.debug("Failed to watch directory " + path, e );
+                }
+            }
+        }
+
+        if ( !key.reset() ) {
+            directories.remove( key );
+        }
+
+        return overflow;
+    }
+
+    private void registerTree( Path root ) throws IOException {
+        Files.walkFileTree( root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory( Path directory, BasicFileAttributes attributes )
+                    throws IOException {
+                WatchKey key = directory.register( watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE );
+                directories.put( key, directory );
+                return FileVisitResult.CONTINUE;
+            }
+        } );
+    }
+}
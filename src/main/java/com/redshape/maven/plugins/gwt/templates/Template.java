@@ -0,0 +1,87 @@
+package com.redshape.maven.plugins.gwt.templates;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Template compiled into alternating literal and placeholder segments. Placeholders are
+ * written as <code>${name}</code>; the ones without a value are rendered verbatim.
+ *
+ * Instances are immutable and safe to share between threads.
+ */
+public class Template {
+
+    private static final String PLACEHOLDER_START = "${";
+    private static final char PLACEHOLDER_END = '}';
+
+    private final String name;
+    private final String source;
+    private final String[] literals;
+    private final String[] placeholders;
+    private final int literalsLength;
+
+    protected Template( String name, String source, String[] literals, String[] placeholders ) {
+        this.name = name;
+        this.source = source;
+        this.literals = literals;
+        this.placeholders = placeholders;
+
+        int length = 0;
+        for ( String literal : literals ) {
+            length += literal.length();
+        }
+        this.literalsLength = length;
+    }
+
+    public static Template compile( String name, String source ) {
+        List<String> literals = new ArrayList<String>();
+        List<String> placeholders = new ArrayList<String>();
+
+        int position = 0;
+        int start;
+        while ( -1 != ( start = source.indexOf( PLACEHOLDER_START, position ) ) ) {
+            int end = source.indexOf( PLACEHOLDER_END, start + PLACEHOLDER_START.length() );
+            if ( end == -1 ) {
+                break;
+            }
+
+            literals.add( source.substring( position, start ) );
+            placeholders.add( source.substring( start + PLACEHOLDER_START.length(), end ).trim() );
+            position = end + 1;
+        }
+        literals.add( source.substring( position ) );
+
+        return new Template( name, source, literals.toArray( new String[literals.size()] ),
+                placeholders.toArray( new String[placeholders.size()] ) );
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String render( Map<String, String> values ) {
+        StringBuilder builder = new StringBuilder( literalsLength + placeholders.length * 32 );
+        render( values, builder );
+        return builder.toString();
+    }
+
+    public void render( Map<String, String> values, StringBuilder builder ) {
+        for ( int i = 0; i < placeholders.length; i++ ) {
+            builder.append( literals[i] );
+
+            String value = values.get( placeholders[i] );
+            if ( value != null ) {
+                builder.append( value );
+            } else {
+                builder.append( PLACEHOLDER_START ).append( placeholders[i] ).append( PLACEHOLDER_END );
+            }
+        }
+
+        builder.append( literals[placeholders.length] );
+    }
+}
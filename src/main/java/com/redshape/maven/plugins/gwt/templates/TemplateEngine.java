@@ -0,0 +1,118 @@
+package com.redshape.maven.plugins.gwt.templates;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Loads and compiles templates once. A template found in the project templates directory
+ * overrides the one of the same name bundled with the plugin.
+ *
+ * Line breaks are normalized to <code>\n</code> on load. Bundled templates are cached per
+ * class loader for the lifetime of the loader; overrides are cached by path and recompiled
+ * when the file modification time changes.
+ */
+public class TemplateEngine {
+
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private static final Map<ClassLoader, ConcurrentMap<String, Template>> BUNDLED =
+            new WeakHashMap<ClassLoader, ConcurrentMap<String, Template>>();
+
+    private static final ConcurrentMap<String, OverrideEntry> OVERRIDES =
+            new ConcurrentHashMap<String, OverrideEntry>();
+
+    private final ClassLoader classLoader;
+    private final File templatesDirectory;
+
+    /**
+     * @param templatesDirectory directory with project specific templates, may be <code>null</code>
+     */
+    public TemplateEngine( ClassLoader classLoader, File templatesDirectory ) {
+        this.classLoader = classLoader;
+        this.templatesDirectory = templatesDirectory;
+    }
+
+    public Template getTemplate( String name ) throws IOException {
+        if ( templatesDirectory != null ) {
+            File file = new File( templatesDirectory, name );
+            if ( file.isFile() ) {
+                return getOverride( name, file );
+            }
+        }
+
+        ConcurrentMap<String, Template> templates = getBundledTemplates();
+        Template template = templates.get( name );
+        if ( template == null ) {
+            InputStream stream = classLoader.getResourceAsStream( name );
+            if ( stream == null ) {
+                throw new IOException("Template not found: " + name );
+            }
+
+            Template compiled = Template.compile( name, read(stream) );
+            template = templates.putIfAbsent( name, compiled );
+            if ( template == null ) {
+                template = compiled;
+            }
+        }
+
+        return template;
+    }
+
+    private ConcurrentMap<String, Template> getBundledTemplates() {
+        synchronized ( BUNDLED ) {
+            ConcurrentMap<String, Template> templates = BUNDLED.get( classLoader );
+            if ( templates == null ) {
+                templates = new ConcurrentHashMap<String, Template>();
+                BUNDLED.put( classLoader, templates );
+            }
+
+            return templates;
+        }
+    }
+
+    private Template getOverride( String name, File file ) throws IOException {
+        String path = file.getAbsolutePath();
+        long lastModified = file.lastModified();
+
+        OverrideEntry entry = OVERRIDES.get( path );
+        if ( entry == null || entry.lastModified != lastModified ) {
+            entry = new OverrideEntry( lastModified, Template.compile( name, read( new FileInputStream(file) ) ) );
+            OVERRIDES.put( path, entry );
+        }
+
+        return entry.template;
+    }
+
+    private static String read( InputStream stream ) throws IOException {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream( Math.max( 512, stream.available() ) );
+            byte[] chunk = new byte[4096];
+            int read;
+            while ( -1 != ( read = stream.read(chunk) ) ) {
+                buffer.write( chunk, 0, read );
+            }
+
+            return new String( buffer.toByteArray(), CHARSET ).replace( "\r\n", "\n" );
+        } finally {
+            stream.close();
+        }
+    }
+
+    private static class OverrideEntry {
+        private final long lastModified;
+        private final Template template;
+
+        OverrideEntry( long lastModified, Template template ) {
+            this.lastModified = lastModified;
+            this.template = template;
+        }
+    }
+}
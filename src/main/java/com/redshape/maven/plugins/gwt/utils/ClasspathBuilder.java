@@ -7,6 +7,8 @@ import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.logging.AbstractLogEnabled;
 
 import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.util.*;
 
 import static org.apache.maven.artifact.Artifact.*;
@@ -14,6 +16,12 @@ import static org.apache.maven.artifact.Artifact.*;
 /**
  * Util to consolidate classpath manipulation stuff in one place.
  *
+ * Resolved lists are memoized per project and scope, and reused for as long as the inputs
+ * they were built from (artifacts, their files, source roots and resource directories,
+ * including the ones of referenced projects) are the very same objects; any replaced or
+ * added input invalidates the entry. Entries are de-duplicated by canonical path, the
+ * canonical paths being memoized along with the lists of the project until its inputs change.
+ *
  * @version $Id$
  */
 @Component( role = ClasspathBuilder.class )
@@ -21,96 +29,196 @@ public class ClasspathBuilder
     extends AbstractLogEnabled
 {
 
+    private static final String CLASSPATH = "classpath:";
+
+    private static final String SOURCES = "sources:";
+
+    private static final String RESOURCES = "resources:";
+
+    private final Map<MavenProject, ProjectCache> caches = new WeakHashMap<MavenProject, ProjectCache>();
+
     @SuppressWarnings( "unchecked" )
     public Collection<File> buildClasspathList( final MavenProject project, final String scope,
                                                 Set<Artifact> artifacts )
         throws ClasspathBuilderException
     {
-        getLogger().debug( "establishing classpath list (scope = " + scope + ")" );
-
-        Set<File> items = new LinkedHashSet<File>();
-
-        items.add( new File( project.getBuild().getOutputDirectory() ) );
-        addSources( items, project.getCompileSourceRoots() );
-        addResources( items, project.getResources() );
+        if ( !scope.equals( SCOPE_TEST ) && !scope.equals( SCOPE_COMPILE ) && !scope.equals( SCOPE_RUNTIME ) )
+        {
+            throw new ClasspathBuilderException( "unsupported scope " + scope );
+        }
 
-        if ( scope.equals( SCOPE_TEST ) )
+        ProjectCache cache = getCache( project );
+        synchronized ( cache )
         {
-            addSources( items, project.getTestCompileSourceRoots() );
-            addResources( items, project.getTestResources() );
-            items.add( new File( project.getBuild().getTestOutputDirectory() ) );
+            Signature signature = cache.newSignature( CLASSPATH + scope );
+            signature.add( project.getBuild().getOutputDirectory() );
+            signature.addAll( project.getCompileSourceRoots() );
+            addResourcesSignature( signature, project.getResources() );
+            if ( scope.equals( SCOPE_TEST ) )
+            {
+                signature.add( project.getBuild().getTestOutputDirectory() );
+                signature.addAll( project.getTestCompileSourceRoots() );
+                addResourcesSignature( signature, project.getTestResources() );
+            }
 
             for ( Artifact artifact : artifacts )
             {
-                items.add( artifact.getFile() );
+                signature.add( artifact );
+                signature.add( artifact.getFile() );
+                signature.add( artifact.getScope() );
             }
-        }
-        else if ( scope.equals( SCOPE_COMPILE ) )
-        {
-            getLogger().debug( "candidate artifacts : " + artifacts.size() );
-            for ( Artifact artifact : artifacts )
+
+            List<File> cached = cache.get( CLASSPATH + scope, signature );
+            if ( cached != null )
+            {
+                return new LinkedHashSet<File>( cached );
+            }
+
+            getLogger().debug( "establishing classpath list (scope = " + scope + ")" );
+
+            Map<String, File> items = new LinkedHashMap<String, File>();
+
+            add( cache, items, new File( project.getBuild().getOutputDirectory() ) );
+            addSources( cache, items, project.getCompileSourceRoots() );
+            addResources( cache, items, project.getResources() );
+
+            if ( scope.equals( SCOPE_TEST ) )
             {
-                String artifactScope = artifact.getScope();
-                if ( SCOPE_COMPILE.equals( artifactScope ) || SCOPE_PROVIDED.equals( artifactScope )
-                    || SCOPE_SYSTEM.equals( artifactScope ) )
+                addSources( cache, items, project.getTestCompileSourceRoots() );
+                addResources( cache, items, project.getTestResources() );
+                add( cache, items, new File( project.getBuild().getTestOutputDirectory() ) );
+
+                for ( Artifact artifact : artifacts )
                 {
-                    items.add( artifact.getFile() );
+                    add( cache, items, artifact.getFile() );
                 }
             }
-        }
-        else if ( scope.equals( SCOPE_RUNTIME ) )
-        {
-            for ( Artifact artifact : artifacts )
+            else if ( scope.equals( SCOPE_COMPILE ) )
             {
-                getLogger().debug( "candidate artifact : " + artifact );
-                if ( !artifact.getScope().equals( SCOPE_TEST ) && artifact.getArtifactHandler().isAddedToClasspath() )
+                getLogger().debug( "candidate artifacts : " + artifacts.size() );
+                for ( Artifact artifact : artifacts )
                 {
-                    items.add( artifact.getFile() );
+                    String artifactScope = artifact.getScope();
+                    if ( SCOPE_COMPILE.equals( artifactScope ) || SCOPE_PROVIDED.equals( artifactScope )
+                        || SCOPE_SYSTEM.equals( artifactScope ) )
+                    {
+                        add( cache, items, artifact.getFile() );
+                    }
                 }
             }
+            else
+            {
+                for ( Artifact artifact : artifacts )
+                {
+                    getLogger().debug( "candidate artifact : " + artifact );
+                    if ( !artifact.getScope().equals( SCOPE_TEST )
+                        && artifact.getArtifactHandler().isAddedToClasspath() )
+                    {
+                        add( cache, items, artifact.getFile() );
+                    }
+                }
+            }
+
+            List<File> files = cache.put( CLASSPATH + scope, signature, items.values() );
+            return new LinkedHashSet<File>( files );
         }
-        else
-        {
-            throw new ClasspathBuilderException( "unsupported scope " + scope );
-        }
-        return items;
     }
 
     public void addSourcesWithActiveProjects( final MavenProject project, final Collection<File> items,
                                               final String scope )
     {
-        final List<Artifact> scopeArtifacts = getScopeArtifacts( project, scope );
+        items.addAll( resolveWithActiveProjects( project, scope, false ) );
+    }
 
-        addSources( items, getSourceRoots( project, scope ) );
+    public void addResourcesWithActiveProjects( final MavenProject project, final Collection<File> items,
+                                                final String scope )
+    {
+        items.addAll( resolveWithActiveProjects( project, scope, true ) );
+    }
 
-        for ( Artifact artifact : scopeArtifacts )
+    /**
+     * Drops everything memoized for the given project.
+     */
+    public void invalidate( final MavenProject project )
+    {
+        synchronized ( caches )
         {
-            String projectReferenceId =
-                getProjectReferenceId( artifact.getGroupId(), artifact.getArtifactId(), artifact.getVersion() );
-            MavenProject refProject = (MavenProject) project.getProjectReferences().get( projectReferenceId );
-            if ( refProject != null )
-            {
-                addSources( items, getSourceRoots( refProject, scope ) );
-            }
+            caches.remove( project );
         }
     }
 
-    public void addResourcesWithActiveProjects( final MavenProject project, final Collection<File> items,
-                                                final String scope )
+    private List<File> resolveWithActiveProjects( final MavenProject project, final String scope,
+                                                  final boolean resources )
     {
         final List<Artifact> scopeArtifacts = getScopeArtifacts( project, scope );
 
-        addResources( items, getResources( project, scope ) );
+        ProjectCache cache = getCache( project );
+        synchronized ( cache )
+        {
+            Map<ProjectKey, WeakReference<MavenProject>> references = cache.getReferences( project );
+
+            List<MavenProject> projects = new ArrayList<MavenProject>();
+            projects.add( project );
+            for ( Artifact artifact : scopeArtifacts )
+            {
+                WeakReference<MavenProject> reference = references.isEmpty() ? null
+                    : references.get( new ProjectKey( artifact.getGroupId(), artifact.getArtifactId(),
+                                                      artifact.getVersion() ) );
+                MavenProject refProject = reference == null ? null : reference.get();
+                if ( refProject != null )
+                {
+                    projects.add( refProject );
+                }
+            }
+
+            String key = ( resources ? RESOURCES : SOURCES ) + scope;
+            Signature signature = cache.newSignature( key );
+            for ( MavenProject item : projects )
+            {
+                if ( resources )
+                {
+                    addResourcesSignature( signature, getResources( item, scope ) );
+                }
+                else
+                {
+                    signature.addAll( getSourceRoots( item, scope ) );
+                }
+            }
+
+            List<File> cached = cache.get( key, signature );
+            if ( cached != null )
+            {
+                return cached;
+            }
 
-        for ( Artifact artifact : scopeArtifacts )
+            Map<String, File> items = new LinkedHashMap<String, File>();
+            for ( MavenProject item : projects )
+            {
+                if ( resources )
+                {
+                    addResources( cache, items, getResources( item, scope ) );
+                }
+                else
+                {
+                    addSources( cache, items, getSourceRoots( item, scope ) );
+                }
+            }
+
+            return cache.put( key, signature, items.values() );
+        }
+    }
+
+    private ProjectCache getCache( final MavenProject project )
+    {
+        synchronized ( caches )
         {
-            String projectReferenceId =
-                getProjectReferenceId( artifact.getGroupId(), artifact.getArtifactId(), artifact.getVersion() );
-            MavenProject refProject = (MavenProject) project.getProjectReferences().get( projectReferenceId );
-            if ( refProject != null )
+            ProjectCache cache = caches.get( project );
+            if ( cache == null )
             {
-                addResources( items, getResources( refProject, scope ) );
+                cache = new ProjectCache();
+                caches.put( project, cache );
             }
+            return cache;
         }
     }
 
@@ -175,24 +283,240 @@ public class ClasspathBuilder
         }
     }
 
-    private void addSources( final Collection<File> items, final Collection<String> sourceRoots )
+    private void addSources( final ProjectCache cache, final Map<String, File> items,
+                             final Collection<String> sourceRoots )
     {
         for ( String path : sourceRoots )
         {
-            items.add( new File( path ) );
+            add( cache, items, new File( path ) );
         }
     }
 
-    private void addResources( final Collection<File> items, final Collection<Resource> resources )
+    private void addResources( final ProjectCache cache, final Map<String, File> items,
+                               final Collection<Resource> resources )
     {
         for ( Resource resource : resources )
         {
-            items.add( new File( resource.getDirectory() ) );
+            add( cache, items, new File( resource.getDirectory() ) );
+        }
+    }
+
+    private static void addResourcesSignature( final Signature signature, final Collection<Resource> resources )
+    {
+        for ( Resource resource : resources )
+        {
+            signature.add( resource.getDirectory() );
+        }
+    }
+
+    private void add( final ProjectCache cache, final Map<String, File> items, final File file )
+    {
+        if ( file == null )
+        {
+            return;
+        }
+
+        File canonicalFile = cache.getCanonicalFile( file );
+        if ( !items.containsKey( canonicalFile.getPath() ) )
+        {
+            items.put( canonicalFile.getPath(), canonicalFile );
         }
     }
 
-    private String getProjectReferenceId( final String groupId, final String artifactId, final String version )
+    /**
+     * Memoized lists of a project, each valid for the exact inputs it has been built from.
+     */
+    private static class ProjectCache
     {
-        return groupId + ":" + artifactId + ":" + version;
+        private final Map<String, Object[]> signatures = new HashMap<String, Object[]>();
+
+        private final Map<String, List<File>> entries = new HashMap<String, List<File>>();
+
+        private final Map<String, File> canonicalFiles = new HashMap<String, File>();
+
+        private WeakReference<Map<?, ?>> referencesSource;
+
+        private int referencesSize;
+
+        private Map<ProjectKey, WeakReference<MavenProject>> references;
+
+        Signature newSignature( final String key )
+        {
+            return new Signature( signatures.get( key ) );
+        }
+
+        /**
+         * @return memoized list, or <code>null</code> when it has to be built again. Changed
+         *         inputs also drop the canonical paths resolved for the previous ones.
+         */
+        List<File> get( final String key, final Signature signature )
+        {
+            if ( signature.matches() )
+            {
+                return entries.get( key );
+            }
+
+            if ( signatures.containsKey( key ) )
+            {
+                canonicalFiles.clear();
+            }
+            return null;
+        }
+
+        List<File> put( final String key, final Signature signature, final Collection<File> files )
+        {
+            List<File> result = Collections.unmodifiableList( new ArrayList<File>( files ) );
+            signatures.put( key, signature.toArray() );
+            entries.put( key, result );
+            return result;
+        }
+
+        File getCanonicalFile( final File file )
+        {
+            String path = file.getAbsolutePath();
+            File canonicalFile = canonicalFiles.get( path );
+            if ( canonicalFile == null )
+            {
+                try
+                {
+                    canonicalFile = file.getCanonicalFile();
+                }
+                catch ( IOException e )
+                {
+                    canonicalFile = file.getAbsoluteFile();
+                }
+                canonicalFiles.put( path, canonicalFile );
+            }
+            return canonicalFile;
+        }
+
+        /**
+         * @return project references keyed by their coordinates, rebuilt only when the
+         *         references map of the project is replaced or resized. Referenced projects
+         *         are held weakly, as they are cache keys themselves.
+         */
+        @SuppressWarnings( "unchecked" )
+        Map<ProjectKey, WeakReference<MavenProject>> getReferences( final MavenProject project )
+        {
+            Map<String, MavenProject> source = project.getProjectReferences();
+            if ( references == null || referencesSource.get() != source || referencesSize != source.size() )
+            {
+                references = new HashMap<ProjectKey, WeakReference<MavenProject>>();
+                for ( MavenProject refProject : source.values() )
+                {
+                    references.put( new ProjectKey( refProject.getGroupId(), refProject.getArtifactId(),
+                                                    refProject.getVersion() ),
+                                    new WeakReference<MavenProject>( refProject ) );
+                }
+                referencesSource = new WeakReference<Map<?, ?>>( source );
+                referencesSize = source.size();
+            }
+            return references;
+        }
+    }
+
+    /**
+     * Inputs of a memoized list, compared by identity with the inputs of the cached entry as
+     * they are added, so that nothing is allocated as long as they match.
+     */
+    private static class Signature
+    {
+        private final Object[] cached;
+
+        private Object[] values;
+
+        private int size;
+
+        private boolean matching;
+
+        Signature( final Object[] cached )
+        {
+            this.cached = cached;
+            this.matching = cached != null;
+            this.values = matching ? null : new Object[16];
+        }
+
+        void add( final Object value )
+        {
+            if ( matching )
+            {
+                if ( size < cached.length && cached[size] == value )
+                {
+                    size++;
+                    return;
+                }
+
+                matching = false;
+                values = Arrays.copyOf( cached, size * 2 + 16 );
+            }
+
+            if ( size == values.length )
+            {
+                values = Arrays.copyOf( values, size * 2 );
+            }
+            values[size++] = value;
+        }
+
+        void addAll( final Collection<?> values )
+        {
+            for ( Object value : values )
+            {
+                add( value );
+            }
+        }
+
+        boolean matches()
+        {
+            return matching && size == cached.length;
+        }
+
+        Object[] toArray()
+        {
+            return matches() ? cached : Arrays.copyOf( values, size );
+        }
+    }
+
+    private static final class ProjectKey
+    {
+        private final String groupId;
+
+        private final String artifactId;
+
+        private final String version;
+
+        private final int hash;
+
+        ProjectKey( final String groupId, final String artifactId, final String version )
+        {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.version = version;
+            this.hash = ( String.valueOf( groupId ).hashCode() * 31 + String.valueOf( artifactId ).hashCode() ) * 31
+                + String.valueOf( version ).hashCode();
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals( final Object object )
+        {
+            if ( !( object instanceof ProjectKey ) )
+            {
+                return false;
+            }
+
+            ProjectKey key = (ProjectKey) object;
+            return hash == key.hash && equal( groupId, key.groupId ) && equal( artifactId, key.artifactId )
+                && equal( version, key.version );
+        }
+
+        private static boolean equal( final String a, final String b )
+        {
+            return a == null ? b == null : a.equals( b );
+        }
     }
 }
\ No newline at end of file
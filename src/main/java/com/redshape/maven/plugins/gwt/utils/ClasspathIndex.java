@@ -0,0 +1,302 @@
+package com.redshape.maven.plugins.gwt.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Answers whether classes are present on a classpath without loading them.
+ *
+ * Jars are indexed from their zip central directory alone: the directory is memory-mapped
+ * and walked record by record, no entry is inflated. Jar indexes are shared between
+ * instances and reused for as long as the jar path, size and modification time are the same.
+ * Directories are probed for the class file directly.
+ *
+ * @version $Id$
+ */
+public class ClasspathIndex
+{
+
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+
+    private static final int CENTRAL_DIRECTORY_ENTRY = 0x02014b50;
+
+    private static final int CENTRAL_DIRECTORY_ENTRY_SIZE = 46;
+
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+    private static final String VERSIONS_PREFIX = "META-INF/versions/";
+
+    private static final byte[] CLASS_SUFFIX = ".class".getBytes( Charset.forName( "US-ASCII" ) );
+
+    private static final Charset NAMES_CHARSET = Charset.forName( "UTF-8" );
+
+    private static final ConcurrentMap<String, JarIndex> JARS = new ConcurrentHashMap<String, JarIndex>();
+
+    private final List<File> elements;
+
+    public ClasspathIndex( final Collection<File> elements )
+    {
+        this.elements = new ArrayList<File>( elements );
+    }
+
+    /**
+     * @param className binary name of the class (<code>Outer$Inner</code> for nested ones)
+     */
+    public boolean contains( final String className )
+        throws IOException
+    {
+        String classFile = className.replace( '.', '/' ) + ".class";
+        for ( File element : elements )
+        {
+            if ( element.isDirectory() )
+            {
+                if ( new File( element, classFile ).isFile() )
+                {
+                    return true;
+                }
+            }
+            else if ( element.isFile() && getJarIndex( element ).contains( className ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return names of the given classes missing from the classpath, in the given order
+     */
+    public List<String> findMissing( final Collection<String> classNames )
+        throws IOException
+    {
+        List<String> missing = new ArrayList<String>();
+        for ( String className : classNames )
+        {
+            if ( !contains( className ) )
+            {
+                missing.add( className );
+            }
+        }
+
+        return missing;
+    }
+
+    /**
+     * @return binary names of the classes of a jar, as listed by its central directory
+     */
+    public static Set<String> getClassNames( final File jar )
+        throws IOException
+    {
+        return getJarIndex( jar ).classNames;
+    }
+
+    private static JarIndex getJarIndex( final File jar )
+        throws IOException
+    {
+        String path = jar.getAbsolutePath();
+        long lastModified = jar.lastModified();
+        long length = jar.length();
+
+        JarIndex index = JARS.get( path );
+        if ( index == null || index.lastModified != lastModified || index.length != length )
+        {
+            index = new JarIndex( lastModified, length, readClassNames( jar ) );
+            JARS.put( path, index );
+        }
+
+        return index;
+    }
+
+    private static Set<String> readClassNames( final File jar )
+        throws IOException
+    {
+        FileChannel channel = FileChannel.open( jar.toPath() );
+        try
+        {
+            Set<String> classNames = readCentralDirectory( channel );
+            return classNames != null ? classNames : readZipEntries( jar );
+        }
+        finally
+        {
+            channel.close();
+        }
+    }
+
+    /**
+     * @return class names, or <code>null</code> when the central directory can not be walked
+     *         directly (zip64 archives, inconsistent records)
+     */
+    private static Set<String> readCentralDirectory( final FileChannel channel )
+        throws IOException
+    {
+        long size = channel.size();
+        if ( size < END_OF_CENTRAL_DIRECTORY_SIZE )
+        {
+            throw new IOException( "Not a zip archive" );
+        }
+
+        int tailSize = (int) Math.min( size, END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_SIZE );
+        ByteBuffer tail = channel.map( FileChannel.MapMode.READ_ONLY, size - tailSize, tailSize );
+        tail.order( ByteOrder.LITTLE_ENDIAN );
+
+        int end = -1;
+        for ( int i = tailSize - END_OF_CENTRAL_DIRECTORY_SIZE; i >= 0; i-- )
+        {
+            if ( tail.getInt( i ) == END_OF_CENTRAL_DIRECTORY )
+            {
+                end = i;
+                break;
+            }
+        }
+
+        if ( end == -1 )
+        {
+            throw new IOException( "Zip central directory not found" );
+        }
+
+        int entries = tail.getShort( end + 10 ) & 0xFFFF;
+        long directorySize = tail.getInt( end + 12 ) & 0xFFFFFFFFL;
+        long directoryOffset = tail.getInt( end + 16 ) & 0xFFFFFFFFL;
+        if ( entries == 0xFFFF || directorySize == 0xFFFFFFFFL || directoryOffset == 0xFFFFFFFFL
+            || directoryOffset + directorySize > size )
+        {
+            return null;
+        }
+
+        ByteBuffer directory = channel.map( FileChannel.MapMode.READ_ONLY, directoryOffset, directorySize );
+        directory.order( ByteOrder.LITTLE_ENDIAN );
+
+        Set<String> classNames = new HashSet<String>( entries * 2 );
+        byte[] name = new byte[256];
+        int position = 0;
+        for ( int i = 0; i < entries; i++ )
+        {
+            if ( position + CENTRAL_DIRECTORY_ENTRY_SIZE > directorySize
+                || directory.getInt( position ) != CENTRAL_DIRECTORY_ENTRY )
+            {
+                return null;
+            }
+
+            int nameLength = directory.getShort( position + 28 ) & 0xFFFF;
+            int extraLength = directory.getShort( position + 30 ) & 0xFFFF;
+            int commentLength = directory.getShort( position + 32 ) & 0xFFFF;
+            int nameStart = position + CENTRAL_DIRECTORY_ENTRY_SIZE;
+            if ( nameStart + nameLength > directorySize )
+            {
+                return null;
+            }
+
+            if ( endsWithClassSuffix( directory, nameStart, nameLength ) )
+            {
+                if ( name.length < nameLength )
+                {
+                    name = new byte[nameLength * 2];
+                }
+
+                directory.position( nameStart );
+                directory.get( name, 0, nameLength );
+                addClassName( classNames, new String( name, 0, nameLength, NAMES_CHARSET ) );
+            }
+
+            position = nameStart + nameLength + extraLength + commentLength;
+        }
+
+        return classNames;
+    }
+
+    private static Set<String> readZipEntries( final File jar )
+        throws IOException
+    {
+        Set<String> classNames = new HashSet<String>();
+        ZipFile zip = new ZipFile( jar );
+        try
+        {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while ( entries.hasMoreElements() )
+            {
+                String name = entries.nextElement().getName();
+                if ( name.endsWith( ".class" ) )
+                {
+                    addClassName( classNames, name );
+                }
+            }
+        }
+        finally
+        {
+            zip.close();
+        }
+
+        return classNames;
+    }
+
+    private static boolean endsWithClassSuffix( final ByteBuffer buffer, final int start, final int length )
+    {
+        if ( length <= CLASS_SUFFIX.length )
+        {
+            return false;
+        }
+
+        int offset = start + length - CLASS_SUFFIX.length;
+        for ( int i = 0; i < CLASS_SUFFIX.length; i++ )
+        {
+            if ( buffer.get( offset + i ) != CLASS_SUFFIX[i] )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param entryName <code>com/example/Outer$Inner.class</code>, possibly prefixed by a
+     *                  multi-release version directory
+     */
+    private static void addClassName( final Set<String> classNames, String entryName )
+    {
+        if ( entryName.startsWith( VERSIONS_PREFIX ) )
+        {
+            int versionEnd = entryName.indexOf( '/', VERSIONS_PREFIX.length() );
+            if ( versionEnd == -1 )
+            {
+                return;
+            }
+            entryName = entryName.substring( versionEnd + 1 );
+        }
+
+        classNames.add( entryName.substring( 0, entryName.length() - CLASS_SUFFIX.length ).replace( '/', '.' ) );
+    }
+
+    private static class JarIndex
+    {
+        private final long lastModified;
+
+        private final long length;
+
+        private final Set<String> classNames;
+
+        JarIndex( final long lastModified, final long length, final Set<String> classNames )
+        {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.classNames = Collections.unmodifiableSet( classNames );
+        }
+
+        boolean contains( final String className )
+        {
+            return classNames.contains( className );
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.redshape.maven.plugins.gwt.utils;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * Compiles in-memory sources against a classpath with the compiler of the running JDK, to
+ * check them before they are written. Nothing is written: class files are discarded.
+ *
+ * The compiler instance is shared, and so are the file managers holding the opened jars of a
+ * classpath: they are reused for as long as the classpath elements keep their size and
+ * modification time. Sources missing from the compiled units are looked up on the classpath
+ * (which holds the project source roots) and attributed, but not reported on.
+ *
+ * @version $Id$
+ */
+public class SourceCompiler
+{
+
+    private static final int MAX_FILE_MANAGERS = 4;
+
+    private static final Map<List<String>, StandardJavaFileManager> FILE_MANAGERS =
+        new LinkedHashMap<List<String>, StandardJavaFileManager>( 16, 0.75f, true );
+
+    private static JavaCompiler compiler;
+
+    private static boolean compilerLookedUp;
+
+    private final List<File> classpath;
+
+    private final Charset charset;
+
+    /**
+     * @param charset charset of the compiled units and of the sources found on the classpath
+     */
+    public SourceCompiler( final Collection<File> classpath, final Charset charset )
+    {
+        this.classpath = new ArrayList<File>( classpath );
+        this.charset = charset;
+    }
+
+    /**
+     * @return false when running on a JRE, which has no compiler
+     */
+    public static boolean isAvailable()
+    {
+        return getCompiler() != null;
+    }
+
+    /**
+     * @param units content of the sources to compile, keyed by their file
+     * @return errors reported in the given units, as <code>path:line: message</code>, empty
+     *         when all of them compile
+     */
+    public List<String> compile( final Map<File, byte[]> units )
+        throws IOException
+    {
+        JavaCompiler javac = getCompiler();
+        if ( javac == null )
+        {
+            throw new IllegalStateException( "No Java compiler available, a JDK is required" );
+        }
+
+        if ( units.isEmpty() )
+        {
+            return Collections.emptyList();
+        }
+
+        Map<URI, File> files = new HashMap<URI, File>();
+        List<JavaFileObject> sources = new ArrayList<JavaFileObject>( units.size() );
+        for ( Map.Entry<File, byte[]> unit : units.entrySet() )
+        {
+            MemorySource source = new MemorySource( unit.getKey(), new String( unit.getValue(), charset ) );
+            files.put( source.toUri(), unit.getKey() );
+            sources.add( source );
+        }
+
+        List<String> options = Arrays.asList( "-proc:none", "-implicit:none", "-nowarn", "-g:none",
+                                              "-encoding", charset.name() );
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        StandardJavaFileManager fileManager = getFileManager( javac );
+        synchronized ( fileManager )
+        {
+            javac.getTask( null, new DiscardingFileManager( fileManager ), diagnostics, options, null, sources )
+                .call();
+        }
+
+        List<String> errors = new ArrayList<String>();
+        for ( Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics() )
+        {
+            if ( diagnostic.getKind() != Diagnostic.Kind.ERROR )
+            {
+                continue;
+            }
+
+            if ( diagnostic.getSource() == null )
+            {
+                errors.add( diagnostic.getMessage( null ) );
+                continue;
+            }
+
+            File file = files.get( diagnostic.getSource().toUri() );
+            if ( file != null )
+            {
+                errors.add( file.getPath() + ":" + diagnostic.getLineNumber() + ": " + diagnostic.getMessage( null ) );
+            }
+        }
+
+        return errors;
+    }
+
+    private static synchronized JavaCompiler getCompiler()
+    {
+        if ( !compilerLookedUp )
+        {
+            compiler = ToolProvider.getSystemJavaCompiler();
+            compilerLookedUp = true;
+        }
+        return compiler;
+    }
+
+    /**
+     * @return file manager of the classpath, opened on first use
+     */
+    private StandardJavaFileManager getFileManager( final JavaCompiler javac )
+        throws IOException
+    {
+        List<String> key = new ArrayList<String>( classpath.size() + 1 );
+        key.add( charset.name() );
+        for ( File element : classpath )
+        {
+            key.add( element.getAbsolutePath() + ':' + element.length() + ':' + element.lastModified() );
+        }
+
+        synchronized ( FILE_MANAGERS )
+        {
+            StandardJavaFileManager fileManager = FILE_MANAGERS.get( key );
+            if ( fileManager != null )
+            {
+                return fileManager;
+            }
+
+            fileManager = javac.getStandardFileManager( null, null, charset );
+            fileManager.setLocation( StandardLocation.CLASS_PATH, classpath );
+            FILE_MANAGERS.put( key, fileManager );
+
+            Iterator<StandardJavaFileManager> eldest = FILE_MANAGERS.values().iterator();
+            while ( FILE_MANAGERS.size() > MAX_FILE_MANAGERS )
+            {
+                StandardJavaFileManager evicted = eldest.next();
+                eldest.remove();
+                synchronized ( evicted )
+                {
+                    evicted.close();
+                }
+            }
+
+            return fileManager;
+        }
+    }
+
+    private static class MemorySource
+        extends SimpleJavaFileObject
+    {
+        private final String content;
+
+        MemorySource( final File file, final String content )
+        {
+            super( file.getAbsoluteFile().toURI(), Kind.SOURCE );
+            this.content = content;
+        }
+
+        @Override
+        public CharSequence getCharContent( final boolean ignoreEncodingErrors )
+        {
+            return content;
+        }
+    }
+
+    /**
+     * Hands the compiler a sink for every class file, so that nothing is written.
+     */
+    private static class DiscardingFileManager
+        extends ForwardingJavaFileManager<JavaFileManager>
+    {
+        DiscardingFileManager( final JavaFileManager fileManager )
+        {
+            super( fileManager );
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput( final Location location, final String className,
+                                                    final JavaFileObject.Kind kind, final FileObject sibling )
+        {
+            return new SimpleJavaFileObject( URI.create( "mem:///" + className.replace( '.', '/' ) + kind.extension ),
+                                             kind )
+            {
+                @Override
+                public OutputStream openOutputStream()
+                {
+                    return new OutputStream()
+                    {
+                        @Override
+                        public void write( final int b )
+                        {
+                        }
+
+                        @Override
+                        public void write( final byte[] b, final int off, final int len )
+                        {
+                        }
+                    };
+                }
+            };
+        }
+
+        @Override
+        public void close()
+        {
+            // the underlying file manager is shared
+        }
+
+        @Override
+        public void flush()
+        {
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.redshape.maven.plugins.gwt;
+
+import com.redshape.maven.plugins.gwt.goals.GenPresenterMojo;
+import com.redshape.maven.plugins.gwt.sources.FileLocks;
+import com.redshape.maven.plugins.gwt.sources.SourceIndex;
+import com.redshape.maven.plugins.gwt.utils.ClasspathBuilder;
+import com.thoughtworks.qdox.model.JavaClass;
+import junit.framework.Assert;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+public class AbstractGeneratorMojoTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testResolvesSiblingModule() throws Exception {
+        MavenProject core = createProject( "core" );
+        write( core, "com/redshape/core/CoreModule.java", "package com.redshape.core;\n"
+                + "public class CoreModule {\n protected void configure() {}\n}\n" );
+        MavenProject app = createProject( "app" );
+        write( app, "com/redshape/client/NameTokens.java", "package com.redshape.client;\n"
+                + "public class NameTokens {}\n" );
+
+        DefaultArtifactHandler handler = new DefaultArtifactHandler("jar");
+        handler.setAddedToClasspath( true );
+        app.setArtifacts( Collections.<Artifact>singleton( new DefaultArtifact( core.getGroupId(), core.getArtifactId(),
+                VersionRange.createFromVersion( core.getVersion() ), Artifact.SCOPE_COMPILE, "jar", null, handler ) ) );
+        app.addProjectReference( core );
+
+        GenPresenterMojo mojo = createMojo( app, Arrays.asList( core, app ) );
+        mojo.setModuleClassName("com.redshape.core.CoreModule");
+        mojo.setInjectorClassName("com.redshape.core.CoreGinjector");
+        mojo.setNameTokensClass("com.redshape.client.NameTokens");
+
+        Assert.assertEquals( new File( app.getBasedir(), "src/main/java" ), mojo.resolveProjectFile("src/main/java") );
+        Assert.assertEquals( new File( folder.getRoot(), "out" ),
+                mojo.resolveProjectFile( new File( folder.getRoot(), "out" ).getAbsolutePath() ) );
+
+        List<String> sourceRoots = mojo.getCompileSourceRoots();
+        Assert.assertEquals( Arrays.asList( getSourceRoot( app ), getSourceRoot( core ) ), sourceRoots );
+
+        Map<String, JavaClass> classes = mojo.locateReferencedClasses( mojo.loadSourceIndex() );
+        Assert.assertNotNull( classes.get("com.redshape.core.CoreModule") );
+        Assert.assertNotNull( classes.get("com.redshape.client.NameTokens") );
+        Assert.assertNull( classes.get("com.redshape.core.CoreGinjector") );
+    }
+
+    @Test
+    public void testReactorIndex() throws Exception {
+        MavenProject core = createProject( "core" );
+        MavenProject app = createProject( "app" );
+        List<MavenProject> reactorProjects = Arrays.asList( core, app );
+
+        SourceIndex index = createMojo( core, reactorProjects ).loadSourceIndex();
+        Assert.assertSame( index, createMojo( app, reactorProjects ).loadSourceIndex() );
+
+        // a new build, or a build of another reactor
+        SourceIndex rebuilt = createMojo( app, new ArrayList<MavenProject>( reactorProjects ) ).loadSourceIndex();
+        Assert.assertNotSame( index, rebuilt );
+        Assert.assertNotSame( rebuilt, createMojo( app, Collections.singletonList( app ) ).loadSourceIndex() );
+    }
+
+    @Test
+    public void testRelocatesAfterConcurrentWrite() throws Exception {
+        MavenProject app = createProject( "app" );
+        final File moduleFile = write( app, "com/redshape/client/ClientModule.java", "package com.redshape.client;\n"
+                + "public class ClientModule {\n protected void configure() {\n }\n}\n" );
+        write( app, "com/redshape/client/ClientGinjector.java", "package com.redshape.client;\n"
+                + "public interface ClientGinjector {\n}\n" );
+        write( app, "com/redshape/client/NameTokens.java", "package com.redshape.client;\n"
+                + "public class NameTokens {\n}\n" );
+
+        // a concurrent execution holding the module lock, patching the file once its stamp has been taken
+        final CountDownLatch held = new CountDownLatch( 1 );
+        final CountDownLatch parsed = new CountDownLatch( 1 );
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                List<Lock> locks = FileLocks.lockAll( Collections.singletonList( moduleFile ) );
+                try {
+                    held.countDown();
+                    parsed.await( 30, TimeUnit.SECONDS );
+                    Files.write( moduleFile.toPath(), "// patched concurrently\n".getBytes("UTF-8"),
+                            StandardOpenOption.APPEND );
+                } catch ( Exception e ) {
+                    throw new IllegalStateException( e );
+                } finally {
+                    FileLocks.unlockAll( locks );
+                }
+            }
+        };
+
+        final AtomicInteger located = new AtomicInteger();
+        GenPresenterMojo mojo = new GenPresenterMojo() {
+            @Override
+            protected Map<String, JavaClass> locateReferencedClasses( SourceIndex index ) {
+                located.incrementAndGet();
+                return super.locateReferencedClasses( index );
+            }
+
+            @Override
+            protected Map<File, Long> getSourceStamps( Collection<JavaClass> classes ) {
+                Map<File, Long> stamps = super.getSourceStamps( classes );
+                parsed.countDown();
+                return stamps;
+            }
+        };
+        mojo.setProject( app );
+        mojo.setPresenterName("Home");
+        mojo.setPresentersPackage("com.redshape.client.presenters");
+        mojo.setPresenterViewsPackage("com.redshape.client.views");
+        mojo.setModuleClassName("com.redshape.client.ClientModule");
+        mojo.setInjectorClassName("com.redshape.client.ClientGinjector");
+        mojo.setNameTokensClass("com.redshape.client.NameTokens");
+        mojo.setOutputPath( folder.newFolder("out").getAbsolutePath() );
+        mojo.setResourcesPath( folder.newFolder("resources").getAbsolutePath() );
+
+        writer.start();
+        held.await();
+        mojo.execute();
+        writer.join( 30000 );
+
+        Assert.assertEquals( 2, located.get() );
+        String module = new String( Files.readAllBytes( moduleFile.toPath() ), "UTF-8" );
+        Assert.assertTrue( module, module.contains("// patched concurrently") );
+        Assert.assertTrue( module, module.contains("HomePresenter") );
+    }
+
+    private GenPresenterMojo createMojo( MavenProject project, List<MavenProject> reactorProjects ) {
+        ClasspathBuilder classpathBuilder = new ClasspathBuilder();
+        classpathBuilder.enableLogging( new ConsoleLogger( Logger.LEVEL_DISABLED, "test" ) );
+
+        GenPresenterMojo mojo = new GenPresenterMojo();
+        mojo.setProject( project );
+        mojo.setReactorProjects( reactorProjects );
+        mojo.setClasspathBuilder( classpathBuilder );
+        mojo.setSearchReactorSources( true );
+        mojo.setPresenterName("Home");
+        mojo.setPresentersPackage("com.redshape.client.presenters");
+        mojo.setPresenterViewsPackage("com.redshape.client.views");
+        return mojo;
+    }
+
+    private MavenProject createProject( String artifactId ) throws IOException {
+        File basedir = folder.newFolder( artifactId );
+        Model model = new Model();
+        model.setGroupId("com.redshape");
+        model.setArtifactId( artifactId );
+        model.setVersion("1.0");
+        model.setBuild( new Build() );
+        model.getBuild().setOutputDirectory( new File( basedir, "target/classes" ).getPath() );
+
+        MavenProject project = new MavenProject( model );
+        project.setFile( new File( basedir, "pom.xml" ) );
+        project.addCompileSourceRoot( getSourceRoot( project ) );
+        return project;
+    }
+
+    private static String getSourceRoot( MavenProject project ) throws IOException {
+        return new File( project.getBasedir(), "src/main/java" ).getCanonicalPath();
+    }
+
+    private static File write( MavenProject project, String path, String content ) throws IOException {
+        File file = new File( getSourceRoot( project ), path );
+        file.getParentFile().mkdirs();
+        Files.write( file.toPath(), content.getBytes("UTF-8") );
+        return file;
+    }
+}
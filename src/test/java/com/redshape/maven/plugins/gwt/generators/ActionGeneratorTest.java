@@ -0,0 +1,98 @@
+package com.redshape.maven.plugins.gwt.generators;
+
+import com.redshape.maven.plugins.gwt.output.MemoryCodeWriter;
+import com.redshape.maven.plugins.gwt.sources.SourcePatch;
+import com.thoughtworks.qdox.JavaDocBuilder;
+import com.thoughtworks.qdox.model.JavaClass;
+import junit.framework.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+public class ActionGeneratorTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final String HANDLER_MODULE_SOURCE =
+            "package com.redshape.server;\n"
+            + "\n"
+            + "public class ServerModule extends HandlerModule {\n"
+            + "    @Override\n"
+            + "    protected void configureHandlers() {\n"
+            + "    }\n"
+            + "}\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testBuildCodeModel() throws Exception {
+        ActionGenerator generator = createGenerator();
+
+        MemoryCodeWriter writer = new MemoryCodeWriter( UTF8 );
+        generator.buildCodeModel( generator.getNames() ).build( writer );
+        Map<String, byte[]> files = writer.getFiles();
+
+        String action = new String( files.get("com/redshape/shared/GetUserAction.java"), UTF8 );
+        Assert.assertTrue( action, action.contains("extends ActionImpl<GetUserResult>") );
+
+        String result = new String( files.get("com/redshape/shared/GetUserResult.java"), UTF8 );
+        Assert.assertTrue( result, result.contains("implements Result") );
+
+        String handler = new String( files.get("com/redshape/server/GetUserHandler.java"), UTF8 );
+        Assert.assertTrue( handler, handler.contains("extends AbstractActionHandler<GetUserAction, GetUserResult>") );
+        Assert.assertTrue( handler, handler.contains("super(GetUserAction.class);") );
+        Assert.assertTrue( handler, handler.contains("public GetUserResult execute(final GetUserAction action, "
+                + "final ExecutionContext context)\n        throws ActionException") );
+
+        generator.setHandlersPackage( null );
+        writer = new MemoryCodeWriter( UTF8 );
+        generator.buildCodeModel( generator.getNames() ).build( writer );
+        Assert.assertEquals( 2, writer.getFiles().size() );
+        Assert.assertTrue( generator.getRegistrationClassNames().isEmpty() );
+    }
+
+    @Test
+    public void testRegistersHandlers() throws Exception {
+        File file = folder.newFile("ServerModule.java");
+        FileOutputStream stream = new FileOutputStream( file );
+        try {
+            stream.write( HANDLER_MODULE_SOURCE.getBytes(UTF8) );
+        } finally {
+            stream.close();
+        }
+
+        ActionGenerator generator = createGenerator();
+        Assert.assertEquals( Collections.singletonList("com.redshape.server.ServerModule"),
+                generator.getRegistrationClassNames() );
+
+        JavaDocBuilder builder = new JavaDocBuilder();
+        builder.addSource( file );
+        JavaClass moduleClazz = builder.getClassByName("com.redshape.server.ServerModule");
+
+        SourcePatch patch = SourcePatch.read( file, UTF8 );
+        BindingRegistry registry = BindingRegistry.parse( moduleClazz, "configureHandlers" );
+        Assert.assertTrue( generator.updateHandlerModuleReferences( registry, moduleClazz, patch, "GetUser" ) );
+        Assert.assertFalse( generator.updateHandlerModuleReferences( registry, moduleClazz, patch, "GetUser" ) );
+
+        Assert.assertEquals( HANDLER_MODULE_SOURCE.replace( "configureHandlers() {\n",
+                "configureHandlers() {\n        bindHandler(com.redshape.shared.GetUserAction.class, "
+                + "com.redshape.server.GetUserHandler.class);\n" ), patch.apply() );
+    }
+
+    private static ActionGenerator createGenerator() {
+        ActionGenerator generator = new ActionGenerator();
+        generator.setActionsPackage("com.redshape.shared");
+        generator.setHandlersPackage("com.redshape.server");
+        generator.setHandlerModuleClassName("com.redshape.server.ServerModule");
+        generator.setNames( Arrays.asList("GetUser") );
+        return generator;
+    }
+}
@@ -0,0 +1,61 @@
+package com.redshape.maven.plugins.gwt.generators;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class BindingRegistryTest {
+
+    private static final String CONFIGURE_BODY = "\n"
+            + "        install(new DefaultModule(PlaceManager.class));\n"
+            + "        // bindPresenter(Commented.class, Commented.MyView.class);\n"
+            + "        bindPresenter(HomePresenter.class,\n"
+            + "                HomePresenter.MyView.class, HomeView.class, HomePresenter.MyProxy.class);\n"
+            + "        /* bindConstant().annotatedWith(Names.class).to(\"a ; b\"); */\n"
+            + "        bindConstant().annotatedWith(DefaultPlace.class).to(\"home ; page\");\n"
+            + "        if (DEBUG) {\n"
+            + "            bind(Logger.class).to(ConsoleLogger.class);\n"
+            + "        }\n"
+            + "        install(new AbstractGinModule() {\n"
+            + "            protected void configure() { bind(Clock.class); }\n"
+            + "        });\n";
+
+    @Test
+    public void testSplit() {
+        Assert.assertEquals( Arrays.asList(
+                "install(newDefaultModule(PlaceManager.class));",
+                "bindPresenter(HomePresenter.class,HomePresenter.MyView.class,HomeView.class,HomePresenter.MyProxy.class);",
+                "bindConstant().annotatedWith(DefaultPlace.class).to(\"home ; page\");",
+                "bind(Logger.class).to(ConsoleLogger.class);",
+                "if(DEBUG){bind(Logger.class).to(ConsoleLogger.class);}",
+                "install(newAbstractGinModule(){protectedvoidconfigure(){bind(Clock.class);}});" ),
+                BindingRegistry.split( CONFIGURE_BODY ) );
+    }
+
+    @Test
+    public void testContains() {
+        BindingRegistry registry = new BindingRegistry( CONFIGURE_BODY );
+        Assert.assertTrue( registry.contains(
+                "bindPresenter(HomePresenter.class, HomePresenter.MyView.class, HomeView.class, HomePresenter.MyProxy.class);" ) );
+        Assert.assertTrue( registry.contains( "bind(Logger.class).to(ConsoleLogger.class);" ) );
+        Assert.assertFalse( registry.contains( "bindPresenter(Commented.class, Commented.MyView.class);" ) );
+        Assert.assertFalse( registry.contains( "bind(Clock.class);" ) );
+        Assert.assertFalse( registry.contains( "bindPresenter(HomePresenter.class);" ) );
+    }
+
+    @Test
+    public void testAdd() {
+        BindingRegistry registry = new BindingRegistry( CONFIGURE_BODY );
+        int size = registry.size();
+
+        Assert.assertTrue( registry.add( "bindPresenter(AboutPresenter.class, AboutPresenter.MyView.class);" ) );
+        Assert.assertFalse( registry.add( "bindPresenter( AboutPresenter.class,\n AboutPresenter.MyView.class );" ) );
+        Assert.assertFalse( registry.add( "install(new DefaultModule(PlaceManager.class));" ) );
+
+        Assert.assertEquals( size + 1, registry.size() );
+        Assert.assertEquals( Collections.singletonList( "bindPresenter(AboutPresenter.class, AboutPresenter.MyView.class);" ),
+                registry.getAdded() );
+    }
+}
@@ -0,0 +1,37 @@
+package com.redshape.maven.plugins.gwt.generators;
+
+import com.redshape.maven.plugins.gwt.output.MemoryCodeWriter;
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Map;
+
+public class EventGeneratorTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    @Test
+    public void testBuildCodeModel() throws Exception {
+        EventGenerator generator = new EventGenerator();
+        generator.setEventsPackage("com.redshape.client.events");
+        generator.setNames( Arrays.asList("Saved", " Saved ", "Deleted") );
+
+        Assert.assertEquals( Arrays.asList("Saved", "Deleted"), generator.getNames() );
+        Assert.assertTrue( generator.getRegistrationClassNames().isEmpty() );
+
+        MemoryCodeWriter writer = new MemoryCodeWriter( UTF8 );
+        generator.buildCodeModel( generator.getNames() ).build( writer );
+        Map<String, byte[]> files = writer.getFiles();
+
+        String source = new String( files.get("com/redshape/client/events/SavedEvent.java"), UTF8 );
+        Assert.assertTrue( source, source.contains("public class SavedEvent\n    extends GwtEvent<SavedEvent.SavedHandler>") );
+        Assert.assertTrue( source, source.contains("public interface SavedHandler\n        extends EventHandler") );
+        Assert.assertTrue( source, source.contains("void onSaved(SavedEvent event);") );
+        Assert.assertTrue( source, source.contains("private final static Type<SavedEvent.SavedHandler> TYPE = new Type<SavedEvent.SavedHandler>();") );
+        Assert.assertTrue( source, source.contains("source.fireEvent(new SavedEvent());") );
+        Assert.assertTrue( source, source.contains("handler.onSaved(this);") );
+        Assert.assertNotNull( files.get("com/redshape/client/events/DeletedEvent.java") );
+    }
+}
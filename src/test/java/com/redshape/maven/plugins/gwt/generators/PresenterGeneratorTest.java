@@ -0,0 +1,193 @@
+package com.redshape.maven.plugins.gwt.generators;
+
+import com.redshape.maven.plugins.gwt.metrics.GeneratorMetrics;
+import com.redshape.maven.plugins.gwt.output.GeneratedFileWriter;
+import com.redshape.maven.plugins.gwt.output.GenerationManifest;
+import com.redshape.maven.plugins.gwt.output.GenerationPipeline;
+import com.redshape.maven.plugins.gwt.output.MemoryCodeWriter;
+import com.redshape.maven.plugins.gwt.sources.SourcePatch;
+import com.thoughtworks.qdox.JavaDocBuilder;
+import com.thoughtworks.qdox.model.JavaClass;
+import junit.framework.Assert;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+public class PresenterGeneratorTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final String MODULE_CLASS_NAME = "com.redshape.client.ClientModule";
+    private static final String SHARD_CLASS_NAME = "com.redshape.client.home.HomeGinModule";
+
+    private static final String MODULE_SOURCE = "package com.redshape.client;\n"
+            + "\n"
+            + "public class ClientModule extends AbstractPresenterModule {\n"
+            + "    @Override\n"
+            + "    protected void configure() {\n"
+            + "        bindPresenter(com.redshape.client.home.MainPresenter.class, "
+            + "com.redshape.client.home.MainPresenter.MyView.class, com.redshape.client.views.MainView.class, "
+            + "com.redshape.client.home.MainPresenter.MyProxy.class);\n"
+            + "    }\n"
+            + "}\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testShardModules() throws Exception {
+        PresenterGenerator generator = createGenerator();
+        generator.setShardModules( true );
+        Assert.assertEquals( SHARD_CLASS_NAME, generator.getShardModuleClassName() );
+        Assert.assertTrue( generator.getRegistrationClassNames().contains( SHARD_CLASS_NAME ) );
+
+        File moduleFile = write( "src/com/redshape/client/ClientModule.java", MODULE_SOURCE );
+        File outputDirectory = folder.newFolder("out");
+        GenerationPipeline pipeline = new GenerationPipeline( new GeneratedFileWriter(
+                new GenerationManifest(null), new SystemStreamLog() ), 1 );
+        GenerationContext context = new GenerationContext( new SystemStreamLog(), new GeneratorMetrics(), pipeline,
+                folder.getRoot(), outputDirectory, UTF8, null );
+
+        generator.registerModuleBindings( context, Collections.singletonMap( MODULE_CLASS_NAME, parse(moduleFile) ) );
+        context.submitGeneratedModules();
+        pipeline.await();
+
+        SourcePatch patch = context.getSourcePatches().iterator().next();
+        Assert.assertEquals( MODULE_SOURCE.replace( "    }\n}",
+                "        install(new " + SHARD_CLASS_NAME + "());\n    }\n}" ), patch.apply() );
+
+        String shard = read( new File( outputDirectory, "com/redshape/client/home/HomeGinModule.java" ) );
+        Assert.assertTrue( shard, shard.contains("public class HomeGinModule\n    extends AbstractPresenterModule") );
+        Assert.assertTrue( shard, shard.contains("bindPresenter(com.redshape.client.home.AboutPresenter.class, "
+                + "com.redshape.client.home.AboutPresenter.MyView.class, com.redshape.client.views.AboutView.class, "
+                + "com.redshape.client.home.AboutPresenter.MyProxy.class);") );
+        Assert.assertFalse( shard, shard.contains("MainPresenter") );
+
+        // a module generated by a previous run is patched
+        GenerationContext rerun = new GenerationContext( new SystemStreamLog(), new GeneratorMetrics(), pipeline,
+                folder.getRoot(), outputDirectory, UTF8, null );
+        generator.setNames( Arrays.asList( "Main", "About", "Contact" ) );
+        generator.registerModuleBindings( rerun, Collections.singletonMap( MODULE_CLASS_NAME, parse(moduleFile) ) );
+        rerun.submitGeneratedModules();
+
+        for ( SourcePatch shardPatch : rerun.getSourcePatches() ) {
+            if ( shardPatch.getFile().getName().equals("HomeGinModule.java") ) {
+                String patched = shardPatch.apply();
+                Assert.assertTrue( patched, patched.contains("ContactPresenter") );
+                Assert.assertEquals( patched, shard.indexOf("AboutPresenter.class"),
+                        patched.indexOf("AboutPresenter.class") );
+                return;
+            }
+        }
+
+        Assert.fail("Generated module has not been patched");
+    }
+
+    @Test
+    public void testCodeSplitBundle() throws Exception {
+        PresenterGenerator generator = createGenerator();
+        generator.setProxyStrategy( PresenterGenerator.ProxyStrategy.CODE_SPLIT_BUNDLE );
+        Assert.assertEquals( "com.redshape.client.home.HomeBundle", generator.getBundleClassName() );
+        generator.setBundleName("admin");
+        Assert.assertEquals( "com.redshape.client.home.AdminBundle", generator.getBundleClassName() );
+        Assert.assertTrue( generator.getRegistrationClassNames().contains("com.redshape.client.home.AdminBundle") );
+        Assert.assertTrue( generator.getReferencedTypes().contains("com.gwtplatform.common.client.ProviderBundle") );
+
+        MemoryCodeWriter writer = new MemoryCodeWriter( UTF8 );
+        generator.buildCodeModel( Arrays.asList("About") ).build( writer );
+        String presenter = new String( writer.getFiles().get("com/redshape/client/home/AboutPresenter.java"), UTF8 );
+        Assert.assertTrue( presenter, presenter.contains(
+                "@ProxyCodeSplitBundle(bundleClass = AdminBundle.class, id = AdminBundle.ID_About)") );
+
+        writer = new MemoryCodeWriter( UTF8 );
+        generator.buildBundleCodeModel( "com.redshape.client.home.AdminBundle", Arrays.asList(
+                "com.redshape.client.home.MainPresenter", "com.redshape.client.other.AboutPresenter" ) ).build( writer );
+        String bundle = new String( writer.getFiles().get("com/redshape/client/home/AdminBundle.java"), UTF8 );
+        Assert.assertTrue( bundle, bundle.contains("public final static int ID_About = 1;") );
+        Assert.assertTrue( bundle, bundle.contains("public final static int BUNDLE_SIZE = 2;") );
+        Assert.assertTrue( bundle, bundle.contains("providers[ID_Main] = mainPresenterProvider;") );
+
+        // ids of a regenerated bundle do not move
+        File bundleFile = write( "out/com/redshape/client/home/AdminBundle.java", bundle );
+        JavaDocBuilder builder = new JavaDocBuilder();
+        builder.addSource( bundleFile );
+        Assert.assertEquals( Arrays.asList( "com.redshape.client.home.MainPresenter",
+                "com.redshape.client.other.AboutPresenter" ),
+                generator.getBundledPresenters( builder.getClassByName("com.redshape.client.home.AdminBundle") ) );
+    }
+
+    @Test
+    public void testCodeSplitInjector() throws Exception {
+        PresenterGenerator generator = createGenerator();
+        generator.setProxyStrategy( PresenterGenerator.ProxyStrategy.CODE_SPLIT );
+
+        File injectorFile = write( "src/com/redshape/client/ClientGinjector.java", "package com.redshape.client;\n"
+                + "\n"
+                + "public interface ClientGinjector extends Ginjector {\n"
+                + "    com.google.inject.Provider<com.redshape.client.home.MainPresenter> getMainPresenter();\n"
+                + "}\n" );
+        JavaDocBuilder builder = new JavaDocBuilder();
+        builder.addSource( injectorFile );
+        JavaClass injectorClazz = builder.getClassByName("com.redshape.client.ClientGinjector");
+        SourcePatch patch = SourcePatch.read( injectorFile, UTF8 );
+
+        Assert.assertFalse( generator.updateInjectorReferences( injectorClazz, patch, "Main" ) );
+        Assert.assertTrue( generator.updateInjectorReferences( injectorClazz, patch, "About" ) );
+        Assert.assertFalse( generator.updateInjectorReferences( injectorClazz, patch, "About" ) );
+        Assert.assertTrue( patch.apply(), patch.apply().contains( "com.google.gwt.inject.client.AsyncProvider"
+                + "<com.redshape.client.home.AboutPresenter> getAboutPresenter();" ) );
+    }
+
+    private PresenterGenerator createGenerator() {
+        PresenterGenerator generator = new PresenterGenerator();
+        generator.setPresentersPackage("com.redshape.client.home");
+        generator.setPresenterViewsPackage("com.redshape.client.views");
+        generator.setModuleClassName( MODULE_CLASS_NAME );
+        generator.setNameTokensClass("com.redshape.client.NameTokens");
+        generator.setNames( Arrays.asList( "Main", "About" ) );
+        return generator;
+    }
+
+    private JavaClass parse( File file ) throws Exception {
+        JavaDocBuilder builder = new JavaDocBuilder();
+        builder.addSource( file );
+        return builder.getClassByName( MODULE_CLASS_NAME );
+    }
+
+    private File write( String path, String content ) throws Exception {
+        File file = new File( folder.getRoot(), path );
+        file.getParentFile().mkdirs();
+        FileOutputStream stream = new FileOutputStream( file );
+        try {
+            stream.write( content.getBytes(UTF8) );
+        } finally {
+            stream.close();
+        }
+
+        return file;
+    }
+
+    private static String read( File file ) throws Exception {
+        byte[] bytes = new byte[ (int) file.length() ];
+        FileInputStream stream = new FileInputStream( file );
+        try {
+            int offset = 0;
+            while ( offset < bytes.length ) {
+                offset += stream.read( bytes, offset, bytes.length - offset );
+            }
+        } finally {
+            stream.close();
+        }
+
+        return new String( bytes, UTF8 );
+    }
+}
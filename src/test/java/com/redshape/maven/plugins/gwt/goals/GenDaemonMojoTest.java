@@ -0,0 +1,167 @@
+package com.redshape.maven.plugins.gwt.goals;
+
+import com.redshape.maven.plugins.gwt.output.FileTransaction;
+import com.redshape.maven.plugins.gwt.output.GenerationManifest;
+import com.redshape.maven.plugins.gwt.sources.SourceIndex;
+import com.redshape.maven.plugins.gwt.sources.SourceModelCache;
+import junit.framework.Assert;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+public class GenDaemonMojoTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRequestAfterFailure() throws Exception {
+        File sourceRoot = folder.newFolder("java");
+        File moduleFile = write( sourceRoot, "com/redshape/client/ClientModule.java", "package com.redshape.client;\n"
+                + "\n"
+                + "public class ClientModule extends AbstractPresenterModule {\n"
+                + "    @Override\n"
+                + "    protected void configure() {\n"
+                + "    }\n"
+                + "}\n" );
+        File injectorFile = write( sourceRoot, "com/redshape/client/ClientGinjector.java", "package com.redshape.client;\n"
+                + "\n"
+                + "public interface ClientGinjector extends Ginjector {\n"
+                + "}\n" );
+        File nameTokensFile = write( sourceRoot, "com/redshape/client/NameTokens.java", "package com.redshape.client;\n"
+                + "\n"
+                + "public class NameTokens {\n"
+                + "}\n" );
+        String moduleSource = read( moduleFile );
+
+        TestDaemonMojo mojo = createMojo( sourceRoot );
+        mojo.failingCommits = 1;
+        String response = mojo.handle("generate Home");
+        Assert.assertTrue( response, response.startsWith("ERROR") );
+        Assert.assertEquals( moduleSource, read( moduleFile ) );
+
+        // the classes patched in memory by the failed request must not be reused
+        response = mojo.handle("generate Home");
+        Assert.assertTrue( response, response.startsWith("OK") );
+        Assert.assertTrue( read( moduleFile ), read( moduleFile ).contains("HomePresenter") );
+        Assert.assertTrue( read( injectorFile ), read( injectorFile ).contains("getHomePresenter()") );
+        Assert.assertTrue( read( nameTokensFile ), read( nameTokensFile ).contains("home") );
+    }
+
+    @Test
+    public void testStandardInput() throws Exception {
+        File sourceRoot = folder.newFolder("java");
+        write( sourceRoot, "com/redshape/client/ClientModule.java", "package com.redshape.client;\n"
+                + "\n"
+                + "public class ClientModule extends AbstractPresenterModule {\n"
+                + "    @Override\n"
+                + "    protected void configure() {\n"
+                + "    }\n"
+                + "}\n" );
+
+        TestDaemonMojo mojo = createMojo( sourceRoot );
+        mojo.setDaemonStdin( true );
+
+        InputStream stdin = System.in;
+        PrintStream stdout = System.out;
+        PrintStream stderr = System.err;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        try {
+            System.setIn( new ByteArrayInputStream( "generate Home\nshutdown\n".getBytes("UTF-8") ) );
+            System.setOut( new PrintStream( output, true, "UTF-8" ) );
+            System.setErr( new PrintStream( log, true, "UTF-8" ) );
+            mojo.execute();
+        } finally {
+            System.setIn( stdin );
+            System.setOut( stdout );
+            System.setErr( stderr );
+        }
+
+        // responses only, the log output of the requests went to the standard error
+        String[] responses = output.toString("UTF-8").split("\n");
+        Assert.assertEquals( output.toString("UTF-8"), 2, responses.length );
+        Assert.assertTrue( responses[0], responses[0].startsWith("OK generated") );
+        Assert.assertTrue( responses[1], responses[1].startsWith("OK") );
+        Assert.assertTrue( log.toString("UTF-8"), log.toString("UTF-8").contains("Updating source") );
+    }
+
+    private TestDaemonMojo createMojo( File sourceRoot ) throws IOException {
+        TestDaemonMojo mojo = new TestDaemonMojo( sourceRoot );
+        mojo.setOutputPath( folder.newFolder("out").getAbsolutePath() );
+        mojo.setResourcesPath( folder.newFolder("resources").getAbsolutePath() );
+        mojo.setPresentersPackage("com.redshape.client.presenters");
+        mojo.setPresenterViewsPackage("com.redshape.client.views");
+        mojo.setModuleClassName("com.redshape.client.ClientModule");
+        mojo.setInjectorClassName("com.redshape.client.ClientGinjector");
+        mojo.setNameTokensClass("com.redshape.client.NameTokens");
+        return mojo;
+    }
+
+    private File write( File root, String path, String content ) throws IOException {
+        File file = new File( root, path );
+        file.getParentFile().mkdirs();
+        Files.write( file.toPath(), content.getBytes("UTF-8") );
+        return file;
+    }
+
+    private static String read( File file ) throws IOException {
+        return new String( Files.readAllBytes( file.toPath() ), "UTF-8" );
+    }
+
+    /**
+     * Daemon outside of a Maven build, with its state kept in memory.
+     */
+    private static class TestDaemonMojo extends GenDaemonMojo {
+        private final File sourceRoot;
+        private final SourceIndex index = SourceIndex.load( null, new SystemStreamLog() );
+        private final GenerationManifest manifest = GenerationManifest.load( null, new SystemStreamLog() );
+        private final SourceModelCache models = SourceModelCache.load( null, new SystemStreamLog() );
+        private int failingCommits;
+
+        TestDaemonMojo( File sourceRoot ) {
+            this.sourceRoot = sourceRoot;
+        }
+
+        @Override
+        protected SourceIndex loadSourceIndex() {
+            return index;
+        }
+
+        @Override
+        protected GenerationManifest loadManifest() {
+            return manifest;
+        }
+
+        @Override
+        protected SourceModelCache loadSourceModels() {
+            return models;
+        }
+
+        @Override
+        protected List<String> getCompileSourceRoots() {
+            return Collections.singletonList( sourceRoot.getAbsolutePath() );
+        }
+
+        @Override
+        protected void commit( FileTransaction transaction ) throws IOException {
+            if ( failingCommits > 0 ) {
+                failingCommits--;
+                throw new IOException("No space left on device");
+            }
+
+            super.commit( transaction );
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.redshape.maven.plugins.gwt.goals;
 
+import com.sun.codemodel.JCodeModel;
 import junit.framework.Assert;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.Arrays;
 
 /**
  * Created by Cyril on 6/14/13.
@@ -17,4 +19,21 @@ public class GenPresenterMojoTest {
 
     }
 
+    @Test
+    public void testBuildCodeModelForBatch() throws Exception {
+        GenPresenterMojo mojo = new GenPresenterMojo();
+        mojo.setPresenterName("Home");
+        mojo.setPresenters( Arrays.asList("Settings", "Home", "Profile") );
+        mojo.setPresentersPackage("com.redshape.client.presenters");
+        mojo.setPresenterViewsPackage("com.redshape.client.views");
+
+        Assert.assertEquals( Arrays.asList("Home", "Settings", "Profile"), mojo.getPresenterNames() );
+
+        JCodeModel model = mojo.createPresenterGenerator( mojo.getPresenterNames() ).buildCodeModel( mojo.getPresenterNames() );
+        for ( String name : mojo.getPresenterNames() ) {
+            Assert.assertNotNull( model._getClass("com.redshape.client.presenters." + name + "Presenter") );
+            Assert.assertNotNull( model._getClass("com.redshape.client.views." + name + "View") );
+        }
+    }
+
 }
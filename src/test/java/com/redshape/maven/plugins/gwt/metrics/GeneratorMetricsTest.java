@@ -0,0 +1,44 @@
+package com.redshape.maven.plugins.gwt.metrics;
+
+import junit.framework.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+
+public class GeneratorMetricsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReport() throws Exception {
+        GeneratorMetrics metrics = new GeneratorMetrics();
+        metrics.start("parse").stop();
+        GeneratorMetrics.Timer timer = metrics.start("parse");
+        timer.stop();
+        timer.stop();
+        metrics.add( GeneratorMetrics.BYTES_READ, 100 );
+        metrics.add( GeneratorMetrics.BYTES_READ, 20 );
+
+        Assert.assertEquals( 2, metrics.getCount("parse") );
+        Assert.assertEquals( 120, metrics.getCounter( GeneratorMetrics.BYTES_READ ) );
+        Assert.assertEquals( 0, metrics.getCounter( GeneratorMetrics.FILES_PARSED ) );
+
+        File reportFile = new File( folder.getRoot(), "report/generator-report.json" );
+        metrics.writeReport( reportFile, Collections.singletonMap( "goal", "gen-\"presenter\"" ) );
+
+        RandomAccessFile input = new RandomAccessFile( reportFile, "r" );
+        byte[] bytes = new byte[ (int) input.length() ];
+        input.readFully( bytes );
+        input.close();
+
+        String report = new String( bytes, "UTF-8" );
+        Assert.assertTrue( report.contains("\"goal\": \"gen-\\\"presenter\\\"\"") );
+        Assert.assertTrue( report.contains("\"parse\": { \"count\": 2, \"totalNanos\": ") );
+        Assert.assertTrue( report.contains("\"bytes.read\": 120") );
+    }
+}
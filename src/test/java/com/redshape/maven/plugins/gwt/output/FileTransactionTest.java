@@ -0,0 +1,115 @@
+package com.redshape.maven.plugins.gwt.output;
+
+import junit.framework.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+
+public class FileTransactionTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPublishesOnCommit() throws Exception {
+        File existing = write( "Module.java", "original" );
+        File created = new File( folder.getRoot(), "views/HomeView.java" );
+
+        FileTransaction transaction = new FileTransaction();
+        try {
+            File staged = transaction.stage( existing, "patched".getBytes("UTF-8") );
+            Assert.assertEquals( existing.getParentFile(), staged.getParentFile() );
+            transaction.stage( created, "generated".getBytes("UTF-8") );
+
+            Assert.assertEquals( "original", read( existing ) );
+            Assert.assertFalse( created.exists() );
+
+            transaction.commit();
+        } finally {
+            transaction.close();
+        }
+
+        Assert.assertEquals( "patched", read( existing ) );
+        Assert.assertEquals( "generated", read( created ) );
+        Assert.assertEquals( 2, folder.getRoot().list().length );
+        Assert.assertEquals( 1, created.getParentFile().list().length );
+    }
+
+    @Test
+    public void testDiscardsWhenNotCommitted() throws Exception {
+        File existing = write( "Module.java", "original" );
+
+        FileTransaction transaction = new FileTransaction();
+        transaction.stage( existing, "patched".getBytes("UTF-8") );
+        transaction.stage( new File( folder.getRoot(), "HomeView.java" ), "generated".getBytes("UTF-8") );
+        transaction.close();
+
+        Assert.assertEquals( "original", read( existing ) );
+        Assert.assertEquals( 1, folder.getRoot().list().length );
+    }
+
+    @Test
+    public void testRestoresOnFailedCommit() throws Exception {
+        File first = write( "Module.java", "original" );
+        File blocked = new File( folder.getRoot(), "Blocked.java" );
+
+        FileTransaction transaction = new FileTransaction();
+        try {
+            transaction.stage( first, "patched".getBytes("UTF-8") );
+            transaction.stage( blocked, "generated".getBytes("UTF-8") );
+
+            // a non-empty directory can not be replaced by a file
+            blocked.mkdirs();
+            new File( blocked, "child" ).createNewFile();
+
+            transaction.commit();
+            Assert.fail("Commit should have failed");
+        } catch ( IOException e ) {
+            // expected
+        } finally {
+            transaction.close();
+        }
+
+        Assert.assertEquals( "original", read( first ) );
+        Assert.assertEquals( 2, folder.getRoot().list().length );
+    }
+
+    @Test
+    public void testKeepsPermissions() throws Exception {
+        File existing = write( "Module.java", "original" );
+        Assume.assumeTrue( Files.getFileStore( existing.toPath() ).supportsFileAttributeView("posix") );
+        Files.setPosixFilePermissions( existing.toPath(), PosixFilePermissions.fromString("rwxr-x---") );
+        File reference = write( "Reference.java", "" );
+        File created = new File( folder.getRoot(), "HomeView.java" );
+
+        FileTransaction transaction = new FileTransaction();
+        try {
+            transaction.stage( existing, "patched".getBytes("UTF-8") );
+            transaction.stage( created, "generated".getBytes("UTF-8") );
+            transaction.commit();
+        } finally {
+            transaction.close();
+        }
+
+        Assert.assertEquals( "rwxr-x---",
+                PosixFilePermissions.toString( Files.getPosixFilePermissions( existing.toPath() ) ) );
+        Assert.assertEquals( Files.getPosixFilePermissions( reference.toPath() ),
+                Files.getPosixFilePermissions( created.toPath() ) );
+    }
+
+    private File write( String name, String content ) throws IOException {
+        File file = new File( folder.getRoot(), name );
+        Files.write( file.toPath(), content.getBytes("UTF-8") );
+        return file;
+    }
+
+    private static String read( File file ) throws IOException {
+        return new String( Files.readAllBytes( file.toPath() ), "UTF-8" );
+    }
+}
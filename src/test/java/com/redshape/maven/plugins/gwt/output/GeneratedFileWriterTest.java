@@ -0,0 +1,37 @@
+package com.redshape.maven.plugins.gwt.output;
+
+import junit.framework.Assert;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+public class GeneratedFileWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSkipsUnchangedContent() throws Exception {
+        File manifestFile = new File( folder.getRoot(), "manifest.bin" );
+        File file = new File( folder.getRoot(), "com/redshape/HomeView.java" );
+        byte[] content = "class HomeView {}".getBytes("UTF-8");
+
+        GeneratedFileWriter writer = new GeneratedFileWriter( new GenerationManifest(manifestFile),
+                new SystemStreamLog() );
+        Assert.assertTrue( writer.write( file, content ) );
+        Assert.assertFalse( writer.write( file, content ) );
+        writer.getManifest().save();
+
+        file.setLastModified( file.lastModified() - 10000 );
+        long lastModified = file.lastModified();
+
+        writer = new GeneratedFileWriter( GenerationManifest.load( manifestFile, new SystemStreamLog() ),
+                new SystemStreamLog() );
+        Assert.assertFalse( writer.write( file, content ) );
+        Assert.assertEquals( lastModified, file.lastModified() );
+        Assert.assertTrue( writer.write( file, "class HomeView { }".getBytes("UTF-8") ) );
+    }
+}
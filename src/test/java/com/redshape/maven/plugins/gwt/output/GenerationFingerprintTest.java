@@ -0,0 +1,67 @@
+package com.redshape.maven.plugins.gwt.output;
+
+import junit.framework.Assert;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class GenerationFingerprintTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testDetectsChangedFiles() throws Exception {
+        File fingerprintFile = new File( folder.getRoot(), "work/fingerprint.bin" );
+        File module = write( "ClientModule.java", "class ClientModule {}" );
+        File view = write( "HomeView.java", "class HomeView {}" );
+        File missing = new File( folder.getRoot(), "Missing.java" );
+
+        GenerationFingerprint fingerprint = new GenerationFingerprint( fingerprintFile, "settings" );
+        fingerprint.addFiles( Arrays.asList( module, view, missing ) );
+        fingerprint.save();
+
+        GenerationFingerprint loaded = GenerationFingerprint.load( fingerprintFile, new SystemStreamLog() );
+        Assert.assertEquals( "settings", loaded.getSettings() );
+        Assert.assertEquals( 3, loaded.getFiles().size() );
+        Assert.assertTrue( loaded.getChangedFiles().isEmpty() );
+
+        view.setLastModified( view.lastModified() - 10000 );
+        write( "Missing.java", "class Missing {}" );
+        Assert.assertEquals( Arrays.asList( view.getAbsoluteFile(), missing.getAbsoluteFile() ),
+                loaded.getChangedFiles() );
+
+        module.delete();
+        Assert.assertEquals( 3, loaded.getChangedFiles().size() );
+    }
+
+    @Test
+    public void testUnreadable() throws Exception {
+        Assert.assertNull( GenerationFingerprint.load( new File( folder.getRoot(), "none.bin" ), new SystemStreamLog() ) );
+        Assert.assertNull( GenerationFingerprint.load( write( "fingerprint.bin", "garbage" ), new SystemStreamLog() ) );
+
+        GenerationFingerprint fingerprint = new GenerationFingerprint( new File( folder.getRoot(), "empty.bin" ), "" );
+        fingerprint.addFiles( Collections.<File>emptyList() );
+        fingerprint.save();
+        Assert.assertTrue( GenerationFingerprint.load( new File( folder.getRoot(), "empty.bin" ),
+                new SystemStreamLog() ).getFiles().isEmpty() );
+    }
+
+    private File write( String path, String content ) throws Exception {
+        File file = new File( folder.getRoot(), path );
+        FileOutputStream output = new FileOutputStream( file );
+        try {
+            output.write( content.getBytes("UTF-8") );
+        } finally {
+            output.close();
+        }
+
+        return file;
+    }
+}
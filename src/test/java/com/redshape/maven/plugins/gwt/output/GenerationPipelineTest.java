@@ -0,0 +1,53 @@
+package com.redshape.maven.plugins.gwt.output;
+
+import junit.framework.Assert;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+public class GenerationPipelineTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWritesAllUnits() throws Exception {
+        GenerationPipeline pipeline = new GenerationPipeline( new GeneratedFileWriter(
+                new GenerationManifest(null), new SystemStreamLog() ), 4 );
+        for ( int i = 0; i < 20; i++ ) {
+            final String name = "Screen" + i + "View.java";
+            pipeline.submit( folder.getRoot(), new GenerationPipeline.Unit() {
+                @Override
+                public Map<String, byte[]> render() throws IOException {
+                    return Collections.singletonMap( "com/redshape/" + name, name.getBytes("UTF-8") );
+                }
+            } );
+        }
+        pipeline.await();
+
+        for ( int i = 0; i < 20; i++ ) {
+            File file = new File( folder.getRoot(), "com/redshape/Screen" + i + "View.java" );
+            Assert.assertTrue( file.isFile() );
+            Assert.assertEquals( file.getName().length(), file.length() );
+        }
+    }
+
+    @Test( expected = IOException.class )
+    public void testPropagatesFailures() throws Exception {
+        GenerationPipeline pipeline = new GenerationPipeline( new GeneratedFileWriter(
+                new GenerationManifest(null), new SystemStreamLog() ), 2 );
+        pipeline.submit( folder.getRoot(), new GenerationPipeline.Unit() {
+            @Override
+            public Map<String, byte[]> render() throws IOException {
+                throw new IOException("Failed");
+            }
+        } );
+        pipeline.await();
+    }
+}
@@ -0,0 +1,56 @@
+package com.redshape.maven.plugins.gwt.output;
+
+import junit.framework.Assert;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.Charset;
+
+public class VerifyingFileWriterTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReportsDifferencesWithoutWriting() throws Exception {
+        File file = new File( folder.getRoot(), "com/redshape/Module.java" );
+        new GeneratedFileWriter( new GenerationManifest(null), new SystemStreamLog() )
+                .write( file, "class Module {\n  a();\n  b();\n  c();\n  d();\n  e();\n  f();\n  g();\n  h();\n}\n".getBytes(UTF_8) );
+        long lastModified = file.lastModified();
+
+        VerifyingFileWriter writer = new VerifyingFileWriter( new GenerationManifest(null), new SystemStreamLog(),
+                folder.getRoot(), UTF_8 );
+        Assert.assertFalse( writer.write( file, "class Module {\n  a();\n  b();\n  c();\n  d();\n  e();\n  f();\n  g();\n  h();\n}\n".getBytes(UTF_8) ) );
+        Assert.assertTrue( writer.write( file, "class Module {\n  a();\n  b();\n  c();\n  d();\n  e();\n  f();\n  g();\n  h();\n  i();\n}\n".getBytes(UTF_8) ) );
+        Assert.assertTrue( writer.write( new File( folder.getRoot(), "New.java" ), "class New {}".getBytes(UTF_8) ) );
+
+        Assert.assertEquals( lastModified, file.lastModified() );
+        Assert.assertFalse( new File( folder.getRoot(), "New.java" ).exists() );
+        Assert.assertEquals( 2, writer.getDifferences().size() );
+        Assert.assertEquals( "--- a/com/redshape/Module.java\n"
+                + "+++ b/com/redshape/Module.java\n"
+                + "@@ -7,4 +7,5 @@\n"
+                + "   f();\n"
+                + "   g();\n"
+                + "   h();\n"
+                + "+  i();\n"
+                + " }\n", writer.getDifferences().get( file ) );
+        Assert.assertEquals( "--- /dev/null\n+++ b/New.java\n@@ -0,0 +1,1 @@\n+class New {}\n",
+                writer.getDifferences().get( new File( folder.getRoot(), "New.java" ) ) );
+    }
+
+    @Test
+    public void testDiffHunks() {
+        Assert.assertEquals( "", UnifiedDiff.diff( "A.java", "a\r\nb\r\n", "a\nb\n" ) );
+        Assert.assertEquals( "--- a/A.java\n+++ b/A.java\n"
+                + "@@ -1,4 +1,4 @@\n-1\n+one\n 2\n 3\n 4\n"
+                + "@@ -8,4 +8,4 @@\n 8\n 9\n 10\n-11\n+eleven\n",
+                UnifiedDiff.diff( "A.java", "1\n2\n3\n4\n5\n6\n7\n8\n9\n10\n11\n",
+                        "one\n2\n3\n4\n5\n6\n7\n8\n9\n10\neleven\n" ) );
+    }
+}
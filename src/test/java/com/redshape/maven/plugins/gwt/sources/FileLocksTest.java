@@ -0,0 +1,77 @@
+package com.redshape.maven.plugins.gwt.sources;
+
+import junit.framework.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class FileLocksTest {
+
+    private static final int ITERATIONS = 2000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testOverlappingSetsInOppositeOrder() throws Exception {
+        File module = folder.newFile("ClientModule.java");
+        File injector = folder.newFile("ClientGinjector.java");
+        File nameTokens = folder.newFile("NameTokens.java");
+
+        CyclicBarrier barrier = new CyclicBarrier( 2 );
+        AtomicInteger completed = new AtomicInteger();
+        Thread first = new Thread( new Locker( Arrays.asList( module, injector, nameTokens ), barrier, completed ) );
+        Thread second = new Thread( new Locker( Arrays.asList( nameTokens, injector ), barrier, completed ) );
+        first.start();
+        second.start();
+        first.join( 30000 );
+        second.join( 30000 );
+
+        Assert.assertFalse( "Deadlocked", first.isAlive() || second.isAlive() );
+        Assert.assertEquals( 2 * ITERATIONS, completed.get() );
+        Assert.assertSame( FileLocks.get( module ), FileLocks.get( new File( folder.getRoot(), "./ClientModule.java" ) ) );
+    }
+
+    private static class Locker implements Runnable {
+        private final List<File> files;
+        private final CyclicBarrier barrier;
+        private final AtomicInteger completed;
+
+        Locker( List<File> files, CyclicBarrier barrier, AtomicInteger completed ) {
+            this.files = files;
+            this.barrier = barrier;
+            this.completed = completed;
+        }
+
+        @Override
+        public void run() {
+            try {
+                barrier.await();
+                for ( int i = 0; i < ITERATIONS; i++ ) {
+                    List<Lock> locks = FileLocks.lockAll( files );
+                    try {
+                        Assert.assertEquals( files.size(), locks.size() );
+                        Thread.yield();
+                    } finally {
+                        FileLocks.unlockAll( locks );
+                    }
+
+                    for ( Lock lock : locks ) {
+                        Assert.assertFalse( ( (ReentrantLock) lock ).isHeldByCurrentThread() );
+                    }
+                    completed.incrementAndGet();
+                }
+            } catch ( Exception e ) {
+                throw new IllegalStateException( e );
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.redshape.maven.plugins.gwt.sources;
+
+import com.redshape.maven.plugins.gwt.metrics.GeneratorMetrics;
+import com.thoughtworks.qdox.JavaDocBuilder;
+import com.thoughtworks.qdox.model.JavaClass;
+import com.thoughtworks.qdox.model.Type;
+import junit.framework.Assert;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+public class SourceLocatorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testLocate() throws Exception {
+        File root = folder.newFolder("java");
+        write( root, "com/redshape/client/ClientModule.java",
+                "package com.redshape.client;\npublic class ClientModule {\n public static class Tokens {}\n}\n" );
+        write( root, "com/redshape/client/ClientGinjector.java",
+                "package com.redshape.client;\npublic interface ClientGinjector {}\nclass Secondary {}\n" );
+        write( root, "misplaced/Injector.java",
+                "package com.redshape.other;\npublic interface Injector {}\n" );
+
+        SourceLocator locator = new SourceLocator( Arrays.asList( root.getAbsolutePath() ), new SystemStreamLog() );
+        Map<String, JavaClass> classes = locator.locate( new JavaDocBuilder(), Arrays.asList(
+                "com.redshape.client.ClientModule",
+                "com.redshape.client.ClientModule.Tokens",
+                "com.redshape.client.Secondary",
+                "com.redshape.other.Injector",
+                "com.redshape.client.Missing") );
+
+        Assert.assertEquals( 4, classes.size() );
+        Assert.assertEquals( "com.redshape.client.ClientModule$Tokens",
+                classes.get("com.redshape.client.ClientModule.Tokens").getFullyQualifiedName() );
+        Assert.assertNotNull( classes.get("com.redshape.client.Secondary") );
+        Assert.assertNotNull( classes.get("com.redshape.other.Injector") );
+    }
+
+    @Test
+    public void testIndexPersistence() throws Exception {
+        File root = folder.newFolder("java");
+        File indexFile = new File( folder.getRoot(), "index/source-index.bin" );
+        File source = write( root, "misplaced/Injector.java",
+                "package com.redshape.other;\npublic interface Injector {}\n" );
+
+        SourceIndex index = SourceIndex.load( indexFile, new SystemStreamLog() );
+        new SourceLocator( Arrays.asList( root.getAbsolutePath() ), index, new SystemStreamLog() )
+                .locate( new JavaDocBuilder(), Arrays.asList("com.redshape.other.Injector") );
+        index.save();
+
+        SourceIndex reloaded = SourceIndex.load( indexFile, new SystemStreamLog() );
+        Assert.assertEquals( source.getAbsoluteFile(),
+                reloaded.lookup( "com.redshape.other.Injector", Arrays.asList( root.getAbsoluteFile() ) ) );
+
+        source.setLastModified( source.lastModified() - 10000 );
+        Assert.assertNull( reloaded.lookup( "com.redshape.other.Injector", Arrays.asList( root.getAbsoluteFile() ) ) );
+    }
+
+    @Test
+    public void testModelCache() throws Exception {
+        File root = folder.newFolder("java");
+        File cacheFile = new File( folder.getRoot(), "cache/source-models.bin" );
+        StringBuilder body = new StringBuilder();
+        for ( int i = 0; i < 3000; i++ ) {
+            body.append( "bind(Presenter" ).append( i ).append( ".class);\n" );
+        }
+        File source = write( root, "com/redshape/client/ClientModule.java",
+                "package com.redshape.client;\nimport com.google.inject.Provider;\n"
+                        + "public class ClientModule {\n public static final String HOME = \"home\";\n"
+                        + " public ClientModule( Provider<Home> home ) {}\n"
+                        + " protected void configure() {\n" + body + " }\n public static class Tokens {}\n}\n" );
+
+        SourceModelCache cache = SourceModelCache.load( cacheFile, new SystemStreamLog() );
+        SourceLocator locator = new SourceLocator( Arrays.asList( root.getAbsolutePath() ), new SystemStreamLog() );
+        locator.setModelCache( cache );
+        locator.locate( new JavaDocBuilder(), Arrays.asList("com.redshape.client.ClientModule") );
+        Assert.assertEquals( 1, cache.size() );
+        cache.save();
+
+        SourceModelCache reloaded = SourceModelCache.load( cacheFile, new SystemStreamLog() );
+        locator = new SourceLocator( Arrays.asList( root.getAbsolutePath() ), new SystemStreamLog() );
+        locator.setModelCache( reloaded );
+        Map<String, JavaClass> classes = locator.locate( new JavaDocBuilder(), Arrays.asList(
+                "com.redshape.client.ClientModule", "com.redshape.client.ClientModule.Tokens") );
+        Assert.assertEquals( 1L, locator.getMetrics().getCounter( GeneratorMetrics.FILES_CACHED ) );
+
+        JavaClass clazz = classes.get("com.redshape.client.ClientModule");
+        Assert.assertEquals( source.getAbsoluteFile(), new File( clazz.getSource().getURL().getPath() ) );
+        Assert.assertEquals( "home", clazz.getFieldByName("HOME").getInitializationExpression().replace( "\"", "" ) );
+        Assert.assertEquals( "com.google.inject.Provider",
+                clazz.getMethods()[0].getParameters()[0].getType().getValue() );
+        Assert.assertTrue( clazz.getMethodBySignature( "configure", new Type[] {} ).getSourceCode()
+                .contains( "bind(Presenter2999.class);" ) );
+        Assert.assertNotNull( classes.get("com.redshape.client.ClientModule.Tokens") );
+    }
+
+    @Test
+    public void testRemembersMisses() throws Exception {
+        File root = folder.newFolder("java");
+        write( root, "com/redshape/client/ClientModule.java", "package com.redshape.client;\npublic class ClientModule {}\n" );
+        File misplaced = write( root, "misplaced/Other.java", "package com.redshape.absent;\nclass Other {}\n" );
+        SourceIndex index = new SourceIndex( null );
+
+        Assert.assertTrue( locate( root, index, "com.redshape.absent.Missing" ).isEmpty() );
+        Assert.assertNotNull( index.getMiss( "com.redshape.absent.Missing", Arrays.asList( root.getAbsoluteFile() ) ) );
+
+        // unchanged tree, and no source in the package directories: no file is read again
+        GeneratorMetrics metrics = new GeneratorMetrics();
+        SourceLocator locator = new SourceLocator( Arrays.asList( root.getAbsolutePath() ), index, new SystemStreamLog() );
+        locator.setMetrics( metrics );
+        Assert.assertTrue( locator.locate( new JavaDocBuilder(), Arrays.asList("com.redshape.absent.Missing") ).isEmpty() );
+        Assert.assertEquals( 0, metrics.getCounter( GeneratorMetrics.BYTES_READ ) );
+
+        // file changed in place
+        write( misplaced, "package com.redshape.absent;\nclass Other {}\nclass Missing {}\n" );
+        Assert.assertNotNull( locate( root, index, "com.redshape.absent.Missing" ).get("com.redshape.absent.Missing") );
+        Assert.assertNull( index.getMiss( "com.redshape.absent.Missing", Arrays.asList( root.getAbsoluteFile() ) ) );
+
+        // file added
+        Assert.assertTrue( locate( root, index, "com.redshape.absent.Absent" ).isEmpty() );
+        write( root, "misplaced/Absent.java", "package com.redshape.absent;\npublic class Absent {}\n" );
+        Assert.assertNotNull( locate( root, index, "com.redshape.absent.Absent" ).get("com.redshape.absent.Absent") );
+    }
+
+    @Test
+    public void testKeepsMissesPerSourceRoots() throws Exception {
+        File first = folder.newFolder("first");
+        File second = folder.newFolder("second");
+        SourceIndex index = new SourceIndex( null );
+
+        // a module of the reactor misses the class in its own roots only
+        Assert.assertTrue( locate( first, index, "com.redshape.absent.Missing" ).isEmpty() );
+        Assert.assertTrue( locate( second, index, "com.redshape.absent.Missing" ).isEmpty() );
+        Assert.assertNotNull( index.getMiss( "com.redshape.absent.Missing", Arrays.asList( first.getAbsoluteFile() ) ) );
+        Assert.assertNotNull( index.getMiss( "com.redshape.absent.Missing", Arrays.asList( second.getAbsoluteFile() ) ) );
+    }
+
+    @Test
+    public void testKeepsUnsavedChanges() throws Exception {
+        File blocker = folder.newFile("blocker");
+        SourceIndex index = new SourceIndex( new File( blocker, "sources.idx" ) );
+        index.putMiss( "com.redshape.absent.Missing", Arrays.asList( blocker ), 1 );
+
+        try {
+            index.save();
+            Assert.fail("Saved under a regular file");
+        } catch ( IOException e ) {
+            Assert.assertTrue( index.isModified() );
+        }
+    }
+
+    @Test
+    public void testPrefilter() throws Exception {
+        File root = folder.newFolder("java");
+        SourcePrefilter prefilter = new SourcePrefilter( Arrays.asList( "com.redshape.client.ClientModule.Tokens" ) );
+
+        Assert.assertTrue( prefilter.matches( write( root, "a/A.java", "class A {\n static class\n  Tokens<T> {}\n}" ) ) );
+        Assert.assertTrue( prefilter.matches( write( root, "a/B.java", "enum /* tokens */ Tokens { A }" ) ) );
+        Assert.assertFalse( prefilter.matches( write( root, "a/C.java", "class C { Tokens tokens; class MyTokens {} }" ) ) );
+        Assert.assertFalse( prefilter.matches( write( root, "a/D.java", "" ) ) );
+        Assert.assertTrue( prefilter.matches( write( root, "a/E.java", "class // legacy\n Tokens {}" ) ) );
+        Assert.assertTrue( prefilter.matches( write( root, "a/F.java", "class /* a */ // \"b\"\r\n  Tokens {}" ) ) );
+        Assert.assertFalse( prefilter.matches( write( root, "a/G.java", "String s = \"//\"; Other // class\n Tokens t;" ) ) );
+    }
+
+    private static Map<String, JavaClass> locate( File root, SourceIndex index, String className ) {
+        return new SourceLocator( Arrays.asList( root.getAbsolutePath() ), index, new SystemStreamLog() )
+                .locate( new JavaDocBuilder(), Arrays.asList( className ) );
+    }
+
+    private File write( File root, String path, String content ) throws IOException {
+        File file = new File( root, path );
+        file.getParentFile().mkdirs();
+        return write( file, content );
+    }
+
+    private static File write( File file, String content ) throws IOException {
+        FileOutputStream stream = new FileOutputStream( file );
+        try {
+            stream.write( content.getBytes("UTF-8") );
+        } finally {
+            stream.close();
+        }
+
+        return file;
+    }
+}
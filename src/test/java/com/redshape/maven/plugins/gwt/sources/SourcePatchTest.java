@@ -0,0 +1,84 @@
+package com.redshape.maven.plugins.gwt.sources;
+
+import junit.framework.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.Charset;
+
+public class SourcePatchTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final String MODULE_SOURCE =
+            "package com.redshape.client;\n"
+            + "\n"
+            + "/** Keeps { unbalanced } braces in comments */\n"
+            + "public class ClientModule extends AbstractPresenterModule {\n"
+            + "    private static final String BRACE = \"}{\";\n"
+            + "\n"
+            + "    @Override\n"
+            + "    protected void configure() {\n"
+            + "        install( new DefaultModule() { } ); // {\n"
+            + "        bindPresenter(HomePresenter.class, HomePresenter.MyView.class, HomeView.class,"
+            + " HomePresenter.MyProxy.class);\n"
+            + "    }\n"
+            + "\n"
+            + "    public static class Tokens {\n"
+            + "        public static final String HOME = \"home\";\n"
+            + "    }\n"
+            + "}\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testOutline() throws Exception {
+        SourceOutline outline = SourceOutline.parse( MODULE_SOURCE );
+        SourceOutline.TypeOutline type = outline.getType("ClientModule");
+        Assert.assertNotNull( type );
+        Assert.assertEquals( MODULE_SOURCE.lastIndexOf('}'), type.getBodyEnd() );
+
+        SourceOutline.MemberOutline configure = type.getMethod("configure");
+        Assert.assertEquals( MODULE_SOURCE.indexOf("    }\n\n    public static class") + 4, configure.getBodyEnd() );
+        Assert.assertEquals( "BRACE", type.getLastField().getName() );
+
+        SourceOutline.TypeOutline tokens = outline.getType("ClientModule.Tokens");
+        Assert.assertEquals( "HOME", tokens.getLastField().getName() );
+    }
+
+    @Test
+    public void testPatch() throws Exception {
+        File file = folder.newFile("ClientModule.java");
+        FileOutputStream stream = new FileOutputStream( file );
+        try {
+            stream.write( MODULE_SOURCE.getBytes(UTF8) );
+        } finally {
+            stream.close();
+        }
+
+        SourcePatch patch = SourcePatch.read( file, UTF8 );
+        SourceOutline.TypeOutline type = patch.getType( "com.redshape.client.ClientModule", "com.redshape.client" );
+        SourceOutline.TypeOutline tokens = patch.getType( "com.redshape.client.ClientModule.Tokens",
+                "com.redshape.client" );
+        patch.insertStatement( type, "configure", "bindPresenter(A.class, B.class, C.class, D.class);" );
+        patch.insertField( tokens, "public static final String ABOUT = \"about\";" );
+        patch.insertMember( tokens, "public static final String getAbout() {\n    return ABOUT;\n}" );
+
+        String expected = MODULE_SOURCE
+                .replace( "HomePresenter.MyProxy.class);\n",
+                        "HomePresenter.MyProxy.class);\n        bindPresenter(A.class, B.class, C.class, D.class);\n" )
+                .replace( "        public static final String HOME = \"home\";\n",
+                        "        public static final String HOME = \"home\";\n"
+                        + "        public static final String ABOUT = \"about\";\n"
+                        + "\n"
+                        + "        public static final String getAbout() {\n"
+                        + "            return ABOUT;\n"
+                        + "        }\n" );
+
+        Assert.assertEquals( expected, new String( patch.toBytes(), UTF8 ) );
+    }
+}
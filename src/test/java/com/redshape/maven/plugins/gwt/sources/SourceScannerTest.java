@@ -0,0 +1,20 @@
+package com.redshape.maven.plugins.gwt.sources;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+public class SourceScannerTest {
+
+    @Test
+    public void testToClassName() throws Exception {
+        Assert.assertEquals( "com.redshape.clazz.D", SourceScanner.toClassName("", "com/redshape/clazz/D.class"));
+        Assert.assertEquals( "com.redshape.clazz.D", SourceScanner.toClassName("", "com/redshape/clazz/D.java"));
+    }
+
+    @Test
+    public void testToClassNameWithSourceRoot() throws Exception {
+        Assert.assertEquals( "com.redshape.clazz.D", SourceScanner.toClassName("/src/main/java",
+                "/src/main/java/com/redshape/clazz/D.java"));
+        Assert.assertEquals( "com.redshape.clazz.D", SourceScanner.toClassName("C:\\src", "C:\\src\\com\\redshape\\clazz\\D.java"));
+    }
+}
@@ -0,0 +1,50 @@
+package com.redshape.maven.plugins.gwt.templates;
+
+import junit.framework.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TemplateEngineTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRender() {
+        Map<String, String> values = new HashMap<String, String>();
+        values.put( "viewName", "HomeView" );
+        values.put( "package", "com.redshape.views" );
+
+        Template template = Template.compile( "test", "${package}.${viewName}: ${ binderName }, $ {viewName}" );
+        Assert.assertEquals( "com.redshape.views.HomeView: ${binderName}, $ {viewName}", template.render(values) );
+        Assert.assertEquals( "no placeholders ${", Template.compile( "test", "no placeholders ${" ).render(values) );
+    }
+
+    @Test
+    public void testOverride() throws Exception {
+        TemplateEngine engine = new TemplateEngine( getClass().getClassLoader(), folder.getRoot() );
+        Template bundled = engine.getTemplate( "UiBinder.Template.xml" );
+        Assert.assertTrue( bundled.getSource().contains("ui:UiBinder") );
+        Assert.assertSame( bundled, engine.getTemplate( "UiBinder.Template.xml" ) );
+
+        File file = new File( folder.getRoot(), "UiBinder.Template.xml" );
+        OutputStream stream = new FileOutputStream( file );
+        try {
+            stream.write( "<ui:UiBinder><!-- ${viewClass} \u00e9 --></ui:UiBinder>".getBytes("UTF-8") );
+        } finally {
+            stream.close();
+        }
+
+        Map<String, String> values = new HashMap<String, String>();
+        values.put( "viewClass", "com.redshape.views.HomeView" );
+        Assert.assertEquals( "<ui:UiBinder><!-- com.redshape.views.HomeView \u00e9 --></ui:UiBinder>",
+                engine.getTemplate( "UiBinder.Template.xml" ).render( values ) );
+    }
+}
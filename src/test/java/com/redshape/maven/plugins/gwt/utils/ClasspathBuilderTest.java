@@ -0,0 +1,74 @@
+package com.redshape.maven.plugins.gwt.utils;
+
+import junit.framework.Assert;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Collections;
+
+public class ClasspathBuilderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testMemoization() throws Exception {
+        File first = folder.newFolder("first").getCanonicalFile();
+        File second = folder.newFolder("second").getCanonicalFile();
+        File link = new File( folder.getRoot(), "java" );
+        try {
+            Files.createSymbolicLink( link.toPath(), first.toPath() );
+        } catch ( IOException e ) {
+            Assume.assumeNoException( e );
+        }
+
+        Model model = new Model();
+        model.setBuild( new Build() );
+        model.getBuild().setOutputDirectory( new File( folder.getRoot(), "classes" ).getPath() );
+        MavenProject project = new MavenProject( model );
+        project.addCompileSourceRoot( link.getPath() );
+
+        ClasspathBuilder builder = new ClasspathBuilder();
+        builder.enableLogging( new ConsoleLogger( Logger.LEVEL_DISABLED, "test" ) );
+        Assert.assertTrue( buildClasspath( builder, project ).contains( first ) );
+
+        // same inputs: the memoized list is returned, the link is not resolved again
+        relink( link, second );
+        Assert.assertTrue( buildClasspath( builder, project ).contains( first ) );
+
+        // added source root: the list and the canonical paths are resolved again
+        File extra = folder.newFolder("extra").getCanonicalFile();
+        project.addCompileSourceRoot( extra.getPath() );
+        Collection<File> classpath = buildClasspath( builder, project );
+        Assert.assertTrue( classpath.contains( second ) );
+        Assert.assertTrue( classpath.contains( extra ) );
+        Assert.assertFalse( classpath.contains( first ) );
+
+        relink( link, first );
+        Assert.assertTrue( buildClasspath( builder, project ).contains( second ) );
+        builder.invalidate( project );
+        Assert.assertTrue( buildClasspath( builder, project ).contains( first ) );
+    }
+
+    private static Collection<File> buildClasspath( ClasspathBuilder builder, MavenProject project )
+            throws ClasspathBuilderException {
+        return builder.buildClasspathList( project, Artifact.SCOPE_COMPILE, Collections.<Artifact>emptySet() );
+    }
+
+    private static void relink( File link, File target ) throws IOException {
+        Files.delete( link.toPath() );
+        Files.createSymbolicLink( link.toPath(), target.toPath() );
+    }
+}
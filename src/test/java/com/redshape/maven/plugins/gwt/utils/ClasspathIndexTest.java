@@ -0,0 +1,71 @@
+package com.redshape.maven.plugins.gwt.utils;
+
+import junit.framework.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class ClasspathIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testJarsAndDirectories() throws Exception {
+        File jar = createJar( "lib.jar", "com/gwtplatform/mvp/client/Presenter.class",
+                "com/gwtplatform/mvp/client/Presenter$MyView.class", "com/gwtplatform/mvp/client/",
+                "META-INF/MANIFEST.MF", "META-INF/versions/9/com/google/inject/Provider.class" );
+        File classes = folder.newFolder( "classes" );
+        new File( classes, "com/example" ).mkdirs();
+        new File( classes, "com/example/Module.class" ).createNewFile();
+
+        ClasspathIndex index = new ClasspathIndex( Arrays.asList( classes, jar ) );
+        Assert.assertTrue( index.contains( "com.gwtplatform.mvp.client.Presenter" ) );
+        Assert.assertTrue( index.contains( "com.gwtplatform.mvp.client.Presenter$MyView" ) );
+        Assert.assertTrue( index.contains( "com.google.inject.Provider" ) );
+        Assert.assertTrue( index.contains( "com.example.Module" ) );
+        Assert.assertEquals( Collections.singletonList( "com.gwtplatform.mvp.client.View" ),
+                index.findMissing( Arrays.asList( "com.example.Module", "com.gwtplatform.mvp.client.View" ) ) );
+        Assert.assertEquals( 3, ClasspathIndex.getClassNames( jar ).size() );
+    }
+
+    @Test
+    public void testRefreshesChangedJar() throws Exception {
+        File jar = createJar( "lib.jar", "com/example/First.class" );
+        Assert.assertTrue( new ClasspathIndex( Collections.singletonList(jar) ).contains( "com.example.First" ) );
+
+        long lastModified = jar.lastModified();
+        createJar( "lib.jar", "com/example/Second.class" );
+        jar.setLastModified( lastModified + 2000 );
+
+        ClasspathIndex index = new ClasspathIndex( Collections.singletonList(jar) );
+        Assert.assertFalse( index.contains( "com.example.First" ) );
+        Assert.assertTrue( index.contains( "com.example.Second" ) );
+    }
+
+    private File createJar( String name, String... entries ) throws Exception {
+        File jar = new File( folder.getRoot(), name );
+        ZipOutputStream output = new ZipOutputStream( new FileOutputStream( jar ) );
+        try {
+            output.setComment( "test archive" );
+            for ( String entry : entries ) {
+                output.putNextEntry( new ZipEntry( entry ) );
+                if ( !entry.endsWith("/") ) {
+                    output.write( new byte[] { (byte) 0xCA, (byte) 0xFE } );
+                }
+                output.closeEntry();
+            }
+        } finally {
+            output.close();
+        }
+
+        return jar;
+    }
+}
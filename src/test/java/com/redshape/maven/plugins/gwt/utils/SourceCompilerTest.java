@@ -0,0 +1,75 @@
+package com.redshape.maven.plugins.gwt.utils;
+
+import junit.framework.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SourceCompilerTest {
+
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File sourceRoot;
+
+    @Before
+    public void setUp() throws Exception {
+        Assume.assumeTrue( SourceCompiler.isAvailable() );
+
+        sourceRoot = folder.newFolder("java");
+        write( "com/example/NameTokens.java",
+                "package com.example;\npublic class NameTokens {\n public static final String HOME = \"home\";\n}\n" );
+        write( "com/example/Broken.java", "package com.example;\npublic class Broken { Missing missing; }\n" );
+    }
+
+    @Test
+    public void testCompiles() throws Exception {
+        Map<File, byte[]> units = new LinkedHashMap<File, byte[]>();
+        units.put( new File( sourceRoot, "com/example/HomePresenter.java" ),
+                ( "package com.example;\npublic class HomePresenter {\n"
+                        + " String token = NameTokens.HOME;\n HomePresenter() { super   (); }\n}\n" ).getBytes( CHARSET ) );
+
+        SourceCompiler compiler = new SourceCompiler( Collections.singletonList( sourceRoot ), CHARSET );
+        Assert.assertEquals( Collections.<String>emptyList(), compiler.compile( units ) );
+        Assert.assertFalse( new File( sourceRoot, "com/example/HomePresenter.class" ).exists() );
+        Assert.assertFalse( new File( sourceRoot, "com/example/NameTokens.class" ).exists() );
+    }
+
+    @Test
+    public void testReportsErrors() throws Exception {
+        File file = new File( sourceRoot, "com/example/NameTokens.java" );
+        Map<File, byte[]> units = new LinkedHashMap<File, byte[]>();
+        units.put( file, ( "package com.example;\npublic class NameTokens {\n"
+                + " public static final int HOME = \"home\";\n}\n" ).getBytes( CHARSET ) );
+        units.put( new File( sourceRoot, "com/example/HomeView.java" ),
+                "package com.example;\nclass HomeView {\n void bind() { unknown(); }\n}\n".getBytes( CHARSET ) );
+
+        List<String> errors = new SourceCompiler( Collections.singletonList( sourceRoot ), CHARSET ).compile( units );
+        Assert.assertEquals( errors.toString(), 2, errors.size() );
+        Assert.assertTrue( errors.get(0), errors.get(0).startsWith( file.getPath() + ":3: " ) );
+        Assert.assertTrue( errors.get(1), errors.get(1).contains( "HomeView.java:3: " ) );
+    }
+
+    private void write( String path, String content ) throws Exception {
+        File file = new File( sourceRoot, path );
+        file.getParentFile().mkdirs();
+        FileOutputStream output = new FileOutputStream( file );
+        try {
+            output.write( content.getBytes( CHARSET ) );
+        } finally {
+            output.close();
+        }
+    }
+}